@@ -0,0 +1,69 @@
+package de.lmu.dal.experimenter;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import meka.classifiers.multilabel.RAkEL;
+import meka.core.SuperLabelUtils;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+
+/**
+ * RAkEL that draws the models of its label subsets from a {@link SubsetModelCache}. The subsets are drawn exactly as in {@link RAkEL}, so the resulting
+ * ensemble is identical to the one RAkEL builds, but only the subsets not modeled before on the same training split are actually trained.
+ */
+public class CachingRAkEL extends RAkEL {
+
+	private static final long serialVersionUID = -2446542387045711738L;
+
+	private final transient SubsetModelCache cache;
+	private final String trainingSplit;
+
+	public CachingRAkEL(final SubsetModelCache cache, final String trainingSplit) {
+		this.cache = cache;
+		this.trainingSplit = trainingSplit;
+	}
+
+	@Override
+	public void buildClassifier(final Instances D) throws Exception {
+		this.testCapabilities(D);
+		int L = D.classIndex();
+		int k = this.getK();
+		int m = this.getM();
+		Random random = new Random(this.m_S);
+
+		String baseClassifierConfig = this.m_Classifier.getClass().getName() + " " + ((this.m_Classifier instanceof OptionHandler) ? Utils.joinOptions(((OptionHandler) this.m_Classifier).getOptions()) : "") + " P="
+				+ this.m_P + " N=" + this.m_N;
+
+		this.m_InstancesTemplates = new Instances[m];
+		this.kMap = new int[m][k];
+		this.m_Classifiers = new Classifier[m];
+		int trained = 0;
+		for (int i = 0; i < m; i++) {
+			this.kMap[i] = SuperLabelUtils.get_k_subset(L, k, random);
+
+			SubsetModelCache.SubsetModel model = this.cache.get(this.trainingSplit, this.kMap[i], baseClassifierConfig);
+			if (model == null) {
+				if (this.getDebug()) {
+					System.out.println("\tmodel " + (i + 1) + "/" + m + ": " + Arrays.toString(this.kMap[i]) + ", P=" + this.m_P + ", N=" + this.m_N);
+				}
+				Instances D_i = SuperLabelUtils.makePartitionDataset(D, this.kMap[i], this.m_P, this.m_N);
+				Classifier c = AbstractClassifier.makeCopy(this.m_Classifier);
+				c.buildClassifier(D_i);
+				model = new SubsetModelCache.SubsetModel(c, new Instances(D_i, 0));
+				this.cache.put(this.trainingSplit, this.kMap[i], baseClassifierConfig, model);
+				trained++;
+			}
+			this.m_Classifiers[i] = model.getClassifier();
+			this.m_InstancesTemplates[i] = model.getTemplate();
+		}
+
+		if (this.getDebug()) {
+			System.out.println("Trained " + trained + " of " + m + " subset models, the others have been taken from the cache.");
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+package de.lmu.dal.experimenter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import ai.libs.jaicore.basic.sets.SetUtil;
+import meka.core.MLUtils;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.RenameAttribute;
+
+/**
+ * Process-wide cache of the prepared train and test splits.
+ *
+ * A split is read from its ARFF file only once: the attributes are renamed, the data is prepared for MEKA and the result is kept in memory (up to the
+ * configured size, least recently used splits are evicted first) as well as written to a binary file in the cache folder. Later requests for the same split
+ * are served from memory or, e.g. in another worker process, from the binary file without parsing the ARFF again.
+ *
+ * The returned instances are shared, so callers have to copy them before modifying them.
+ */
+public class DatasetCache {
+
+	private static final String BINARY_SUFFIX = ".bin";
+
+	private final File datasetFolder;
+	private final File binaryFolder;
+	private final long maxSizeInBytes;
+
+	private final LinkedHashMap<String, FutureTask<Instances>> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, Long> sizes = new LinkedHashMap<>();
+	private long currentSize = 0;
+
+	private int hits = 0;
+	private int misses = 0;
+
+	public DatasetCache(final File datasetFolder, final File binaryFolder, final int maxSizeInMB) {
+		this.datasetFolder = datasetFolder;
+		this.binaryFolder = binaryFolder;
+		this.maxSizeInBytes = (long) maxSizeInMB * 1024 * 1024;
+	}
+
+	public Instances get(final String dataset, final long seed, final String split, final boolean train) throws Exception {
+		String key = SetUtil.implode(Arrays.asList(dataset, seed + "", split, train ? "train" : "test"), "_");
+
+		FutureTask<Instances> task;
+		boolean load = false;
+		synchronized (this) {
+			task = this.cache.get(key);
+			if (task == null) {
+				task = new FutureTask<>(() -> this.load(key));
+				this.cache.put(key, task);
+				load = true;
+				this.misses++;
+			} else {
+				this.hits++;
+			}
+		}
+
+		/* the split is loaded outside of the lock so that other splits can be served in the meantime */
+		if (load) {
+			task.run();
+		}
+		try {
+			Instances data = task.get();
+			if (load) {
+				this.registerSize(key, data);
+			}
+			return data;
+		} catch (ExecutionException e) {
+			synchronized (this) {
+				this.cache.remove(key);
+			}
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+
+	private synchronized void registerSize(final String key, final Instances data) {
+		long size = estimateSize(data);
+		this.sizes.put(key, size);
+		this.currentSize += size;
+
+		/* evict the least recently used splits, but always keep the one just loaded */
+		Iterator<String> it = this.cache.keySet().iterator();
+		while (this.currentSize > this.maxSizeInBytes && it.hasNext()) {
+			String candidate = it.next();
+			if (candidate.equals(key) || !this.sizes.containsKey(candidate)) {
+				continue;
+			}
+			it.remove();
+			this.currentSize -= this.sizes.remove(candidate);
+		}
+	}
+
+	private Instances load(final String key) throws Exception {
+		File arffFile = new File(this.datasetFolder, key + ".arff");
+		File binaryFile = new File(this.binaryFolder, key + BINARY_SUFFIX);
+
+		if (binaryFile.exists() && binaryFile.lastModified() >= arffFile.lastModified()) {
+			try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(binaryFile)))) {
+				return (Instances) ois.readObject();
+			} catch (IOException | ClassNotFoundException e) {
+				System.out.println("Could not read cached split " + binaryFile + ", parse ARFF instead: " + e.getMessage());
+			}
+		}
+
+		Instances data = prepare(new Instances(new FileReader(arffFile)));
+		this.writeBinary(data, binaryFile);
+		return data;
+	}
+
+	private void writeBinary(final Instances data, final File binaryFile) {
+		binaryFile.getParentFile().mkdirs();
+		try {
+			/* write to a temporary file first so that concurrent readers never see a partially written split */
+			File tmpFile = File.createTempFile(binaryFile.getName(), ".tmp", binaryFile.getParentFile());
+			try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				oos.writeObject(data);
+			}
+			Files.move(tmpFile.toPath(), binaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.out.println("Could not write cached split " + binaryFile + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Replaces blanks and removes quotes in the attribute names and prepares the data for MEKA.
+	 */
+	static Instances prepare(final Instances dataset) throws Exception {
+		String relationName = dataset.relationName();
+		RenameAttribute ra = new RenameAttribute();
+		ra.setAttributeIndices("first-last");
+		ra.setFind(" ");
+		ra.setReplaceAll(true);
+		ra.setReplace("_");
+		ra.setInputFormat(dataset);
+		Instances prepared = Filter.useFilter(dataset, ra);
+		ra = new RenameAttribute();
+		ra.setAttributeIndices("first-last");
+		ra.setFind("'");
+		ra.setReplaceAll(true);
+		ra.setReplace("");
+		ra.setInputFormat(prepared);
+		prepared = Filter.useFilter(prepared, ra);
+
+		prepared.setRelationName(relationName);
+		MLUtils.prepareData(prepared);
+		return prepared;
+	}
+
+	private static long estimateSize(final Instances data) {
+		long size = 0;
+		for (Instance i : data) {
+			/* value (and index for sparse instances) per stored value plus object overhead */
+			size += i.numValues() * 12L + 32;
+		}
+		return size;
+	}
+
+	public synchronized int getNumberOfHits() {
+		return this.hits;
+	}
+
+	public synchronized int getNumberOfMisses() {
+		return this.misses;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "DatasetCache [splits=" + this.cache.size() + ", size=" + (this.currentSize / (1024 * 1024)) + "MB, hits=" + this.hits + ", misses=" + this.misses + "]";
+	}
+}
@@ -1,20 +1,19 @@
 package de.lmu.dal.experimenter;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
-import java.util.ArrayList;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.IntStream;
 
 import org.aeonbits.owner.ConfigCache;
 import org.aeonbits.owner.ConfigFactory;
+import org.apache.commons.io.FileUtils;
 import org.api4.java.algorithm.exceptions.AlgorithmExecutionCanceledException;
 import org.api4.java.algorithm.exceptions.AlgorithmTimeoutedException;
 
@@ -32,7 +31,6 @@ import ai.libs.jaicore.experiments.exceptions.ExperimentAlreadyExistsInDatabaseE
 import ai.libs.jaicore.experiments.exceptions.ExperimentDBInteractionFailedException;
 import ai.libs.jaicore.experiments.exceptions.ExperimentEvaluationFailedException;
 import ai.libs.jaicore.experiments.exceptions.IllegalExperimentSetupException;
-import clus.Clus;
 import meka.classifiers.MultiXClassifier;
 import meka.classifiers.multilabel.BR;
 import meka.classifiers.multilabel.CC;
@@ -41,7 +39,6 @@ import meka.classifiers.multilabel.FW;
 import meka.classifiers.multilabel.LC;
 import meka.classifiers.multilabel.RAkEL;
 import meka.core.F;
-import meka.core.MLUtils;
 import meka.core.Result;
 import mulan.classifier.MultiLabelOutput;
 import mulan.classifier.clus.ClusWrapperClassification;
@@ -52,8 +49,6 @@ import mulan.data.MultiLabelInstances;
 import weka.classifiers.trees.J48;
 import weka.core.Instance;
 import weka.core.Instances;
-import weka.filters.Filter;
-import weka.filters.unsupervised.attribute.RenameAttribute;
 
 public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluator {
 
@@ -64,7 +59,47 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 
 	private static final IDependenceAwareMLCLossExperimenterConfig m = (IDependenceAwareMLCLossExperimenterConfig) ConfigCache.getOrCreate(IDependenceAwareMLCLossExperimenterConfig.class).loadPropertiesFromFile(configFile);
 	private static final IDatabaseConfig dbconfig = (IDatabaseConfig) ConfigFactory.create(IDatabaseConfig.class).loadPropertiesFromFile(configFile);
-	private static final IExperimentDatabaseHandle dbHandle = new ExperimenterMySQLHandle(dbconfig);
+	private static final IExperimentDatabaseHandle dbHandle = createDatabaseHandle(dbconfig);
+	private static final DatasetCache datasetCache = new DatasetCache(m.getDatasetFolder(), m.getDatasetCacheFolder(), m.getDatasetCacheSize());
+
+	static final Map<String, Integer> NUM_LABELS = new HashMap<>();
+	static {
+		NUM_LABELS.put("arts1", 26);
+		NUM_LABELS.put("bibtex", 159);
+		NUM_LABELS.put("birds", 19);
+		NUM_LABELS.put("bookmarks", 208);
+		NUM_LABELS.put("business1", 30);
+		NUM_LABELS.put("computers1", 33);
+		NUM_LABELS.put("education1", 33);
+		NUM_LABELS.put("emotions", 6);
+		NUM_LABELS.put("enron-f", 53);
+		NUM_LABELS.put("entertainment1", 21);
+		NUM_LABELS.put("flags", 12);
+		NUM_LABELS.put("genbase", 27);
+		NUM_LABELS.put("health1", 32);
+		NUM_LABELS.put("llog-f", 75);
+		NUM_LABELS.put("mediamill", 101);
+		NUM_LABELS.put("medical", 45);
+		NUM_LABELS.put("recreation1", 22);
+		NUM_LABELS.put("reference1", 33);
+		NUM_LABELS.put("scene", 6);
+		NUM_LABELS.put("science1", 40);
+		NUM_LABELS.put("social1", 39);
+		NUM_LABELS.put("society1", 27);
+		NUM_LABELS.put("tmc2007", 22);
+		NUM_LABELS.put("yeast", 14);
+	}
+
+	/**
+	 * Creates the handle for the experiment table. With db.driver = file, the experiments are kept in an embedded log file db.database/db.table.log instead
+	 * of a MySQL table.
+	 */
+	private static IExperimentDatabaseHandle createDatabaseHandle(final IDatabaseConfig config) {
+		if ("file".equalsIgnoreCase(config.getDBDriver())) {
+			return new ExperimenterFileDBHandle(new File(config.getDBDatabaseName(), config.getDBTableName() + ".log"));
+		}
+		return new ExperimenterMySQLHandle(config);
+	}
 
 	public static void main(final String[] args)
 			throws ExperimentDBInteractionFailedException, AlgorithmTimeoutedException, IllegalExperimentSetupException, ExperimentAlreadyExistsInDatabaseException, InterruptedException, AlgorithmExecutionCanceledException {
@@ -76,6 +111,9 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 			case "run":
 				runExperiments();
 				break;
+			case "run-parallel":
+				runExperimentsInParallel();
+				break;
 			case "delete":
 				deleteTable();
 				break;
@@ -100,15 +138,17 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 		runner.randomlyConductExperiments(-1);
 	}
 
+	public static void runExperimentsInParallel() throws ExperimentDBInteractionFailedException, InterruptedException {
+		ParallelExperimentRunner runner = new ParallelExperimentRunner(m, DependenceAwareMLCLossExperimenter::new, dbHandle);
+		runner.conductExperiments();
+	}
+
 	private String datasetName;
 	private Long seed;
 	private String split;
-	private Instances trainDataset = null;
-	private Instances testDataset = null;
+	private final SubsetModelCache subsetModels = new SubsetModelCache();
 
 	private void clear() {
-		this.trainDataset = null;
-		this.testDataset = null;
 		this.datasetName = null;
 		this.seed = null;
 		this.split = null;
@@ -141,37 +181,11 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 		}
 		System.out.println("Experiment #" + experimentEntry.getId() + ": Evaluate " + algoName + " on " + this.datasetName + " split " + this.split + " and seed " + this.seed);
 
-		Map<String, Integer> numLabels = new HashMap<>();
-		numLabels.put("arts1", 26);
-		numLabels.put("bibtex", 159);
-		numLabels.put("birds", 19);
-		numLabels.put("bookmarks", 208);
-		numLabels.put("business1", 30);
-		numLabels.put("computers1", 33);
-		numLabels.put("education1", 33);
-		numLabels.put("emotions", 6);
-		numLabels.put("enron-f", 53);
-		numLabels.put("entertainment1", 21);
-		numLabels.put("flags", 12);
-		numLabels.put("genbase", 27);
-		numLabels.put("health1", 32);
-		numLabels.put("llog-f", 75);
-		numLabels.put("mediamill", 101);
-		numLabels.put("medical", 45);
-		numLabels.put("recreation1", 22);
-		numLabels.put("reference1", 33);
-		numLabels.put("scene", 6);
-		numLabels.put("science1", 40);
-		numLabels.put("social1", 39);
-		numLabels.put("society1", 27);
-		numLabels.put("tmc2007", 22);
-		numLabels.put("yeast", 14);
-
 		try {
 			StringBuilder outputFileNamePrefix = new StringBuilder();
 			outputFileNamePrefix.append(this.datasetName).append(File.separator).append(SetUtil.implode(Arrays.asList(this.datasetName, this.split, this.seed, algorithm), "-"));
 
-			int L = numLabels.get(this.datasetName);
+			int L = NUM_LABELS.get(this.datasetName);
 
 			Map<String, Object> output = new HashMap<>();
 
@@ -198,14 +212,14 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 				break;
 			}
 			case "rakel": {
-				Set<Integer> ks = new HashSet<>();
+				Set<Integer> ks = new TreeSet<>();
 				IntStream.range(1, 6).forEach(ks::add);
 				ks.add((int) Math.floor((double) L / 2));
 				ks.add(L - 1);
+				this.subsetModels.resetStatistics();
 				for (int k : ks) {
-					System.gc();
 					System.out.println("Create RAkEL classifier with k=" + k);
-					RAkEL rakel = new RAkEL();
+					RAkEL rakel = new CachingRAkEL(this.subsetModels, this.getTrainingSplitName());
 					rakel.setK(k);
 					rakel.setM(L - k + 1);
 					rakel.setClassifier(new J48());
@@ -218,16 +232,17 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 					output.put("progress", k + "/" + L + " (" + ValueUtil.round(((double) k / L) * 100, 2) + "%)");
 					processor.processResults(output);
 				}
+				System.out.println("Subset model cache hit rate of the k-sweep: " + ValueUtil.round(this.subsetModels.getHitRate() * 100, 2) + "% (" + this.subsetModels + ")");
 			}
 			case "rakel2": {
-				Set<Integer> ks = new HashSet<>();
+				Set<Integer> ks = new TreeSet<>();
 				IntStream.range(2, 6).forEach(ks::add);
 				// ks.add((int) Math.floor((double) L / 2));
 				// ks.add(L - 1);
+				this.subsetModels.resetStatistics();
 				for (int k : ks) {
-					System.gc();
 					System.out.println("Create RAkEL classifier with k=" + k);
-					RAkEL rakel = new RAkEL();
+					RAkEL rakel = new CachingRAkEL(this.subsetModels, this.getTrainingSplitName());
 					rakel.setK(k);
 					rakel.setM((int) ((3.0 * L) / k));
 					rakel.setClassifier(new J48());
@@ -240,6 +255,7 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 					output.put("progress", k + "/" + L + " (" + ValueUtil.round(((double) k / L) * 100, 2) + "%)");
 					processor.processResults(output);
 				}
+				System.out.println("Subset model cache hit rate of the k-sweep: " + ValueUtil.round(this.subsetModels.getHitRate() * 100, 2) + "% (" + this.subsetModels + ")");
 			}
 			case "cc": {
 				System.out.println("Create CC classifier");
@@ -264,23 +280,28 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 				boolean[] ensemble = { true, false };
 
 				for (boolean isEnsemble : ensemble) {
-					File workingDir = new File("tmp/" + this.datasetName + "-" + this.seed + "-" + this.split + "-" + isEnsemble + "/");
-					workingDir.mkdirs();
-					try (BufferedWriter bw = new BufferedWriter(new FileWriter(new File(workingDir, "config.s")))) {
-						bw.write("[Data]\nFile\nTestSet\n[Attributes]\nTarget\n[Output]\nWritePredictions=Test");
-					}
+					/* CLUS still reads the training data and settings from files, so give every run a private working directory */
+					File workingDir = Files.createTempDirectory(this.datasetName + "-" + this.seed + "-" + this.split + "-" + isEnsemble + "-").toFile();
+					try {
+						try (BufferedWriter bw = new BufferedWriter(new FileWriter(new File(workingDir, "config.s")))) {
+							bw.write("[Data]\nFile\nTestSet\n[Attributes]\nTarget\n");
+						}
 
-					ClusWrapperClassification clus = new ClusWrapperClassification(workingDir.getPath() + "/", this.datasetName, workingDir.getPath() + "/config.s");
-					clus.setEnsemble(isEnsemble);
+						ClusWrapperClassification clus = new ClusWrapperClassification(workingDir.getPath() + "/", this.datasetName, workingDir.getPath() + "/config.s");
+						clus.setEnsemble(isEnsemble);
+						clus.setInMemory(true);
 
-					StringBuilder outputFileName = new StringBuilder(outputFileNamePrefix);
-					if (isEnsemble) {
-						outputFileName.append("-ensemble");
-					}
-					outputFileName.append(".arff");
+						StringBuilder outputFileName = new StringBuilder(outputFileNamePrefix);
+						if (isEnsemble) {
+							outputFileName.append("-ensemble");
+						}
+						outputFileName.append(".arff");
 
-					System.out.println("Evaluate Clus classifier");
-					this.evaluateModel(clus, new File(m.getOutputFolder(), outputFileName.toString()), isEnsemble ? 10.0 : 1.0);
+						System.out.println("Evaluate Clus classifier");
+						this.evaluateModel(clus, new File(m.getOutputFolder(), outputFileName.toString()));
+					} finally {
+						FileUtils.deleteDirectory(workingDir);
+					}
 				}
 			}
 
@@ -293,64 +314,15 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 		}
 	}
 
-	private Instances getDataset(final boolean train) throws ExperimentEvaluationFailedException {
-		if (train) {
-			try {
-				if (this.trainDataset == null) {
-					this.trainDataset = new Instances(new FileReader(new File(m.getDatasetFolder(), SetUtil.implode(Arrays.asList(this.datasetName, this.seed + "", this.split, "train"), "_") + ".arff")));
-
-					String relationName = this.trainDataset.relationName();
-					RenameAttribute ra = new RenameAttribute();
-					ra.setAttributeIndices("first-last");
-					ra.setFind(" ");
-					ra.setReplaceAll(true);
-					ra.setReplace("_");
-					ra.setInputFormat(this.trainDataset);
-					this.trainDataset = Filter.useFilter(this.trainDataset, ra);
-					ra = new RenameAttribute();
-					ra.setAttributeIndices("first-last");
-					ra.setFind("'");
-					ra.setReplaceAll(true);
-					ra.setReplace("");
-					ra.setInputFormat(this.trainDataset);
-					this.trainDataset = Filter.useFilter(this.trainDataset, ra);
-
-					this.trainDataset.setRelationName(relationName);
-					MLUtils.prepareData(this.trainDataset);
-				}
-				return new Instances(this.trainDataset);
-			} catch (Exception e) {
-				throw new ExperimentEvaluationFailedException("Could not load train dataset", e);
-			}
-		} else {
-			try {
-				if (this.testDataset == null) {
-					this.testDataset = new Instances(new FileReader(new File(m.getDatasetFolder(), SetUtil.implode(Arrays.asList(this.datasetName, this.seed + "", this.split, "test"), "_") + ".arff")));
-
-					String relationName = this.testDataset.relationName();
-					RenameAttribute ra = new RenameAttribute();
-					ra.setAttributeIndices("first-last");
-					ra.setFind(" ");
-					ra.setReplaceAll(true);
-					ra.setReplace("_");
-					ra.setInputFormat(this.testDataset);
-					this.testDataset = Filter.useFilter(this.testDataset, ra);
-					ra = new RenameAttribute();
-					ra.setAttributeIndices("first-last");
-					ra.setFind("'");
-					ra.setReplaceAll(true);
-					ra.setReplace("");
-					ra.setInputFormat(this.testDataset);
-					this.testDataset = Filter.useFilter(this.testDataset, ra);
-
-					this.testDataset.setRelationName(relationName);
-					MLUtils.prepareData(this.testDataset);
-				}
-				return new Instances(this.testDataset);
-			} catch (Exception e) {
-				throw new ExperimentEvaluationFailedException("Could not load test dataset", e);
-			}
+	private String getTrainingSplitName() {
+		return SetUtil.implode(Arrays.asList(this.datasetName, this.seed + "", this.split, "train"), "_");
+	}
 
+	private Instances getDataset(final boolean train) throws ExperimentEvaluationFailedException {
+		try {
+			return new Instances(datasetCache.get(this.datasetName, this.seed, this.split, train));
+		} catch (Exception e) {
+			throw new ExperimentEvaluationFailedException("Could not load " + (train ? "train" : "test") + " dataset", e);
 		}
 	}
 
@@ -364,7 +336,7 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 		return mulanInstances;
 	}
 
-	private void evaluateModel(final ClusWrapperClassification learner, final File outputFile, final double normalizeBy) throws ExperimentEvaluationFailedException {
+	private void evaluateModel(final ClusWrapperClassification learner, final File outputFile) throws ExperimentEvaluationFailedException {
 		try {
 			System.out.println("Build mulan MultiLabelLearner " + learner.getClass().getSimpleName());
 			learner.build(this.meka2mulan(this.getDataset(true)));
@@ -378,46 +350,8 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 			Instances mekaTestData = this.getDataset(false);
 			Result res = new Result(mekaTestData.size(), mekaTestData.classIndex());
 
-			// Mulan evaluation for CLUS
+			// the trained CLUS model is kept in memory, so the test instances are passed to it directly
 			MultiLabelInstances testData = this.meka2mulan(mekaTestData);
-			boolean isEnsemble = learner.isEnsemble();
-			boolean isRuleBased = learner.isRuleBased();
-			boolean isRegression;
-			MultiLabelOutput output = learner.makePrediction(testData.getDataSet().instance(0));
-			if (output.hasPvalues()) {
-				isRegression = true;
-			} else {
-				isRegression = false;
-			}
-
-			String clusWorkingDir = learner.getClusWorkingDir();
-			String datasetName = learner.getDatasetName();
-			// write the supplied MultilabelInstances object in an arff formated file (accepted by CLUS)
-			ClusWrapperClassification.makeClusCompliant(testData, clusWorkingDir + datasetName + "-test.arff");
-
-			// call Clus.main to write the output files!
-			ArrayList<String> clusArgsList = new ArrayList<String>();
-			if (isEnsemble) {
-				clusArgsList.add("-forest");
-			}
-			if (isRuleBased) {
-				clusArgsList.add("-rules");
-			}
-			// the next argument passed to Clus is the settings file!
-			clusArgsList.add(clusWorkingDir + datasetName + "-train.s");
-			System.out.println(clusArgsList);
-			String[] clusArgs = clusArgsList.toArray(new String[clusArgsList.size()]);
-			Clus.main(clusArgs);
-
-			System.out.println("===");
-
-			// then parse the output files and finally update the measures!
-			// open and load the test set predictions file, which is in arff format
-			String predictionsFilePath = clusWorkingDir + datasetName + "-train.test.pred.arff";
-			BufferedReader reader = new BufferedReader(new FileReader(predictionsFilePath));
-			Instances predictionInstances = new Instances(reader);
-			reader.close();
-
 			Instances testDataset = testData.getDataSet();
 
 			int numInstances = testDataset.numInstances();
@@ -426,55 +360,13 @@ public class DependenceAwareMLCLossExperimenter implements IExperimentSetEvaluat
 				if (testData.hasMissingLabels(instance)) {
 					continue;
 				}
-				Instance labelsMissing = (Instance) instance.copy();
-				labelsMissing.setDataset(instance.dataset());
-				for (int i = 0; i < testData.getNumLabels(); i++) {
-					labelsMissing.setMissing(testData.getLabelIndices()[i]);
-				}
-				// clus way
-				Instance predictionInstance = predictionInstances.instance(instanceIndex);
-				double[] predictionsPerSample = new double[testData.getNumLabels()];
-				int k = 0;
-				for (int j = 0; j < predictionInstance.numValues() - 1; j++) {
-					// collect predicted values
-					if (isRegression) {
-						if (isEnsemble && !isRuleBased) {
-							if (j >= (testData.getNumLabels())) {
-								predictionsPerSample[k] = predictionInstance.value(j);
-								k++;
-							}
-						} else {
-							if (j >= (testData.getNumLabels() * 2 + 1)) {
-								predictionsPerSample[k] = predictionInstance.value(j);
-								k++;
-							}
-						}
-					} else {
-						if (isEnsemble && !isRuleBased) {
-							if (j >= testData.getNumLabels() * 2) {
-								predictionsPerSample[k] = predictionInstance.value(j);
-								j++;
-								k++;
-							}
-						} else {
-							if (j >= (testData.getNumLabels() * 5 + 1)) {
-								predictionsPerSample[k] = predictionInstance.value(j) / (predictionInstance.value(j) + predictionInstance.value(j + 1));
-								j++;
-								k++;
-							}
-						}
-					}
-					if (k == testData.getNumLabels()) {
-						break;
-					}
-				}
-
-				IntStream.range(0, predictionsPerSample.length).forEach(x -> predictionsPerSample[x] /= normalizeBy);
-				res.addResult(predictionsPerSample, mekaTestData.get(instanceIndex));
+				MultiLabelOutput output = learner.makePrediction(instance);
+				res.addResult(output.getConfidences(), mekaTestData.get(instanceIndex));
 			}
 
 			System.out.println(Result.getPredictionsAsInstances(res));
 			System.out.println("Write results to file...");
+			outputFile.getParentFile().mkdirs();
 			try (BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile))) {
 				bw.write(Result.getPredictionsAsInstances(res).toString());
 			}
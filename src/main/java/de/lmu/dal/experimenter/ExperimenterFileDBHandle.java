@@ -0,0 +1,344 @@
+package de.lmu.dal.experimenter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import ai.libs.jaicore.experiments.Experiment;
+import ai.libs.jaicore.experiments.ExperimentDBEntry;
+import ai.libs.jaicore.experiments.IExperimentDatabaseHandle;
+import ai.libs.jaicore.experiments.IExperimentSetConfig;
+
+/**
+ * An embedded experiment database that does not require a database server. All modifications are appended as single lines to a log file:
+ *
+ * <pre>
+ * C id memory cpus keyfields   (create)
+ * S id worker timestamp        (start)
+ * U id results                 (update)
+ * F id timestamp [error]       (finish)
+ * D id                         (delete)
+ * </pre>
+ *
+ * Every operation acquires an exclusive lock on the log file, replays the lines appended by other processes since the last access and only then appends
+ * its own line. Thus, many local worker processes can claim experiments from the same file without claiming a row twice.
+ */
+public class ExperimenterFileDBHandle implements IExperimentDatabaseHandle {
+
+	private static final String SEP = "\t";
+	private static final String ENCODING = StandardCharsets.UTF_8.name();
+
+	private static class Row {
+		private final ExperimentDBEntry entry;
+		private String worker = null;
+		private boolean finished = false;
+		private String error = null;
+		private final Map<String, String> results = new LinkedHashMap<>();
+
+		private Row(final ExperimentDBEntry entry) {
+			this.entry = entry;
+		}
+
+		private boolean isOpen() {
+			return this.worker == null;
+		}
+	}
+
+	private final File logFile;
+	private final String workerName = ManagementFactory.getRuntimeMXBean().getName();
+	private final Map<Integer, Row> rows = new LinkedHashMap<>();
+	private long readOffset = 0;
+	private int maxId = 0;
+
+	public ExperimenterFileDBHandle(final File logFile) {
+		this.logFile = logFile;
+	}
+
+	@Override
+	public synchronized void setup(final IExperimentSetConfig config) {
+		if (this.logFile.getParentFile() != null) {
+			this.logFile.getParentFile().mkdirs();
+		}
+		this.withLock(null);
+	}
+
+	@Override
+	public synchronized List<ExperimentDBEntry> getAllExperiments() {
+		this.withLock(null);
+		return this.rows.values().stream().map(r -> r.entry).collect(Collectors.toList());
+	}
+
+	@Override
+	public synchronized List<ExperimentDBEntry> getOpenExperiments() {
+		this.withLock(null);
+		return this.rows.values().stream().filter(Row::isOpen).map(r -> r.entry).collect(Collectors.toList());
+	}
+
+	@Override
+	public synchronized List<ExperimentDBEntry> getRandomOpenExperiments(final int maxNumberOfExperiments) {
+		List<ExperimentDBEntry> open = this.getOpenExperiments();
+		Collections.shuffle(open, new Random());
+		return (maxNumberOfExperiments < 0 || open.size() <= maxNumberOfExperiments) ? open : open.subList(0, maxNumberOfExperiments);
+	}
+
+	@Override
+	public synchronized List<ExperimentDBEntry> getConductedExperiments() {
+		this.withLock(null);
+		return this.rows.values().stream().filter(r -> r.finished).map(r -> r.entry).collect(Collectors.toList());
+	}
+
+	@Override
+	public synchronized ExperimentDBEntry getExperimentWithId(final int id) {
+		this.withLock(null);
+		Row row = this.rows.get(id);
+		return row != null ? row.entry : null;
+	}
+
+	@Override
+	public synchronized ExperimentDBEntry createAndGetExperiment(final Experiment experiment) {
+		return this.createAndGetExperiments(Collections.singletonList(experiment)).get(0);
+	}
+
+	@Override
+	public synchronized List<ExperimentDBEntry> createAndGetExperiments(final List<Experiment> experiments) {
+		List<ExperimentDBEntry> entries = new ArrayList<>(experiments.size());
+		this.withLock(log -> {
+			for (Experiment experiment : experiments) {
+				/* experiments that are already in the log are returned instead of being added a second time */
+				Row existing = this.rows.values().stream().filter(r -> r.entry.getExperiment().getValuesOfKeyFields().equals(experiment.getValuesOfKeyFields())).findFirst().orElse(null);
+				if (existing != null) {
+					entries.add(existing.entry);
+					continue;
+				}
+				int id = this.maxId + 1;
+				this.append(log, "C", id + "", experiment.getMemoryInMB() + "", experiment.getNumCPUs() + "", encode(experiment.getValuesOfKeyFields()));
+				entries.add(this.rows.get(id).entry);
+			}
+		});
+		return entries;
+	}
+
+	@Override
+	public synchronized void startExperiment(final ExperimentDBEntry exp) {
+		this.withLock(log -> {
+			Row row = this.getRow(exp);
+			if (!row.isOpen()) {
+				throw new IllegalStateException("Experiment #" + exp.getId() + " has already been started by " + row.worker);
+			}
+			this.append(log, "S", exp.getId() + "", this.workerName, System.currentTimeMillis() + "");
+		});
+	}
+
+	@Override
+	public synchronized boolean hasExperimentStarted(final ExperimentDBEntry exp) {
+		this.withLock(null);
+		return !this.getRow(exp).isOpen();
+	}
+
+	@Override
+	public synchronized void updateExperiment(final ExperimentDBEntry exp, final Map<String, ? extends Object> values) {
+		Map<String, String> stringValues = new LinkedHashMap<>();
+		values.forEach((k, v) -> stringValues.put(k, String.valueOf(v)));
+		this.withLock(log -> this.append(log, "U", exp.getId() + "", encode(stringValues)));
+	}
+
+	@Override
+	public synchronized void finishExperiment(final ExperimentDBEntry exp) {
+		this.finishExperiment(exp, null);
+	}
+
+	@Override
+	public synchronized void finishExperiment(final ExperimentDBEntry exp, final Throwable error) {
+		this.withLock(log -> {
+			if (error == null) {
+				this.append(log, "F", exp.getId() + "", System.currentTimeMillis() + "");
+			} else {
+				this.append(log, "F", exp.getId() + "", System.currentTimeMillis() + "", encode(error.getClass().getName() + ": " + error.getMessage()));
+			}
+		});
+	}
+
+	@Override
+	public synchronized void deleteExperiment(final ExperimentDBEntry exp) {
+		this.withLock(log -> this.append(log, "D", exp.getId() + ""));
+	}
+
+	@Override
+	public synchronized void deleteDatabase() {
+		this.rows.clear();
+		this.readOffset = 0;
+		this.maxId = 0;
+		this.logFile.delete();
+	}
+
+	/**
+	 * @return The results reported for the given experiment so far.
+	 */
+	public synchronized Map<String, String> getResults(final ExperimentDBEntry exp) {
+		this.withLock(null);
+		return new HashMap<>(this.getRow(exp).results);
+	}
+
+	/**
+	 * @return The error the given experiment has been finished with or null if it did not fail (yet).
+	 */
+	public synchronized String getError(final ExperimentDBEntry exp) {
+		this.withLock(null);
+		return this.getRow(exp).error;
+	}
+
+	private Row getRow(final ExperimentDBEntry exp) {
+		Row row = this.rows.get(exp.getId());
+		if (row == null) {
+			throw new IllegalArgumentException("There is no experiment with id " + exp.getId() + " in " + this.logFile);
+		}
+		return row;
+	}
+
+	private interface LogAction {
+		public void apply(FileChannel log) throws IOException;
+	}
+
+	/**
+	 * Locks the log file, replays all lines that have been appended since the last access and runs the given action (if any) while holding the lock.
+	 */
+	private void withLock(final LogAction action) {
+		try (RandomAccessFile raf = new RandomAccessFile(this.logFile, "rw"); FileChannel channel = raf.getChannel(); FileLock lock = channel.lock()) {
+			if (channel.size() < this.readOffset) {
+				/* the log has been deleted and re-created in the meantime */
+				this.rows.clear();
+				this.readOffset = 0;
+				this.maxId = 0;
+			}
+			this.replay(channel);
+			if (action != null) {
+				action.apply(channel);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not access experiment log " + this.logFile, e);
+		}
+	}
+
+	private void replay(final FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size == this.readOffset) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) (size - this.readOffset));
+		channel.read(buffer, this.readOffset);
+		String chunk = new String(buffer.array(), StandardCharsets.UTF_8);
+		int consumed = 0;
+		int newline;
+		while ((newline = chunk.indexOf('\n', consumed)) >= 0) {
+			this.apply(chunk.substring(consumed, newline));
+			consumed = newline + 1;
+		}
+		/* an incomplete trailing line stems from a crashed writer and is re-read (and overwritten) with the next append */
+		this.readOffset += chunk.substring(0, consumed).getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private void append(final FileChannel channel, final String... fields) throws IOException {
+		String line = String.join(SEP, fields);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(line.getBytes(StandardCharsets.UTF_8));
+		bos.write('\n');
+		channel.write(ByteBuffer.wrap(bos.toByteArray()), this.readOffset);
+		channel.truncate(this.readOffset + bos.size());
+		this.apply(line);
+		this.readOffset += bos.size();
+	}
+
+	private void apply(final String line) {
+		if (line.isEmpty()) {
+			return;
+		}
+		String[] fields = line.split(SEP, -1);
+		int id = Integer.parseInt(fields[1]);
+		Row row = this.rows.get(id);
+		if (row == null && !fields[0].equals("C")) {
+			/* records of deleted experiments */
+			return;
+		}
+		switch (fields[0]) {
+		case "C":
+			this.rows.put(id, new Row(new ExperimentDBEntry(id, new Experiment(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), decodeMap(fields[4])))));
+			this.maxId = Math.max(this.maxId, id);
+			break;
+		case "S":
+			row.worker = fields[2];
+			break;
+		case "U":
+			row.results.putAll(decodeMap(fields[2]));
+			break;
+		case "F":
+			row.finished = true;
+			row.error = fields.length > 3 ? decode(fields[3]) : null;
+			break;
+		case "D":
+			this.rows.remove(id);
+			break;
+		default:
+			throw new IllegalStateException("Unknown record type " + fields[0] + " in " + this.logFile);
+		}
+	}
+
+	private static String encode(final Map<String, String> map) {
+		return map.entrySet().stream().map(e -> encode(e.getKey()) + "=" + encode(e.getValue())).collect(Collectors.joining("&"));
+	}
+
+	private static Map<String, String> decodeMap(final String encoded) {
+		Map<String, String> map = new LinkedHashMap<>();
+		if (encoded.isEmpty()) {
+			return map;
+		}
+		for (String pair : encoded.split("&")) {
+			int eq = pair.indexOf('=');
+			map.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+		}
+		return map;
+	}
+
+	private static String encode(final String value) {
+		try {
+			return URLEncoder.encode(value, ENCODING);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(final String value) {
+		try {
+			return URLDecoder.decode(value, ENCODING);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(this.logFile.getPath());
+		for (Entry<Integer, Row> row : this.rows.entrySet()) {
+			sb.append("\n").append(row.getKey()).append(": ").append(row.getValue().entry.getExperiment().getValuesOfKeyFields());
+		}
+		return sb.toString();
+	}
+}
@@ -12,6 +12,9 @@ public interface IDependenceAwareMLCLossExperimenterConfig extends IExperimentSe
 
 	public static final String K_DATASET_FOLDER = "datasetFolder";
 	public static final String K_OUTPUT_FOLDER = "outputFolder";
+	public static final String K_NUM_WORKERS = "workers";
+	public static final String K_DATASET_CACHE_FOLDER = "datasetCacheFolder";
+	public static final String K_DATASET_CACHE_SIZE = "datasetCacheSize";
 
 	@Key(K_DATASET_FOLDER)
 	public File getDatasetFolder();
@@ -19,4 +22,25 @@ public interface IDependenceAwareMLCLossExperimenterConfig extends IExperimentSe
 	@Key(K_OUTPUT_FOLDER)
 	public File getOutputFolder();
 
+	/**
+	 * @return The folder in which the prepared dataset splits are stored in binary form.
+	 */
+	@Key(K_DATASET_CACHE_FOLDER)
+	@DefaultValue("tmp/dataset-cache/")
+	public File getDatasetCacheFolder();
+
+	/**
+	 * @return The maximum size in MB of the prepared dataset splits kept in memory.
+	 */
+	@Key(K_DATASET_CACHE_SIZE)
+	@DefaultValue("1024")
+	public int getDatasetCacheSize();
+
+	/**
+	 * @return The number of experiments to run concurrently in the parallel mode. A value of 0 derives the number of workers from the available processors and cpu.max.
+	 */
+	@Key(K_NUM_WORKERS)
+	@DefaultValue("0")
+	public int getNumberOfWorkers();
+
 }
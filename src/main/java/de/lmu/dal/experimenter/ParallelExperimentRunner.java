@@ -0,0 +1,214 @@
+package de.lmu.dal.experimenter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import ai.libs.jaicore.experiments.ExperimentDBEntry;
+import ai.libs.jaicore.experiments.IExperimentDatabaseHandle;
+import ai.libs.jaicore.experiments.IExperimentSetEvaluator;
+import ai.libs.jaicore.experiments.databasehandle.ExperimenterMySQLHandle;
+import ai.libs.jaicore.experiments.exceptions.ExperimentDBInteractionFailedException;
+
+/**
+ * Runs the open experiments of the experiment table on a bounded pool of local workers.
+ *
+ * Every worker gets its own evaluator instance as the evaluators keep per-experiment state. Before an experiment is started, the worker reserves the memory
+ * the experiment row asks for (mem.max) from the memory available to this JVM, so that at no time more experiments run than fit into the heap. The memory
+ * that the dataset cache may occupy (datasetCacheSize) is not available to the experiments.
+ *
+ * Experiments are ordered by their estimated cost and then handed out alternately from the expensive and the cheap end of the list. Thus, large jobs (e.g.
+ * bookmarks or mediamill) are started early but never occupy all workers while the small jobs wait until the very end.
+ *
+ * Several runner processes may work on the same experiment table. With the MySQL handle, an experiment is claimed by a single conditional update of its row,
+ * so that exactly one process conducts it.
+ */
+public class ParallelExperimentRunner {
+
+	private final IDependenceAwareMLCLossExperimenterConfig config;
+	private final Supplier<IExperimentSetEvaluator> evaluatorFactory;
+	private final IExperimentDatabaseHandle dbHandle;
+
+	private final int numWorkers;
+	private final int memoryBudgetInMB;
+
+	private final AtomicInteger numConducted = new AtomicInteger(0);
+	private final AtomicInteger numFailed = new AtomicInteger(0);
+
+	/* the connection for claiming experiments in the MySQL table, opened on first use */
+	private Connection claimConnection;
+
+	public ParallelExperimentRunner(final IDependenceAwareMLCLossExperimenterConfig config, final Supplier<IExperimentSetEvaluator> evaluatorFactory, final IExperimentDatabaseHandle dbHandle) {
+		this.config = config;
+		this.evaluatorFactory = evaluatorFactory;
+		this.dbHandle = dbHandle;
+		/* the dataset cache is shared by all workers and may fill up to its bound */
+		this.memoryBudgetInMB = Math.max(1, (int) (Runtime.getRuntime().maxMemory() / (1024 * 1024)) - Math.max(0, config.getDatasetCacheSize()));
+
+		int workers = config.getNumberOfWorkers();
+		if (workers <= 0) {
+			int cpusPerTask = Math.max(1, config.getNumberOfCPUs());
+			workers = Math.max(1, Runtime.getRuntime().availableProcessors() / cpusPerTask);
+		}
+		this.numWorkers = workers;
+	}
+
+	public void conductExperiments() throws ExperimentDBInteractionFailedException, InterruptedException {
+		this.dbHandle.setup(this.config);
+		List<ExperimentDBEntry> queue = interleaveByCost(this.dbHandle.getOpenExperiments());
+		System.out.println("Conduct " + queue.size() + " experiments with " + this.numWorkers + " workers and a memory budget of " + this.memoryBudgetInMB + "MB");
+
+		Semaphore memory = new Semaphore(this.memoryBudgetInMB, true);
+		ExecutorService pool = Executors.newFixedThreadPool(this.numWorkers);
+		ThreadLocal<IExperimentSetEvaluator> evaluators = ThreadLocal.withInitial(this.evaluatorFactory);
+		try {
+			for (ExperimentDBEntry entry : queue) {
+				int requiredMemory = Math.min(this.memoryBudgetInMB, Math.max(1, entry.getExperiment().getMemoryInMB()));
+				/* reserve memory before submitting so that the pool cannot run more experiments than fit into the heap */
+				memory.acquire(requiredMemory);
+				pool.submit(() -> {
+					try {
+						this.conductExperiment(evaluators.get(), entry);
+					} finally {
+						memory.release(requiredMemory);
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			this.closeClaimConnection();
+		}
+		System.out.println("Finished parallel run: " + this.numConducted.get() + " experiments conducted, " + this.numFailed.get() + " failed.");
+	}
+
+	private void conductExperiment(final IExperimentSetEvaluator evaluator, final ExperimentDBEntry entry) {
+		boolean claimed;
+		try {
+			claimed = this.claimExperiment(entry);
+		} catch (Exception e) {
+			System.err.println("Could not claim experiment #" + entry.getId() + ": " + e.getMessage());
+			claimed = false;
+		}
+		if (!claimed) {
+			/* another worker process might have claimed the row in the meantime */
+			System.out.println("Could not claim experiment #" + entry.getId() + ". Skipping it.");
+			return;
+		}
+
+		try {
+			evaluator.evaluate(entry, (final Map<String, Object> results) -> {
+				try {
+					this.dbHandle.updateExperiment(entry, results);
+				} catch (Exception e) {
+					System.err.println("Could not update experiment #" + entry.getId() + ": " + e.getMessage());
+				}
+			});
+			this.dbHandle.finishExperiment(entry);
+			this.numConducted.incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.finishWithError(entry, e);
+		} catch (Throwable e) {
+			this.finishWithError(entry, e);
+		}
+	}
+
+	/**
+	 * Marks the experiment as started and returns whether this runner got it. For the MySQL table, the check whether the experiment is still open and the
+	 * update are a single statement, and exactly one of several concurrent claims affects the row. The file handle checks and appends under a file lock.
+	 */
+	private boolean claimExperiment(final ExperimentDBEntry entry) throws Exception {
+		if (!(this.dbHandle instanceof ExperimenterMySQLHandle)) {
+			try {
+				this.dbHandle.startExperiment(entry);
+				return true;
+			} catch (IllegalStateException e) {
+				return false;
+			}
+		}
+		synchronized (this) {
+			if (this.claimConnection == null) {
+				this.claimConnection = DriverManager.getConnection("jdbc:mysql://" + this.config.getDBHost() + "/" + this.config.getDBDatabaseName(), this.config.getDBUsername(),
+						this.config.getDBPassword());
+			}
+			try (PreparedStatement statement = this.claimConnection.prepareStatement("UPDATE `" + this.config.getDBTableName() + "` SET time_started = NOW() WHERE experiment_id = ? AND time_started IS NULL")) {
+				statement.setInt(1, entry.getId());
+				return statement.executeUpdate() == 1;
+			}
+		}
+	}
+
+	private synchronized void closeClaimConnection() {
+		if (this.claimConnection != null) {
+			try {
+				this.claimConnection.close();
+			} catch (SQLException e) {
+				System.err.println("Could not close the connection to the experiment table: " + e.getMessage());
+			}
+			this.claimConnection = null;
+		}
+	}
+
+	private void finishWithError(final ExperimentDBEntry entry, final Throwable error) {
+		this.numFailed.incrementAndGet();
+		try {
+			this.dbHandle.finishExperiment(entry, error);
+		} catch (Exception e) {
+			System.err.println("Could not store failure of experiment #" + entry.getId() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Sorts the given experiments by their estimated cost and alternately takes them from the expensive and from the cheap end.
+	 */
+	static List<ExperimentDBEntry> interleaveByCost(final List<ExperimentDBEntry> experiments) {
+		LinkedList<ExperimentDBEntry> sorted = new LinkedList<>(experiments);
+		sorted.sort(Comparator.comparingDouble(ParallelExperimentRunner::estimateCost).reversed());
+
+		List<ExperimentDBEntry> interleaved = new ArrayList<>(sorted.size());
+		boolean takeExpensive = true;
+		while (!sorted.isEmpty()) {
+			interleaved.add(takeExpensive ? sorted.removeFirst() : sorted.removeLast());
+			takeExpensive = !takeExpensive;
+		}
+		return interleaved;
+	}
+
+	/**
+	 * Rough relative cost of an experiment: the number of labels of the dataset times the number of models the algorithm trains per label.
+	 */
+	static double estimateCost(final ExperimentDBEntry entry) {
+		Map<String, String> description = entry.getExperiment().getValuesOfKeyFields();
+		Integer numLabels = DependenceAwareMLCLossExperimenter.NUM_LABELS.get(description.get("dataset"));
+		double labels = numLabels != null ? numLabels : 1.0;
+
+		switch (description.get("algorithm")) {
+		case "rakel":
+			/* the k-sweep trains up to L-k+1 models for each of the considered k */
+			return labels * labels;
+		case "rakel2":
+			return 12 * labels;
+		case "clus":
+			/* single tree and an ensemble of 10 trees */
+			return 11 * labels;
+		case "lc":
+			return 2 * labels;
+		default:
+			return labels;
+		}
+	}
+
+}
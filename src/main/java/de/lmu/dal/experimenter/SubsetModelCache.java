@@ -0,0 +1,96 @@
+package de.lmu.dal.experimenter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+
+/**
+ * Keeps the label powerset models that RAkEL builds for its random label subsets. A model is identified by the training split it has been trained on, the
+ * (sorted) label subset and the configuration of the base classifier, so that a RAkEL ensemble drawing a subset that has already been modeled for the same
+ * split reuses that model instead of training it again.
+ *
+ * The cache only holds the models of a single training split at a time. Asking for a model of another split drops all models of the previous one.
+ */
+public class SubsetModelCache {
+
+	static class SubsetModel {
+		private final Classifier classifier;
+		private final Instances template;
+
+		SubsetModel(final Classifier classifier, final Instances template) {
+			this.classifier = classifier;
+			this.template = template;
+		}
+
+		Classifier getClassifier() {
+			return this.classifier;
+		}
+
+		Instances getTemplate() {
+			return this.template;
+		}
+	}
+
+	private String trainingSplit = null;
+	private final Map<String, SubsetModel> models = new HashMap<>();
+
+	private int hits = 0;
+	private int misses = 0;
+
+	synchronized SubsetModel get(final String trainingSplit, final int[] labelSubset, final String baseClassifierConfig) {
+		this.switchToSplit(trainingSplit);
+		SubsetModel model = this.models.get(key(labelSubset, baseClassifierConfig));
+		if (model != null) {
+			this.hits++;
+		} else {
+			this.misses++;
+		}
+		return model;
+	}
+
+	synchronized void put(final String trainingSplit, final int[] labelSubset, final String baseClassifierConfig, final SubsetModel model) {
+		this.switchToSplit(trainingSplit);
+		this.models.put(key(labelSubset, baseClassifierConfig), model);
+	}
+
+	private void switchToSplit(final String trainingSplit) {
+		if (!trainingSplit.equals(this.trainingSplit)) {
+			this.models.clear();
+			this.trainingSplit = trainingSplit;
+		}
+	}
+
+	private static String key(final int[] labelSubset, final String baseClassifierConfig) {
+		int[] sorted = Arrays.copyOf(labelSubset, labelSubset.length);
+		Arrays.sort(sorted);
+		return Arrays.toString(sorted) + "|" + baseClassifierConfig;
+	}
+
+	public synchronized int getNumberOfHits() {
+		return this.hits;
+	}
+
+	public synchronized int getNumberOfMisses() {
+		return this.misses;
+	}
+
+	public synchronized double getHitRate() {
+		return (this.hits + this.misses) == 0 ? 0.0 : (double) this.hits / (this.hits + this.misses);
+	}
+
+	/**
+	 * Resets the hit and miss counters, e.g. at the start of a new k-sweep, without dropping any models.
+	 */
+	public synchronized void resetStatistics() {
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SubsetModelCache [split=" + this.trainingSplit + ", models=" + this.models.size() + ", hits=" + this.hits + ", misses=" + this.misses + "]";
+	}
+}
@@ -1,37 +1,41 @@
 package de.lmu.dal.postprocessing;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
-import org.api4.java.ai.ml.classification.multilabel.evaluation.IMultiLabelClassification;
 import org.api4.java.datastructure.kvstore.IKVStore;
 
 import ai.libs.jaicore.basic.ArrayUtil;
 import ai.libs.jaicore.basic.kvstore.KVStore;
 import ai.libs.jaicore.basic.kvstore.KVStoreCollection;
-import ai.libs.jaicore.basic.sets.Pair;
 import ai.libs.jaicore.basic.sets.SetUtil;
-import ai.libs.jaicore.ml.classification.multilabel.MultiLabelClassification;
-import ai.libs.jaicore.ml.classification.multilabel.evaluation.loss.nonadditive.OWARelevanceLoss;
-import ai.libs.jaicore.ml.classification.multilabel.evaluation.loss.nonadditive.owa.MoebiusTransformOWAValueFunction;
-import ai.libs.jaicore.ml.classification.multilabel.evaluation.loss.nonadditive.owa.PolynomialOWAValueFunction;
+import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.converters.ArffLoader;
 
 public class DataToKVStorePreparer {
 
 	private static final double THRESHOLD = 0.5;
 	private static final String SIZE_LABEL = "size";
+	private static final String MISTAKES_LABEL = "mistakes";
+	private static final String FILES_LABEL = "files";
+	private static final int CHECKPOINT_INTERVAL = 50;
 
 	private static final File INPUT_DIR = new File("out/");
 	private static final File OUTPUT_FILE = new File("result-data/results.kvstore");
@@ -40,23 +44,23 @@ public class DataToKVStorePreparer {
 		private IKVStore store;
 		private List<File> files = new ArrayList<>(10);
 
+		private IKVStore previous = null;
+		private LossTraceStatistics stats = null;
+		private Set<String> processedFiles = new HashSet<>();
+
 		public AlgoEntry(final IKVStore store) {
 			this.store = store;
 		}
 
-		public Instances getData() throws IOException {
-			Instances data = new Instances(new FileReader(this.files.get(0)));
-			for (int i = 1; i < this.files.size(); i++) {
-				data.addAll(new Instances(new FileReader(this.files.get(i))));
-			}
-			return data;
-		}
-
 		public void addFile(final File file) {
 			this.files.add(file);
 			this.store.put(SIZE_LABEL, this.files.size() + "");
 		}
 
+		public List<File> getFiles() {
+			return this.files;
+		}
+
 		public IKVStore getStore() {
 			return this.store;
 		}
@@ -64,14 +68,77 @@ public class DataToKVStorePreparer {
 		public int size() {
 			return this.files.size();
 		}
+
+		/**
+		 * Takes over the statistics of the given snapshot entry if it records which files they stem from.
+		 *
+		 * @return Whether there are result files that are not covered by the snapshot.
+		 */
+		public boolean continueFrom(final IKVStore previous) {
+			this.previous = previous;
+			if (previous.containsKey(MISTAKES_LABEL) && previous.containsKey(FILES_LABEL)) {
+				this.stats = LossTraceStatistics.fromString(previous.getAsString(MISTAKES_LABEL));
+				this.processedFiles.addAll(Arrays.asList(previous.getAsString(FILES_LABEL).split(",")));
+				return !this.getNewFiles().isEmpty();
+			}
+			return previous.getAsInt(SIZE_LABEL) < this.store.getAsInt(SIZE_LABEL);
+		}
+
+		public IKVStore getPrevious() {
+			return this.previous;
+		}
+
+		public List<File> getNewFiles() {
+			return this.files.stream().filter(f -> !this.processedFiles.contains(f.getName())).collect(Collectors.toList());
+		}
+
+		/**
+		 * Reads the new result files (in parallel if run on a fork-join pool) and puts the updated statistics and loss traces into the store.
+		 */
+		public IKVStore computeLossTraces() {
+			List<File> newFiles = this.getNewFiles();
+			LossTraceStatistics newStats = newFiles.parallelStream().map(f -> {
+				try {
+					return readStatistics(f);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Could not read result file " + f, e);
+				}
+			}).reduce((a, b) -> {
+				a.addAll(b);
+				return a;
+			}).get();
+			if (this.stats == null) {
+				this.stats = newStats;
+			} else {
+				this.stats.addAll(newStats);
+			}
+			newFiles.forEach(f -> this.processedFiles.add(f.getName()));
+
+			this.store.put("L", this.stats.getNumLabels());
+			this.store.put(MISTAKES_LABEL, this.stats.toString());
+			this.store.put(FILES_LABEL, this.processedFiles.stream().sorted().collect(Collectors.joining(",")));
+			this.store.put("moebius", Arrays.stream(this.stats.getMoebiusLosses()).mapToObj(x -> x + "").collect(Collectors.joining(",")));
+			this.store.put("polynomial", Arrays.stream(this.stats.getPolynomialLosses()).mapToObj(x -> x + "").collect(Collectors.joining(",")));
+			return this.store;
+		}
 	}
 
-	public DataToKVStorePreparer() throws IOException {
+	public DataToKVStorePreparer() throws IOException, InterruptedException {
+		this(1);
+	}
+
+	/**
+	 * @param numThreads
+	 *            The parallelism of the fork-join pool the loss traces of the dataset/algorithm groups are computed on.
+	 */
+	public DataToKVStorePreparer(final int numThreads) throws IOException, InterruptedException {
 		KVStoreCollection col = new KVStoreCollection("collectinID=mlcloss_results");
 		if (OUTPUT_FILE.exists()) {
 			col.addAll(new KVStoreCollection(FileUtils.readFileToString(OUTPUT_FILE)));
 		}
 
+		/* determine the dataset/algorithm groups with new result files */
+		List<AlgoEntry> outdated = new ArrayList<>();
 		for (File datasetFolder : INPUT_DIR.listFiles()) {
 			if (datasetFolder.getName().equals("backup")) {
 				continue;
@@ -94,76 +161,91 @@ public class DataToKVStorePreparer {
 				algoMap.computeIfAbsent(store.getAsString("algorithm"), t -> new AlgoEntry(store)).addFile(resultFile);
 			}
 
-			for (Entry<String, AlgoEntry> algoEntry : algoMap.entrySet()) {
-				IKVStore store = algoEntry.getValue().getStore();
+			for (AlgoEntry algoEntry : algoMap.values()) {
+				IKVStore store = algoEntry.getStore();
 
 				Map<String, String> selection = new HashMap<>();
 				Arrays.asList("dataset", "seed", "algorithm").stream().forEach(x -> selection.put(x, store.getAsString(x)));
 				KVStoreCollection selectCol = col.select(selection);
-				if (!selectCol.isEmpty() && selectCol.get(0).getAsInt("size") >= store.getAsInt("size")) {
+				if (selectCol.isEmpty() || algoEntry.continueFrom(selectCol.get(0))) {
+					outdated.add(algoEntry);
+				}
+			}
+		}
+
+		/* compute the loss traces in the workers, merge them into the collection and write it at checkpoints only */
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			CompletionService<AlgoEntry> completionService = new ExecutorCompletionService<>(pool);
+			for (AlgoEntry algoEntry : outdated) {
+				completionService.submit(() -> {
+					algoEntry.computeLossTraces();
+					return algoEntry;
+				});
+			}
+
+			for (int i = 1; i <= outdated.size(); i++) {
+				AlgoEntry algoEntry;
+				try {
+					algoEntry = completionService.take().get();
+				} catch (ExecutionException e) {
+					System.err.println("Could not compute loss traces: " + e.getCause().getMessage());
 					continue;
 				}
-				if (!selectCol.isEmpty()) {
-					col.remove(selectCol.get(0));
-					System.out.println("Update moebius and polynomial loss traces for " + algoEntry.getValue().getStore());
+				if (algoEntry.getPrevious() != null) {
+					col.remove(algoEntry.getPrevious());
+					System.out.println("Updated moebius and polynomial loss traces for " + algoEntry.getStore());
 				} else {
-					System.out.println("Compute moebius and polynomial loss traces for " + algoEntry.getValue().getStore());
+					System.out.println("Computed moebius and polynomial loss traces for " + algoEntry.getStore());
 				}
+				col.add(algoEntry.getStore());
 
-				Pair<int[][], int[][]> gtAndPred = extractGTandPrediction(algoEntry.getValue().getData());
-				store.put("L", gtAndPred.getX()[0].length);
-
-				String moebiusSeries = Arrays.stream(evaluateMoebiusTransformRelevanceLoss(gtAndPred.getX(), gtAndPred.getY())).mapToObj(x -> x + "").collect(Collectors.joining(","));
-				String polySeries = Arrays.stream(evaluatePolynomialRelevanceLoss(gtAndPred.getX(), gtAndPred.getY())).mapToObj(x -> x + "").collect(Collectors.joining(","));
-				store.put("moebius", moebiusSeries);
-				store.put("polynomial", polySeries);
-				col.add(store);
+				if (i % CHECKPOINT_INTERVAL == 0) {
+					serialize(col);
+				}
 			}
-
-			col.serializeTo(OUTPUT_FILE);
+		} finally {
+			pool.shutdownNow();
 		}
-	}
 
-	private static Pair<int[][], int[][]> extractGTandPrediction(final Instances data) {
-		int[][] gt = new int[data.size()][];
-		double[][] pred = new double[data.size()][];
-
-		int numAttributes = data.numAttributes();
-		for (int i = 0; i < data.size(); i++) {
-			int currentI = i;
-			gt[i] = IntStream.range(0, numAttributes / 2).map(x -> (int) data.get(currentI).value(x)).toArray();
-			pred[i] = IntStream.range(numAttributes / 2, numAttributes).mapToDouble(x -> data.get(currentI).value(x)).toArray();
+		if (!outdated.isEmpty()) {
+			serialize(col);
 		}
-		return new Pair<>(gt, ArrayUtil.thresholdDoubleToBinaryMatrix(pred, THRESHOLD));
 	}
 
-	private static double[] evaluateMoebiusTransformRelevanceLoss(final int[][] gt, final int[][] pred) {
-		double[] lossValues = new double[gt[0].length];
-		for (int k = 1; k <= gt[0].length; k++) {
-			OWARelevanceLoss l = new OWARelevanceLoss(new MoebiusTransformOWAValueFunction(k));
-			lossValues[k - 1] = l.loss(Arrays.stream(gt).collect(Collectors.toList()), toClassifications(pred));
-		}
-		return lossValues;
+	/**
+	 * Writes the collection (including the loss trace statistics needed for incremental updates) and the binary loss trace store read by the plotting tools.
+	 */
+	private static void serialize(final KVStoreCollection col) throws IOException {
+		col.serializeTo(OUTPUT_FILE);
+		LossTraceStore.write(col, LossTraceStore.getBinaryFile(OUTPUT_FILE));
 	}
 
-	private static double[] evaluatePolynomialRelevanceLoss(final int[][] gt, final int[][] pred) {
-		double[] lossValues = new double[GeneralConfig.POLYNOMIAL_SCALES.length];
-		for (int i = 0; i < GeneralConfig.POLYNOMIAL_SCALES.length; i++) {
-			OWARelevanceLoss l = new OWARelevanceLoss(new PolynomialOWAValueFunction(GeneralConfig.POLYNOMIAL_SCALES[i]));
-			lossValues[i] = l.loss(Arrays.stream(gt).collect(Collectors.toList()), toClassifications(pred));
-		}
-		return lossValues;
-	}
-
-	private static List<IMultiLabelClassification> toClassifications(final int[][] values) {
-		List<IMultiLabelClassification> list = new ArrayList<>();
-		for (int i = 0; i < values.length; i++) {
-			list.add(new MultiLabelClassification(Arrays.stream(values[i]).mapToDouble(x -> x).toArray()));
+	/**
+	 * Streams the instances of a prediction file (ground truth in the first half of the attributes, predicted scores in the second half) into loss trace
+	 * statistics without materializing the data.
+	 */
+	private static LossTraceStatistics readStatistics(final File resultFile) throws IOException {
+		ArffLoader loader = new ArffLoader();
+		loader.setFile(resultFile);
+		Instances structure = loader.getStructure();
+		int numLabels = structure.numAttributes() / 2;
+
+		LossTraceStatistics stats = new LossTraceStatistics(numLabels);
+		int[] gt = new int[numLabels];
+		double[][] pred = new double[1][numLabels];
+		Instance instance;
+		while ((instance = loader.getNextInstance(structure)) != null) {
+			for (int i = 0; i < numLabels; i++) {
+				gt[i] = (int) instance.value(i);
+				pred[0][i] = instance.value(numLabels + i);
+			}
+			stats.add(gt, ArrayUtil.thresholdDoubleToBinaryMatrix(pred, THRESHOLD)[0]);
 		}
-		return list;
+		return stats;
 	}
 
-	public static void main(final String[] args) throws IOException {
-		new DataToKVStorePreparer();
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		new DataToKVStorePreparer(args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors());
 	}
 }
@@ -12,7 +12,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import org.apache.commons.io.FileUtils;
 import org.api4.java.datastructure.kvstore.IKVStore;
 
 import ai.libs.jaicore.basic.kvstore.KVStoreCollection;
@@ -68,10 +67,8 @@ public class DatasetWiseLossCurves {
 		replaceNames.put("boomer_binomial_12", "Boomer-12");
 		replaceNames.put("boomer_binomial_13", "Boomer-13");
 
-		KVStoreCollection col = new KVStoreCollection(FileUtils.readFileToString(new File("result-data/results.kvstore")));
-
-		KVStoreCollection filtered = new KVStoreCollection();
-		col.stream().filter(x -> ALGOS.contains(x.getAsString("algorithm")) && DATASETS.contains(x.getAsString("dataset"))).forEach(filtered::add);
+		LossTraceStore results = LossTraceStore.open(new File("result-data/results.kvstore"));
+		KVStoreCollection filtered = results.toKVStoreCollection(results.select(DATASETS, ALGOS));
 
 		Set<String> datasets = new HashSet<>();
 		Set<String> algos = new HashSet<>();
@@ -96,7 +93,7 @@ public class DatasetWiseLossCurves {
 			}
 			System.out.println(part.getKey() + " " + (counter++));
 
-			col = part.getValue();
+			KVStoreCollection col = part.getValue();
 			col.sort(new KVStoreSequentialComparator("algorithm"));
 
 			// output the plots as a tickz picture
@@ -122,7 +119,7 @@ public class DatasetWiseLossCurves {
 			}
 			sb.append(")]\n");
 			for (int i = 0; i < col.size(); i++) {
-				sb.append(storeToPlot(col.get(i), "color" + (i + 1)));
+				sb.append(storeToPlot(col.get(i), results.getSeries(col.get(i).getAsInt(LossTraceStore.ROW_LABEL), FAMILY_TO_PLOT), "color" + (i + 1)));
 			}
 			sb.append("\\legend{};\n");
 			sb.append("\\end{axis}\n").append("\\end{tikzpicture}\n").append("\\end{my}\n\n");
@@ -156,16 +153,15 @@ public class DatasetWiseLossCurves {
 		return sb.toString();
 	}
 
-	private static String storeToPlot(final IKVStore store, final String color) {
+	private static String storeToPlot(final IKVStore store, final double[] series, final String color) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("\\addplot[mark=none,draw=").append(color).append("] coordinates {\n");
 
-		List<String> list = store.getAsStringList(FAMILY_TO_PLOT);
-		for (int i = 0; i < list.size(); i++) {
+		for (int i = 0; i < series.length; i++) {
 			if (BINOMIAL) {
-				sb.append("(").append(i + 1).append(",").append(list.get(i)).append(")\n");
+				sb.append("(").append(i + 1).append(",").append(series[i]).append(")\n");
 			} else {
-				sb.append("(").append(GeneralConfig.POLYNOMIAL_SCALES[i]).append(",").append(list.get(i)).append(")\n");
+				sb.append("(").append(GeneralConfig.POLYNOMIAL_SCALES[i]).append(",").append(series[i]).append(")\n");
 			}
 		}
 		sb.append("};\n");
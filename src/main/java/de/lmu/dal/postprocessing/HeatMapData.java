@@ -5,7 +5,6 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Map.Entry;
 
-import org.apache.commons.io.FileUtils;
 import org.api4.java.datastructure.kvstore.IKVStore;
 
 import ai.libs.jaicore.basic.kvstore.KVStoreCollection;
@@ -14,15 +13,15 @@ import ai.libs.jaicore.basic.kvstore.KVStoreCollectionOneLayerPartition;
 public class HeatMapData {
 
 	public static void main(final String[] args) throws IOException {
-		KVStoreCollection col = new KVStoreCollection(FileUtils.readFileToString(new File("result-data/results_boomer_v4.kvstore")));
-		KVStoreCollectionOneLayerPartition partitions = new KVStoreCollectionOneLayerPartition("dataset", col);
+		LossTraceStore results = LossTraceStore.open(new File("result-data/results_boomer_v4.kvstore"));
+		KVStoreCollectionOneLayerPartition partitions = new KVStoreCollectionOneLayerPartition("dataset", results.toKVStoreCollection(results.select(null, null)));
 
 		for (Entry<String, KVStoreCollection> part : partitions) {
 			System.out.println(part.getKey());
 			double[][] matrix = new double[part.getValue().size()][];
 			for (IKVStore s : part.getValue()) {
 				System.out.println(s);
-				double[] moebius = s.getAsDoubleList("moebius").stream().mapToDouble(x -> x).toArray();
+				double[] moebius = results.getSeries(s.getAsInt(LossTraceStore.ROW_LABEL), LossTraceStore.MOEBIUS);
 				if (s.getAsString("algorithm").equals("boomer_label_wise_logistic_loss")) {
 					matrix[0] = moebius;
 				} else if (s.getAsString("algorithm").equals("boomer_example_wise_logistic_loss")) {
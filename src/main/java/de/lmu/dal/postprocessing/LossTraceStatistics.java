@@ -0,0 +1,132 @@
+package de.lmu.dal.postprocessing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import ai.libs.jaicore.ml.classification.multilabel.MultiLabelClassification;
+import ai.libs.jaicore.ml.classification.multilabel.evaluation.loss.nonadditive.OWARelevanceLoss;
+import ai.libs.jaicore.ml.classification.multilabel.evaluation.loss.nonadditive.owa.IOWAValueFunction;
+import ai.libs.jaicore.ml.classification.multilabel.evaluation.loss.nonadditive.owa.MoebiusTransformOWAValueFunction;
+import ai.libs.jaicore.ml.classification.multilabel.evaluation.loss.nonadditive.owa.PolynomialOWAValueFunction;
+
+/**
+ * Sufficient statistics for the OWA relevance losses of a set of predictions.
+ *
+ * The OWA relevance loss of an instance only depends on how many of its L labels are mispredicted, as the OWA operator aggregates the sorted per-label
+ * mistakes. Thus, it suffices to count the instances per number of mistakes. All moebius and polynomial losses are then obtained as weighted sums over this
+ * histogram, where the loss for e mistakes is computed once per L with {@link OWARelevanceLoss} itself.
+ */
+public class LossTraceStatistics {
+
+	private static final Map<Integer, double[][]> MOEBIUS_TABLES = new ConcurrentHashMap<>();
+	private static final Map<Integer, double[][]> POLYNOMIAL_TABLES = new ConcurrentHashMap<>();
+
+	private final int numLabels;
+	private final long[] mistakeHistogram;
+
+	public LossTraceStatistics(final int numLabels) {
+		this.numLabels = numLabels;
+		this.mistakeHistogram = new long[numLabels + 1];
+	}
+
+	public void add(final int[] gt, final int[] pred) {
+		int mistakes = 0;
+		for (int i = 0; i < this.numLabels; i++) {
+			if (gt[i] != pred[i]) {
+				mistakes++;
+			}
+		}
+		this.mistakeHistogram[mistakes]++;
+	}
+
+	public void addAll(final LossTraceStatistics other) {
+		if (other.numLabels != this.numLabels) {
+			throw new IllegalArgumentException("Cannot merge statistics for " + other.numLabels + " labels into statistics for " + this.numLabels + " labels.");
+		}
+		for (int i = 0; i < this.mistakeHistogram.length; i++) {
+			this.mistakeHistogram[i] += other.mistakeHistogram[i];
+		}
+	}
+
+	public int getNumLabels() {
+		return this.numLabels;
+	}
+
+	public long getNumInstances() {
+		return Arrays.stream(this.mistakeHistogram).sum();
+	}
+
+	/**
+	 * @return The moebius transform OWA relevance loss for k = 1, ..., L.
+	 */
+	public double[] getMoebiusLosses() {
+		return this.evaluate(MOEBIUS_TABLES.computeIfAbsent(this.numLabels, l -> {
+			IOWAValueFunction[] functions = new IOWAValueFunction[l];
+			for (int k = 1; k <= l; k++) {
+				functions[k - 1] = new MoebiusTransformOWAValueFunction(k);
+			}
+			return lossTable(l, functions);
+		}));
+	}
+
+	/**
+	 * @return The polynomial OWA relevance loss for each of the {@link GeneralConfig#POLYNOMIAL_SCALES}.
+	 */
+	public double[] getPolynomialLosses() {
+		return this.evaluate(POLYNOMIAL_TABLES.computeIfAbsent(this.numLabels, l -> {
+			IOWAValueFunction[] functions = new IOWAValueFunction[GeneralConfig.POLYNOMIAL_SCALES.length];
+			for (int i = 0; i < GeneralConfig.POLYNOMIAL_SCALES.length; i++) {
+				functions[i] = new PolynomialOWAValueFunction(GeneralConfig.POLYNOMIAL_SCALES[i]);
+			}
+			return lossTable(l, functions);
+		}));
+	}
+
+	private double[] evaluate(final double[][] lossTable) {
+		double numInstances = this.getNumInstances();
+		double[] losses = new double[lossTable.length];
+		for (int f = 0; f < lossTable.length; f++) {
+			double sum = 0;
+			for (int e = 0; e < this.mistakeHistogram.length; e++) {
+				sum += this.mistakeHistogram[e] * lossTable[f][e];
+			}
+			losses[f] = sum / numInstances;
+		}
+		return losses;
+	}
+
+	/**
+	 * Computes the loss of a single instance with e = 0, ..., L mistakes for each of the given value functions.
+	 */
+	private static double[][] lossTable(final int numLabels, final IOWAValueFunction[] functions) {
+		int[] gt = new int[numLabels];
+		double[][] table = new double[functions.length][numLabels + 1];
+		for (int f = 0; f < functions.length; f++) {
+			OWARelevanceLoss loss = new OWARelevanceLoss(functions[f]);
+			for (int e = 0; e <= numLabels; e++) {
+				double[] pred = new double[numLabels];
+				Arrays.fill(pred, 0, e, 1.0);
+				table[f][e] = loss.loss(Collections.singletonList(gt), Collections.singletonList(new MultiLabelClassification(pred)));
+			}
+		}
+		return table;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.stream(this.mistakeHistogram).mapToObj(x -> x + "").collect(Collectors.joining(","));
+	}
+
+	/**
+	 * Parses statistics from their {@link #toString()} representation.
+	 */
+	public static LossTraceStatistics fromString(final String histogram) {
+		long[] counts = Arrays.stream(histogram.split(",")).mapToLong(Long::parseLong).toArray();
+		LossTraceStatistics stats = new LossTraceStatistics(counts.length - 1);
+		System.arraycopy(counts, 0, stats.mistakeHistogram, 0, counts.length);
+		return stats;
+	}
+}
@@ -0,0 +1,249 @@
+package de.lmu.dal.postprocessing;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.apache.commons.io.FileUtils;
+import org.api4.java.datastructure.kvstore.IKVStore;
+
+import ai.libs.jaicore.basic.kvstore.KVStore;
+import ai.libs.jaicore.basic.kvstore.KVStoreCollection;
+
+/**
+ * Columnar binary representation of the loss traces in a results.kvstore file.
+ *
+ * The file consists of a string dictionary, the columns dataset, seed, algorithm, L and size (dataset, seed and algorithm as dictionary codes) and, per loss
+ * family (moebius, polynomial), the length and offset of each row's series in the trailing block of doubles. The file is memory-mapped on read, so only the
+ * small index columns are decoded up front while the series of the selected rows are copied into primitive arrays on access.
+ */
+public class LossTraceStore {
+
+	public static final String MOEBIUS = "moebius";
+	public static final String POLYNOMIAL = "polynomial";
+	public static final String ROW_LABEL = "row";
+
+	private static final int MAGIC = 0x4C545331; // "LTS1"
+	private static final String BINARY_SUFFIX = ".lts";
+	private static final List<String> FAMILIES = Arrays.asList(MOEBIUS, POLYNOMIAL);
+
+	private final MappedByteBuffer buffer;
+	private final String[] dictionary;
+	private final int[] datasets;
+	private final int[] seeds;
+	private final int[] algorithms;
+	private final int[] numLabels;
+	private final int[] sizes;
+	private final Map<String, int[]> seriesLengths = new HashMap<>();
+	private final Map<String, long[]> seriesOffsets = new HashMap<>();
+	private final long dataStart;
+
+	private LossTraceStore(final File binaryFile) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(binaryFile, "r"); FileChannel channel = raf.getChannel()) {
+			/* the mapping stays valid after the channel has been closed */
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (this.buffer.getInt() != MAGIC) {
+			throw new IOException(binaryFile + " is not a loss trace store.");
+		}
+
+		this.dictionary = new String[this.buffer.getInt()];
+		for (int i = 0; i < this.dictionary.length; i++) {
+			byte[] bytes = new byte[this.buffer.getInt()];
+			this.buffer.get(bytes);
+			this.dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		int numRows = this.buffer.getInt();
+		this.datasets = this.readIntColumn(numRows);
+		this.seeds = this.readIntColumn(numRows);
+		this.algorithms = this.readIntColumn(numRows);
+		this.numLabels = this.readIntColumn(numRows);
+		this.sizes = this.readIntColumn(numRows);
+		int numFamilies = this.buffer.getInt();
+		for (int f = 0; f < numFamilies; f++) {
+			String family = this.dictionary[this.buffer.getInt()];
+			this.seriesLengths.put(family, this.readIntColumn(numRows));
+			long[] offsets = new long[numRows];
+			this.buffer.asLongBuffer().get(offsets);
+			this.buffer.position(this.buffer.position() + numRows * Long.BYTES);
+			this.seriesOffsets.put(family, offsets);
+		}
+		this.dataStart = this.buffer.position();
+	}
+
+	private int[] readIntColumn(final int numRows) {
+		int[] column = new int[numRows];
+		this.buffer.asIntBuffer().get(column);
+		this.buffer.position(this.buffer.position() + numRows * Integer.BYTES);
+		return column;
+	}
+
+	/**
+	 * Opens the binary store that belongs to the given kvstore file. If the binary store does not exist or is older than the kvstore, it is (re-)created
+	 * from the kvstore first.
+	 */
+	public static LossTraceStore open(final File kvstoreFile) throws IOException {
+		File binaryFile = getBinaryFile(kvstoreFile);
+		if (!binaryFile.exists() || binaryFile.lastModified() < kvstoreFile.lastModified()) {
+			write(new KVStoreCollection(FileUtils.readFileToString(kvstoreFile)), binaryFile);
+		}
+		return new LossTraceStore(binaryFile);
+	}
+
+	public static File getBinaryFile(final File kvstoreFile) {
+		String name = kvstoreFile.getName();
+		int dot = name.lastIndexOf('.');
+		return new File(kvstoreFile.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + BINARY_SUFFIX);
+	}
+
+	/**
+	 * Writes the loss traces of the given collection to a binary store.
+	 */
+	public static void write(final KVStoreCollection col, final File binaryFile) throws IOException {
+		List<String> dictionary = new ArrayList<>(FAMILIES);
+		Map<String, Integer> codes = new HashMap<>();
+		for (int i = 0; i < dictionary.size(); i++) {
+			codes.put(dictionary.get(i), i);
+		}
+
+		int numRows = col.size();
+		int[][] stringColumns = new int[3][numRows];
+		int[] numLabels = new int[numRows];
+		int[] sizes = new int[numRows];
+		double[][][] series = new double[FAMILIES.size()][numRows][];
+		for (int r = 0; r < numRows; r++) {
+			IKVStore store = col.get(r);
+			List<String> keys = Arrays.asList("dataset", "seed", "algorithm");
+			for (int c = 0; c < keys.size(); c++) {
+				String value = store.getAsString(keys.get(c));
+				stringColumns[c][r] = codes.computeIfAbsent(value, v -> {
+					dictionary.add(v);
+					return dictionary.size() - 1;
+				});
+			}
+			numLabels[r] = store.containsKey("L") ? store.getAsInt("L") : 0;
+			sizes[r] = store.containsKey("size") ? store.getAsInt("size") : 0;
+			for (int f = 0; f < FAMILIES.size(); f++) {
+				series[f][r] = store.containsKey(FAMILIES.get(f)) ? store.getAsDoubleList(FAMILIES.get(f)).stream().mapToDouble(x -> x).toArray() : new double[0];
+			}
+		}
+
+		binaryFile.getAbsoluteFile().getParentFile().mkdirs();
+		File tmpFile = File.createTempFile(binaryFile.getName(), ".tmp", binaryFile.getAbsoluteFile().getParentFile());
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			dos.writeInt(MAGIC);
+			dos.writeInt(dictionary.size());
+			for (String s : dictionary) {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				dos.writeInt(bytes.length);
+				dos.write(bytes);
+			}
+
+			dos.writeInt(numRows);
+			for (int[] column : Arrays.asList(stringColumns[0], stringColumns[1], stringColumns[2], numLabels, sizes)) {
+				for (int value : column) {
+					dos.writeInt(value);
+				}
+			}
+			dos.writeInt(FAMILIES.size());
+			long offset = 0;
+			for (int f = 0; f < FAMILIES.size(); f++) {
+				dos.writeInt(codes.get(FAMILIES.get(f)));
+				for (int r = 0; r < numRows; r++) {
+					dos.writeInt(series[f][r].length);
+				}
+				for (int r = 0; r < numRows; r++) {
+					dos.writeLong(offset);
+					offset += series[f][r].length;
+				}
+			}
+			for (int f = 0; f < FAMILIES.size(); f++) {
+				for (int r = 0; r < numRows; r++) {
+					for (double value : series[f][r]) {
+						dos.writeDouble(value);
+					}
+				}
+			}
+		}
+		Files.move(tmpFile.toPath(), binaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public int size() {
+		return this.datasets.length;
+	}
+
+	public String getDataset(final int row) {
+		return this.dictionary[this.datasets[row]];
+	}
+
+	public String getSeed(final int row) {
+		return this.dictionary[this.seeds[row]];
+	}
+
+	public String getAlgorithm(final int row) {
+		return this.dictionary[this.algorithms[row]];
+	}
+
+	public int getNumLabels(final int row) {
+		return this.numLabels[row];
+	}
+
+	public int getSize(final int row) {
+		return this.sizes[row];
+	}
+
+	/**
+	 * @return The loss series of the given family (moebius or polynomial) of the given row.
+	 */
+	public double[] getSeries(final int row, final String family) {
+		if (!this.seriesLengths.containsKey(family)) {
+			throw new IllegalArgumentException("There is no loss family " + family + " in this store.");
+		}
+		double[] series = new double[this.seriesLengths.get(family)[row]];
+		ByteBuffer view = this.buffer.duplicate();
+		view.position((int) (this.dataStart + this.seriesOffsets.get(family)[row] * Double.BYTES));
+		view.asDoubleBuffer().get(series);
+		return series;
+	}
+
+	/**
+	 * @return The indices of the rows whose dataset and algorithm are contained in the given lists (null to select all).
+	 */
+	public int[] select(final List<String> datasets, final List<String> algorithms) {
+		return IntStream.range(0, this.size()).filter(r -> (datasets == null || datasets.contains(this.getDataset(r))) && (algorithms == null || algorithms.contains(this.getAlgorithm(r)))).toArray();
+	}
+
+	/**
+	 * Describes the given rows by stores holding dataset, seed, algorithm, L, size and the row index but no loss series, e.g., to partition and sort them.
+	 */
+	public KVStoreCollection toKVStoreCollection(final int[] rows) {
+		KVStoreCollection col = new KVStoreCollection();
+		for (int row : rows) {
+			IKVStore store = new KVStore();
+			store.put("dataset", this.getDataset(row));
+			store.put("seed", this.getSeed(row));
+			store.put("algorithm", this.getAlgorithm(row));
+			store.put("L", this.getNumLabels(row));
+			store.put("size", this.getSize(row));
+			store.put(ROW_LABEL, row);
+			col.add(store);
+		}
+		return col;
+	}
+}
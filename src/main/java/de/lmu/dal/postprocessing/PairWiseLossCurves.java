@@ -10,7 +10,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.commons.io.FileUtils;
 import org.api4.java.datastructure.kvstore.IKVStore;
 
 import ai.libs.jaicore.basic.ValueUtil;
@@ -41,9 +40,8 @@ public class PairWiseLossCurves {
 		replaceNames.put("boomer_label_wise_logistic_loss", "BOOMER-1");
 		replaceNames.put("boomer_example_wise_logistic_loss", "BOOMER-K");
 
-		KVStoreCollection col = new KVStoreCollection(FileUtils.readFileToString(new File("result-data/results.kvstore")));
-		KVStoreCollection filtered = new KVStoreCollection();
-		col.stream().filter(x -> ALGOS.contains(x.getAsString("algorithm")) && DATASETS.contains(x.getAsString("dataset"))).forEach(filtered::add);
+		LossTraceStore results = LossTraceStore.open(new File("result-data/results.kvstore"));
+		KVStoreCollection filtered = results.toKVStoreCollection(results.select(DATASETS, ALGOS));
 		filtered.stream().forEach(x -> x.put("algorithm", replaceNames.get(x.getAsString("algorithm"))));
 
 		KVStoreCollection plots = new KVStoreCollection();
@@ -51,17 +49,19 @@ public class PairWiseLossCurves {
 
 		KVStoreCollectionOneLayerPartition partition = new KVStoreCollectionOneLayerPartition("dataset", filtered);
 		for (Entry<String, KVStoreCollection> part : partition) {
-			col = part.getValue();
+			KVStoreCollection col = part.getValue();
 			col.sort(new KVStoreSequentialComparator("algorithm"));
 			for (int i = 0; i < col.size() - 1; i++) {
 				IKVStore one = col.get(i);
+				int oneRow = one.getAsInt(LossTraceStore.ROW_LABEL);
 				for (int j = i + 1; j < col.size(); j++) {
 					IKVStore other = col.get(j);
+					int otherRow = other.getAsInt(LossTraceStore.ROW_LABEL);
 
 					IKVStore comparison = new KVStore(one.toString());
 
-					comparison.put("moebius", combine(one.getAsStringList("moebius"), other.getAsStringList("moebius")));
-					comparison.put("polynomial", combine(one.getAsStringList("polynomial"), other.getAsStringList("polynomial")));
+					comparison.put(LossTraceStore.MOEBIUS, combine(results.getSeries(oneRow, LossTraceStore.MOEBIUS), results.getSeries(otherRow, LossTraceStore.MOEBIUS)));
+					comparison.put(LossTraceStore.POLYNOMIAL, combine(results.getSeries(oneRow, LossTraceStore.POLYNOMIAL), results.getSeries(otherRow, LossTraceStore.POLYNOMIAL)));
 					comparison.put("x", one.getAsString("algorithm"));
 					comparison.put("y", other.getAsString("algorithm") + "/" + one.getAsString("algorithm"));
 					comparison.put("algorithm", one.getAsString("algorithm") + "-" + other.getAsString("algorithm"));
@@ -75,7 +75,7 @@ public class PairWiseLossCurves {
 		StringBuilder sb = new StringBuilder();
 
 		for (Entry<String, KVStoreCollection> part : comparisonPartition) {
-			col = part.getValue();
+			KVStoreCollection col = part.getValue();
 			col.sort(new KVStoreSequentialComparator("dataset"));
 
 			// output the plots as a tickz picture
@@ -151,19 +151,19 @@ public class PairWiseLossCurves {
 		return sb.toString();
 	}
 
-	private static String combine(final List<String> one, final List<String> other) {
+	private static String combine(final double[] one, final double[] other) {
 		StringBuilder sb = new StringBuilder();
 
-		for (int i = 0; i < one.size(); i++) {
+		for (int i = 0; i < one.length; i++) {
 			if (!BINOMIAL && i >= GeneralConfig.POLYNOMIAL_SCALES.length) {
 				break;
 			}
-			double oneVal = ValueUtil.round(Double.parseDouble(one.get(i)), 4);
-			double otherVal = ValueUtil.round(Double.parseDouble(other.get(i)), 4);
+			double oneVal = ValueUtil.round(one[i], 4);
+			double otherVal = ValueUtil.round(other[i], 4);
 
 			double x;
 			if (BINOMIAL) {
-				x = (double) (i) / (one.size() - 1);
+				x = (double) (i) / (one.length - 1);
 			} else {
 				x = GeneralConfig.POLYNOMIAL_SCALES[i];
 			}
@@ -74,6 +74,35 @@ public interface MultiLabelLearner {
     public MultiLabelOutput makePrediction(Instance instance)
             throws Exception, InvalidDataException, ModelInitializationException;
 
+    /**
+     * Returns the predictions of the learner for all instances of a data set.
+     * The labels of the instances are hidden from the learner.
+     *
+     * @param instances the input given to the learner
+     * @return the predictions of the learner in the order of the instances
+     * @throws Exception if an error occurs while making the predictions.
+     * @throws InvalidDataException if specified instances data is invalid and can not be processed by the learner
+     * @throws ModelInitializationException if method is called before {@link MultiLabelLearner#build(MultiLabelInstances)}
+     */
+    public MultiLabelOutput[] makePredictions(MultiLabelInstances instances)
+            throws Exception, InvalidDataException, ModelInitializationException;
+
+    /**
+     * Returns the predictions of the learner for the instances of a data set
+     * with index from (inclusive) to to (exclusive). The labels of the
+     * instances are hidden from the learner.
+     *
+     * @param instances the input given to the learner
+     * @param from the index of the first instance to predict
+     * @param to the index after the last instance to predict
+     * @return the predictions of the learner in the order of the instances
+     * @throws Exception if an error occurs while making the predictions.
+     * @throws InvalidDataException if specified instances data is invalid and can not be processed by the learner
+     * @throws ModelInitializationException if method is called before {@link MultiLabelLearner#build(MultiLabelInstances)}
+     */
+    public MultiLabelOutput[] makePredictions(MultiLabelInstances instances, int from, int to)
+            throws Exception, InvalidDataException, ModelInitializationException;
+
     /**
      * Sets whether debugging information should be output by the model
      * 
@@ -125,6 +125,61 @@ public abstract class MultiLabelLearnerBase
      */
     protected abstract MultiLabelOutput makePredictionInternal(Instance instance) throws Exception, InvalidDataException;
 
+    public final MultiLabelOutput[] makePredictions(MultiLabelInstances instances)
+            throws Exception, InvalidDataException, ModelInitializationException {
+        if (instances == null) {
+            throw new ArgumentNullException("instances");
+        }
+        return makePredictions(instances, 0, instances.getNumInstances());
+    }
+
+    public final MultiLabelOutput[] makePredictions(MultiLabelInstances instances, int from, int to)
+            throws Exception, InvalidDataException, ModelInitializationException {
+        if (instances == null) {
+            throw new ArgumentNullException("instances");
+        }
+        if (from < 0 || from > to || to > instances.getNumInstances()) {
+            throw new IllegalArgumentException("Invalid range of instances: " + from + " to " + to);
+        }
+        if (!isModelInitialized()) {
+            throw new ModelInitializationException("The model has not been trained.");
+        }
+
+        return makePredictionsInternal(instances, from, to);
+    }
+
+    /**
+     * Learner specific implementation for predicting on a range of instances.
+     * This method is called from {@link #makePredictions(MultiLabelInstances, int, int)}
+     * which guards for model initialization and valid ranges. The default
+     * implementation calls {@link #makePredictionInternal(Instance)} for a copy
+     * of each instance whose labels are set missing. Learners can override it
+     * to process the instances in batches.
+     *
+     * @param instances the data set to predict on
+     * @param from the index of the first instance to predict
+     * @param to the index after the last instance to predict
+     * @throws Exception if an error occurs while making the predictions.
+     * @throws InvalidDataException if specified instances data is invalid and can not be processed by the learner
+     * @return the outputs of the learner in the order of the instances
+     */
+    protected MultiLabelOutput[] makePredictionsInternal(MultiLabelInstances instances, int from, int to)
+            throws Exception, InvalidDataException {
+        Instances dataSet = instances.getDataSet();
+        int[] testLabelIndices = instances.getLabelIndices();
+        MultiLabelOutput[] outputs = new MultiLabelOutput[to - from];
+        for (int i = from; i < to; i++) {
+            Instance instance = dataSet.instance(i);
+            Instance labelsMissing = (Instance) instance.copy();
+            labelsMissing.setDataset(instance.dataset());
+            for (int labelIndex : testLabelIndices) {
+                labelsMissing.setMissing(labelIndex);
+            }
+            outputs[i - from] = makePredictionInternal(labelsMissing);
+        }
+        return outputs;
+    }
+
     /**
      * Set debugging mode.
      *
@@ -20,8 +20,27 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Date;
 
+import clus.Clus;
+import clus.algo.ClusInductionAlgorithmType;
+import clus.algo.rules.ClusRuleClassifier;
+import clus.algo.tdidt.ClusDecisionTree;
+import clus.data.rows.DataTuple;
+import clus.data.rows.RowData;
+import clus.data.type.ClusAttrType;
+import clus.data.type.ClusSchema;
+import clus.data.type.NominalAttrType;
+import clus.data.type.NumericAttrType;
+import clus.ext.ensembles.ClusEnsembleClassifier;
+import clus.main.ClusRun;
+import clus.main.Settings;
+import clus.model.ClusModel;
+import clus.statistic.ClassificationStat;
+import jeans.util.cmdline.CMDLineArgs;
 import mulan.classifier.InvalidDataException;
+import mulan.classifier.ModelInitializationException;
 import mulan.classifier.MultiLabelLearnerBase;
 import mulan.classifier.MultiLabelOutput;
 import mulan.data.MultiLabelInstances;
@@ -62,6 +81,27 @@ public class ClusWrapperClassification extends MultiLabelLearnerBase {
      * Whether a rule-based method will be used.
      */
     protected boolean isRuleBased = false;
+    /**
+     * Whether the model is trained inside this JVM and kept in memory, so that predictions can be made
+     * directly via {@link #makePrediction(Instance)} instead of running CLUS on a test set file.
+     */
+    protected boolean inMemory = false;
+    /**
+     * The schema of the training data as read by CLUS (only available in in-memory mode).
+     */
+    private transient ClusSchema clusSchema;
+    /**
+     * The trained CLUS model (only available in in-memory mode).
+     */
+    private transient ClusModel clusModel;
+    /**
+     * The index of the CLUS target statistic for each label (only available in in-memory mode).
+     */
+    private int[] targetIndices;
+    /**
+     * The index of the value "1" of each CLUS target attribute (only available in in-memory mode).
+     */
+    private int[] relevantValueIndices;
 
     /**
      * Constructor with 2 arguments. This constructor is used when the settings file that is required by CLUS
@@ -98,6 +138,7 @@ public class ClusWrapperClassification extends MultiLabelLearnerBase {
      */
     @Override
     protected void buildInternal(MultiLabelInstances trainingSet) throws Exception {
+        clusModel = null;
         // create the CLUS working directory if it does not exist
         File theDir = new File(clusWorkingDir);
         if (!theDir.exists()) {
@@ -121,7 +162,12 @@ public class ClusWrapperClassification extends MultiLabelLearnerBase {
                 if (line.startsWith("File")) {
                     settings += "File = " + clusWorkingDir + this.datasetName + "-train.arff" + "\n";
                 } else if (line.startsWith("TestSet")) {
-                    settings += "TestSet = " + clusWorkingDir + this.datasetName + "-test.arff" + "\n";
+                    if (inMemory) {
+                        // no test set file is needed as the test instances are passed to the model directly
+                        settings += "TestSet = None\n";
+                    } else {
+                        settings += "TestSet = " + clusWorkingDir + this.datasetName + "-test.arff" + "\n";
+                    }
                 } else if (line.startsWith("Target")) {
                     settings += "Target = ";
                     for (int i = 0; i < numLabels - 1; i++) {
@@ -140,18 +186,135 @@ public class ClusWrapperClassification extends MultiLabelLearnerBase {
                     + "-train.s")));
             out.write(settings);
             out.close();
+
+            if (inMemory) {
+                trainInMemory(trainingSet);
+            }
         }
     }
 
     /**
-     * This method exists so that CLUSWrapperClassification can extend MultiLabelLearnerBase. Also helps the
-     * Evaluator to determine the type of the MultiLabelOutput and thus prepare the appropriate evaluation
-     * measures.
+     * Runs the CLUS induction on the training set file inside this JVM and keeps the resulting model
+     * (the pruned tree, or the forest in case of an ensemble) instead of writing it to a model file.
+     * 
+     * @param trainingSet the training set
+     * @throws Exception Potential exception thrown. To be handled in an upper level.
+     */
+    private void trainInMemory(MultiLabelInstances trainingSet) throws Exception {
+        ArrayList<String> clusArgsList = new ArrayList<String>();
+        if (isEnsemble) {
+            clusArgsList.add("-forest");
+        }
+        if (isRuleBased) {
+            clusArgsList.add("-rules");
+        }
+        clusArgsList.add(clusWorkingDir + datasetName + "-train.s");
+
+        // CLUS keeps part of its configuration in static fields, thus, only one model is induced at a time
+        synchronized (Clus.class) {
+            Clus clus = new Clus();
+            Settings sett = clus.getSettings();
+            CMDLineArgs cargs = new CMDLineArgs(clus);
+            cargs.process(clusArgsList.toArray(new String[clusArgsList.size()]));
+            sett.setDate(new Date());
+            sett.setAppName(cargs.getMainArg(0));
+            clus.initSettings(cargs);
+
+            ClusInductionAlgorithmType clss;
+            if (isRuleBased) {
+                sett.setSectionBeamEnabled(true);
+                sett.setSectionRulesEnabled(true);
+                clss = new ClusRuleClassifier(clus);
+            } else if (isEnsemble) {
+                sett.setEnsembleMode(true);
+                clss = new ClusEnsembleClassifier(clus);
+            } else {
+                clss = new ClusDecisionTree(clus);
+            }
+            clus.initialize(cargs, clss);
+
+            ClusRun run = clus.partitionData();
+            clus.getStatManager().computeTrainSetStat((RowData) run.getTrainingSet());
+            clus.induce(run, clss);
+
+            clusSchema = clus.getSchema();
+            clusModel = null;
+            for (int i = 0; i < run.getNbModels(); i++) {
+                // the same models the prediction files would contain: the pruned tree or rules, or the forest
+                String name = run.getModelName(i);
+                if (run.getModel(i) != null && (name.startsWith("Pruned") || clusModel == null && !name.startsWith("Default"))) {
+                    clusModel = run.getModel(i);
+                }
+            }
+            if (clusModel == null) {
+                throw new IllegalStateException("CLUS did not induce a model");
+            }
+        }
+
+        // map labels to the target statistics of CLUS
+        ClusAttrType[] targets = clusSchema.getTargetAttributes();
+        targetIndices = new int[numLabels];
+        relevantValueIndices = new int[numLabels];
+        for (int i = 0; i < numLabels; i++) {
+            ClusAttrType labelType = clusSchema.getAttrType(labelIndices[i]);
+            targetIndices[i] = -1;
+            for (int j = 0; j < targets.length; j++) {
+                if (targets[j] == labelType) {
+                    targetIndices[i] = j;
+                }
+            }
+            if (targetIndices[i] < 0 || !(labelType instanceof NominalAttrType)) {
+                throw new InvalidDataException("Label " + trainingSet.getDataSet().attribute(labelIndices[i]).name() + " is not a nominal target of CLUS");
+            }
+            Integer relevant = ((NominalAttrType) labelType).getValueIndex("1");
+            relevantValueIndices[i] = relevant == null ? 0 : relevant;
+        }
+    }
+
+    /**
+     * Converts the given instance into a CLUS tuple of the training schema. The labels are set missing.
+     */
+    private DataTuple toTuple(Instance instance) {
+        DataTuple tuple = clusSchema.createTuple();
+        int numAttributes = Math.min(clusSchema.getNbAttributes(), instance.numAttributes());
+        for (int i = 0; i < numAttributes; i++) {
+            ClusAttrType type = clusSchema.getAttrType(i);
+            if (type.getArrayIndex() < 0) {
+                continue;
+            }
+            boolean missing = instance.isMissing(i) || type.getStatus() == ClusAttrType.STATUS_TARGET;
+            if (type instanceof NumericAttrType) {
+                tuple.setDoubleVal(missing ? NumericAttrType.MISSING : instance.value(i), type.getArrayIndex());
+            } else if (type instanceof NominalAttrType) {
+                NominalAttrType nominal = (NominalAttrType) type;
+                Integer value = missing ? null : nominal.getValueIndex(instance.stringValue(i));
+                nominal.setNominal(tuple, value == null ? nominal.getNbValues() : value);
+            }
+        }
+        return tuple;
+    }
+
+    /**
+     * In in-memory mode, the instance is passed to the trained CLUS model and the proportion of the value
+     * "1" in the predicted statistic (the leaf distribution of a tree or the votes of a forest) is returned
+     * as confidence of a label. If no model was trained in memory, because no settings file was given, a
+     * ModelInitializationException is thrown. Otherwise, this method exists so that CLUSWrapperClassification can extend
+     * MultiLabelLearnerBase. Also helps the Evaluator to determine the type of the MultiLabelOutput and thus
+     * prepare the appropriate evaluation measures.
      */
     @Override
     protected MultiLabelOutput makePredictionInternal(Instance instance) throws Exception,
             InvalidDataException {
+        if (inMemory && clusModel == null) {
+            throw new ModelInitializationException("No CLUS model was trained in memory, a settings file is required.");
+        }
         double[] confidences = new double[numLabels];
+        if (clusModel != null) {
+            ClassificationStat prediction = (ClassificationStat) clusModel.predictWeighted(toTuple(instance));
+            for (int i = 0; i < numLabels; i++) {
+                confidences[i] = prediction.getProportion(targetIndices[i], relevantValueIndices[i]);
+            }
+        }
         return new MultiLabelOutput(confidences, 0.5);
 
     }
@@ -216,6 +379,20 @@ public class ClusWrapperClassification extends MultiLabelLearnerBase {
         this.isEnsemble = isEnsemble;
     }
 
+    public boolean isInMemory() {
+        return inMemory;
+    }
+
+    /**
+     * Sets whether the model is trained inside this JVM and used for predictions directly. Requires a
+     * settings file.
+     * 
+     * @param inMemory whether to train and predict in memory
+     */
+    public void setInMemory(boolean inMemory) {
+        this.inMemory = inMemory;
+    }
+
     public boolean isRuleBased() {
         return isRuleBased;
     }
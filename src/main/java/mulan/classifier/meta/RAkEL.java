@@ -21,6 +21,8 @@ import java.util.Random;
 import mulan.classifier.MultiLabelLearner;
 import mulan.classifier.MultiLabelOutput;
 import mulan.classifier.transformation.BinaryRelevance;
+import mulan.core.ParallelExecutor;
+import mulan.data.DataUtils;
 import mulan.data.MultiLabelInstances;
 import weka.classifiers.trees.J48;
 import weka.core.Instance;
@@ -78,7 +80,9 @@ public class RAkEL extends MultiLabelMetaLearner {
      */
 
     double[][] lengthVotesIncremental;
-    double[] sumVotes;
+    /**
+     * The number of models that vote for each label
+     */
     double[] lengthVotes;
     int numOfModels;
     double threshold = 0.5;
@@ -86,8 +90,19 @@ public class RAkEL extends MultiLabelMetaLearner {
     int[][] classIndicesPerSubset;
     int[][] absoluteIndicesToRemove;
     MultiLabelLearner[] subsetClassifiers;
-    private Remove[] remove;
+    /**
+     * The attributes of the subset data of each model
+     */
+    private int[][] keptIndices;
+    /**
+     * The header of the subset data of each model
+     */
+    private Instances[] subsetHeaders;
     HashSet<String> combinations;
+    /**
+     * The number of models that are built in parallel
+     */
+    private int numThreads = 1;
 
     /**
      * Returns an instance of a TechnicalInformation object, containing detailed
@@ -164,6 +179,25 @@ public class RAkEL extends MultiLabelMetaLearner {
         seed = x;
     }
 
+    /**
+     * Sets the number of models that are built in parallel
+     *
+     * @param numThreads the number of threads (1 builds the models one after
+     * another)
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Returns the number of models that are built in parallel
+     *
+     * @return the number of threads
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
     /**
      * Sets the size of the subsets
      * 
@@ -240,20 +274,27 @@ public class RAkEL extends MultiLabelMetaLearner {
         classIndicesPerSubset = new int[numOfModels][sizeOfSubset];
         absoluteIndicesToRemove = new int[numOfModels][sizeOfSubset];
         subsetClassifiers = new MultiLabelLearner[numOfModels];
-        remove = new Remove[numOfModels];
+        keptIndices = new int[numOfModels][];
+        subsetHeaders = new Instances[numOfModels];
+        lengthVotes = new double[numLabels];
 
+        // draw all subsets before building the models, so that the ensemble
+        // does not depend on the number of threads
         for (int i = 0; i < numOfModels; i++) {
-            updateClassifier(trainingData, i);
+            drawSubset(i);
+            for (int j = 0; j < sizeOfSubset; j++) {
+                lengthVotes[classIndicesPerSubset[i][j]]++;
+            }
         }
+        ParallelExecutor.run(numOfModels, numThreads, model -> buildSubsetModel(trainingData, model));
     }
 
-    private void updateClassifier(MultiLabelInstances mlTrainData, int model) throws Exception {
+    private void drawSubset(int model) {
         //todo: check if the following is unnecessary (was used for cvparam)
         if (combinations == null) {
             combinations = new HashSet<String>();
         }
 
-        Instances trainData = mlTrainData.getDataSet();
         // select a random subset of classes not seen before
         // todo: select according to inverse distribution of current selection
         boolean[] selected;
@@ -271,7 +312,6 @@ public class RAkEL extends MultiLabelMetaLearner {
             }
             Arrays.sort(classIndicesPerSubset[model]);
         } while (combinations.add(Arrays.toString(classIndicesPerSubset[model])) == false);
-        debug("Building model " + (model + 1) + "/" + numOfModels + ", subset: " + Arrays.toString(classIndicesPerSubset[model]));
         // remove the unselected labels
         absoluteIndicesToRemove[model] = new int[numLabels - sizeOfSubset];
         int k = 0;
@@ -281,11 +321,29 @@ public class RAkEL extends MultiLabelMetaLearner {
                 k++;
             }
         }
-        remove[model] = new Remove();
-        remove[model].setAttributeIndicesArray(absoluteIndicesToRemove[model]);
-        remove[model].setInputFormat(trainData);
-        remove[model].setInvertSelection(false);
-        Instances trainSubset = Filter.useFilter(trainData, remove[model]);
+    }
+
+    private void buildSubsetModel(MultiLabelInstances mlTrainData, int model) throws Exception {
+        debug("Building model " + (model + 1) + "/" + numOfModels + ", subset: " + Arrays.toString(classIndicesPerSubset[model]));
+        Instances trainData = mlTrainData.getDataSet();
+        Remove remove = new Remove();
+        remove.setAttributeIndicesArray(absoluteIndicesToRemove[model]);
+        remove.setInputFormat(trainData);
+        remove.setInvertSelection(false);
+        Instances trainSubset = Filter.useFilter(trainData, remove);
+        subsetHeaders[model] = new Instances(trainSubset, 0);
+
+        boolean[] removed = new boolean[trainData.numAttributes()];
+        for (int index : absoluteIndicesToRemove[model]) {
+            removed[index] = true;
+        }
+        keptIndices[model] = new int[trainData.numAttributes() - absoluteIndicesToRemove[model].length];
+        int k = 0;
+        for (int j = 0; j < trainData.numAttributes(); j++) {
+            if (!removed[j]) {
+                keptIndices[model][k++] = j;
+            }
+        }
 
         // build a MultiLabelLearner for the selected label subset;
         subsetClassifiers[model] = getBaseLearner().makeCopy();
@@ -293,42 +351,34 @@ public class RAkEL extends MultiLabelMetaLearner {
     }
 
     protected MultiLabelOutput makePredictionInternal(Instance instance) throws Exception {
-        double[] sumConf = new double[numLabels];
-        sumVotes = new double[numLabels];
-        lengthVotes = new double[numLabels];
+        // sum the votes directly into the output
+        double[] confidence1 = new double[numLabels];
 
         // gather votes
         for (int i = 0; i < numOfModels; i++) {
-            remove[i].input(instance);
-            remove[i].batchFinished();
-            Instance newInstance = remove[i].output();
-            MultiLabelOutput subsetMLO = subsetClassifiers[i].makePrediction(newInstance);
+            double[] values = new double[keptIndices[i].length];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = instance.value(keptIndices[i][j]);
+            }
+            Instance newInstance = DataUtils.createInstance(instance, instance.weight(), values);
+            newInstance.setDataset(subsetHeaders[i]);
+            boolean[] bipartition = subsetClassifiers[i].makePrediction(newInstance).getBipartition();
             for (int j = 0; j < sizeOfSubset; j++) {
-                sumConf[classIndicesPerSubset[i][j]] += subsetMLO.getConfidences()[j];
-                sumVotes[classIndicesPerSubset[i][j]] += subsetMLO.getBipartition()[j] ? 1 : 0;
-                lengthVotes[classIndicesPerSubset[i][j]]++;
+                if (bipartition[j]) {
+                    confidence1[classIndicesPerSubset[i][j]]++;
+                }
             }
         }
 
-        double[] confidence1 = new double[numLabels];
-        double[] confidence2 = new double[numLabels];
         boolean[] bipartition = new boolean[numLabels];
         for (int i = 0; i < numLabels; i++) {
             if (lengthVotes[i] != 0) {
-                confidence1[i] = sumVotes[i] / lengthVotes[i];
-                confidence2[i] = sumConf[i] / lengthVotes[i];
-            } else {
-                confidence1[i] = 0;
-                confidence2[i] = 0;
-            }
-            if (confidence1[i] >= threshold) {
-                bipartition[i] = true;
-            } else {
-                bipartition[i] = false;
+                confidence1[i] /= lengthVotes[i];
             }
+            bipartition[i] = confidence1[i] >= threshold;
         }
 
-        // todo: optionally use confidence2 for ranking measures
+        // todo: optionally use the average confidences for ranking measures
         MultiLabelOutput mlo = new MultiLabelOutput(bipartition, confidence1);
         return mlo;
     }
@@ -19,7 +19,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import mulan.classifier.MultiLabelLearner;
 import mulan.classifier.MultiLabelOutput;
 import mulan.classifier.transformation.BinaryRelevance;
@@ -119,13 +118,11 @@ public class SubsetLearner extends MultiLabelMetaLearner {
      */
     private LabelClustering clusterer = null;
     /**
-     * HashMaps containing created models - caching mechanism is used, if
+     * Cache containing created models - caching mechanism is used, if
      * enabled by setting the useCache field to true, for GreedyLabelClustering
      * and EnsembleOfSubsetLearners methods run time optimization
      */
-    private static HashMap<String, MultiLabelLearner> existingMultiLabelModels = new HashMap<String, MultiLabelLearner>();
-    private static HashMap<String, FilteredClassifier> existingSingleLabelModels = new HashMap<String, FilteredClassifier>();
-    private static HashMap<String, Remove> existingRemove = new HashMap<String, Remove>();
+    private static final SubsetModelCache modelCache = new SubsetModelCache(SubsetModelCache.DEFAULT_MAXIMUM_SIZE);
 
     /**
      * Default constructor
@@ -223,8 +220,8 @@ public class SubsetLearner extends MultiLabelMetaLearner {
      * train the classifiers using MultiLabelLearner for multi-label splits and
      * BinaryRelevance approach for single label splits. Each classification
      * model constructed on a certain training data for a certain labels subset
-     * along with related Remove object is stored in HashMap and can be reused
-     * when is needed next time.
+     * along with related Remove object is stored in a shared cache and can be
+     * reused when is needed next time.
      *
      * @param trainingSet The initial {@link mulan.data.MultiLabelInstances}
      * dataset
@@ -242,16 +239,24 @@ public class SubsetLearner extends MultiLabelMetaLearner {
         // Create the lists which will contain the learners
         singleLabelLearners = new ArrayList<FilteredClassifier>();
         int countSingle = 0, countMulti = 0;
+        long fingerprint = 0;
+        String multiLabelConfiguration = null;
+        String singleLabelConfiguration = null;
+        if (useCache) {
+            fingerprint = SubsetModelCache.fingerprint(trainingSet.getDataSet());
+            multiLabelConfiguration = SubsetModelCache.configuration(baseLearner);
+            singleLabelConfiguration = SubsetModelCache.configuration(baseSingleLabelClassifier);
+        }
         for (int totalSplitNo = 0; totalSplitNo < splitOrder.length; totalSplitNo++) {
             // Ensure ascending order of label indexes in the subset
             Arrays.sort(splitOrder[totalSplitNo]);
-            int foldHash = trainingSet.getDataSet().toString().hashCode();
             // create unique key of the trainingSet and the labels subset to be used for caching
-            String modelKey = createKey(splitOrder[totalSplitNo], foldHash);
             if (splitOrder[totalSplitNo].length > 1) {
+                SubsetModelCache.Key modelKey = new SubsetModelCache.Key(fingerprint, splitOrder[totalSplitNo], multiLabelConfiguration);
                 buildMultiLabelModel(trainingSet, countMulti, totalSplitNo, modelKey);
                 countMulti++;
             } else {
+                SubsetModelCache.Key modelKey = new SubsetModelCache.Key(fingerprint, splitOrder[totalSplitNo], singleLabelConfiguration);
                 buildSingleLabelModel(trainingSet, countSingle, totalSplitNo, modelKey);
                 countSingle++;
             }
@@ -292,17 +297,19 @@ public class SubsetLearner extends MultiLabelMetaLearner {
      * label-set partition
      * @param totalSplitNo the total number of previous splits within the
      * label-set partition
-     * @param modelKey the unique key of the trainingSet and the labels subset
+     * @param modelKey the key of the trainingSet and the labels subset in the cache
      * @throws Exception Potential exception thrown. To be handled in an upper level.
      */
     private void buildMultiLabelModel(MultiLabelInstances trainingSet, int countMulti,
-            int totalSplitNo, String modelKey) throws Exception {
-        if (useCache && existingMultiLabelModels.containsKey(modelKey)) { // try to get existing model from cache
-            MultiLabelLearner model = existingMultiLabelModels.get(modelKey);
+            int totalSplitNo, SubsetModelCache.Key modelKey) throws Exception {
+        SubsetModelCache.Entry cached = useCache ? modelCache.get(modelKey) : null; // try to get existing model from cache
+        if (cached != null) {
+            // the cached model is used by the learner that built it, so it is copied before use
+            MultiLabelLearner model = ((MultiLabelLearner) cached.model).makeCopy();
             resetRandomSeed(model); // reset random seed of the classifier to it's initial value,	 such that it will be
             //  equal to that if the classifier was just trained.
-            multiLabelLearners.add(model.makeCopy());
-            remove[totalSplitNo] = existingRemove.get(modelKey);
+            multiLabelLearners.add(model);
+            remove[totalSplitNo] = (Remove) Filter.makeCopy(cached.remove);
         } else {  // (there is no such model in cache) -> build it
             Instances trainSubset = trainingSet.getDataSet();
             remove[totalSplitNo] = new Remove();  // Remove the unneeded labels
@@ -314,8 +321,7 @@ public class SubsetLearner extends MultiLabelMetaLearner {
             multiLabelLearners.get(countMulti).build(
                     trainingSet.reintegrateModifiedDataSet(trainSubset));
             if (useCache) { // add trained model and related Remove object to cache
-                existingMultiLabelModels.put(modelKey, multiLabelLearners.get(countMulti));
-                existingRemove.put(modelKey, remove[totalSplitNo]);
+                modelCache.put(modelKey, new SubsetModelCache.Entry(multiLabelLearners.get(countMulti), remove[totalSplitNo]));
             }
         }
     }
@@ -329,19 +335,20 @@ public class SubsetLearner extends MultiLabelMetaLearner {
      * label-set partition
      * @param totalSplitNo the total number of previous splits within the
      * label-set partition
-     * @param modelKey the unique key of the trainingSet and the labels subset
+     * @param modelKey the key of the trainingSet and the labels subset in the cache
      * @throws Exception Potential exception thrown. To be handled in an upper level.
      */
     private void buildSingleLabelModel(MultiLabelInstances trainingSet, int countSingle,
-            int totalSplitNo, String modelKey) throws Exception {
-        if (useCache && existingSingleLabelModels.containsKey(modelKey)) {
-            // if single-label model is in cache -> get it
-            FilteredClassifier model = existingSingleLabelModels.get(modelKey);
+            int totalSplitNo, SubsetModelCache.Key modelKey) throws Exception {
+        SubsetModelCache.Entry cached = useCache ? modelCache.get(modelKey) : null;
+        if (cached != null) {
+            // if single-label model is in cache -> get a copy of it
+            FilteredClassifier model = (FilteredClassifier) AbstractClassifier.makeCopy((FilteredClassifier) cached.model);
             Classifier classifier = model.getClassifier();
             // reset random seed of the classifier to it's initial value, such that it will be equal to that if the classifier was just trained
             resetRandomSeed(classifier);
             singleLabelLearners.add(model);
-            remove[totalSplitNo] = existingRemove.get(modelKey);
+            remove[totalSplitNo] = (Remove) model.getFilter();
         } else { // the model is not in cache -> build the model and add it to cache
             singleLabelLearners.add(new FilteredClassifier()); // Initialize the FilteredClassifiers
             singleLabelLearners.get(countSingle).setClassifier(
@@ -356,30 +363,11 @@ public class SubsetLearner extends MultiLabelMetaLearner {
             trainSubset.setClassIndex(labelIndices[splitOrder[totalSplitNo][0]]);
             singleLabelLearners.get(countSingle).buildClassifier(trainSubset); // train
             if (useCache) { // add trained model and related Remove object to cache
-                existingSingleLabelModels.put(modelKey, singleLabelLearners.get(countSingle));
-                existingRemove.put(modelKey, remove[totalSplitNo]);
+                modelCache.put(modelKey, new SubsetModelCache.Entry(singleLabelLearners.get(countSingle), remove[totalSplitNo]));
             }
         }
     }
 
-    /**
-     * Concatenate all integers from an array with additional integer into a
-     * single string.
-     *
-     * @param set an array representing labels subset
-     * @param fold a hash code of the current training set
-     * @return a string in the form: "_l1_l2_ ... ln_fold"
-     */
-    private String createKey(int[] set, int fold) {
-        StringBuilder sb = new StringBuilder("_");
-        for (int i : set) {
-            sb.append(i);
-            sb.append("_");
-        }
-        sb.append(fold);
-        return sb.toString();
-    }
-
     /**
      * Invokes the setSeed(1) or setRandomSeed(1) method of the supplied
      * object's Class, if such method exist.
@@ -492,6 +480,16 @@ public class SubsetLearner extends MultiLabelMetaLearner {
         this.useCache = useCache;
     }
 
+    /**
+     * Returns the cache of models that is shared by all instances of this
+     * class, e.g. to read its hit and miss counts or to bound its size
+     *
+     * @return the shared model cache
+     */
+    public static SubsetModelCache getModelCache() {
+        return modelCache;
+    }
+
     @Override
     public TechnicalInformation getTechnicalInformation() {
         TechnicalInformation result;
@@ -0,0 +1,273 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.classifier.meta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+import weka.filters.unsupervised.attribute.Remove;
+
+/**
+ * A bounded cache of the models that {@link SubsetLearner} trains for a label
+ * subset on a training set. When the cache is full, the least recently used
+ * model is evicted. All methods are synchronized, so learners that are built
+ * in different threads can share the cache. <p>
+ *
+ * A training set is identified by a fingerprint, a 64 bit digest of its header
+ * and values that is computed once per build. A learner is identified by its
+ * configuration. <p>
+ *
+ * A cached model is the one that the learner which built it uses for its
+ * predictions. Learners that find it in the cache use copies of it.
+ *
+ * @version 2026.10.17
+ */
+public final class SubsetModelCache {
+
+    /** the default maximum number of models */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private int maximumSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache
+     *
+     * @param maximumSize the maximum number of models
+     */
+    public SubsetModelCache(int maximumSize) {
+        setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Computes the fingerprint of a training set
+     *
+     * @param dataSet a training set
+     * @return a digest of the header and the values of the training set
+     */
+    static long fingerprint(Instances dataSet) {
+        long hash = dataSet.numAttributes() * 31L + dataSet.numInstances();
+        for (int i = 0; i < dataSet.numAttributes(); i++) {
+            Attribute attribute = dataSet.attribute(i);
+            hash = mix(hash, attribute.name().hashCode());
+            hash = mix(hash, attribute.type() * 31L + attribute.numValues());
+        }
+        for (int i = 0; i < dataSet.numInstances(); i++) {
+            Instance instance = dataSet.instance(i);
+            hash = mix(hash, i);
+            hash = mix(hash, Double.doubleToLongBits(instance.weight()));
+            // zeros are skipped, so that dense and sparse instances agree
+            for (int k = 0; k < instance.numValues(); k++) {
+                double value = instance.valueSparse(k);
+                if (value != 0) {
+                    hash = mix(hash, instance.index(k));
+                    hash = mix(hash, Double.doubleToLongBits(value));
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Describes the configuration of an untrained learner: its class name
+     * followed by its options or, if it has no options, by a digest of its
+     * serialized form
+     *
+     * @param learner a {@link mulan.classifier.MultiLabelLearner} or a
+     * {@link weka.classifiers.Classifier}
+     * @return the configuration of the learner
+     * @throws Exception if the learner cannot be serialized
+     */
+    static String configuration(Object learner) throws Exception {
+        if (learner instanceof OptionHandler) {
+            return learner.getClass().getName() + " " + Utils.joinOptions(((OptionHandler) learner).getOptions());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(learner);
+        out.close();
+        long hash = 0;
+        for (byte b : bytes.toByteArray()) {
+            hash = mix(hash, b);
+        }
+        return learner.getClass().getName() + " " + Long.toHexString(hash);
+    }
+
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Looks up a model
+     *
+     * @param key the key of the model
+     * @return the model or null if it is not cached
+     */
+    synchronized Entry get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Adds a model, evicting the least recently used ones if the cache is full
+     *
+     * @param key the key of the model
+     * @param entry the model, which must not be retrained afterwards
+     */
+    synchronized void put(Key key, Entry entry) {
+        entries.put(key, entry);
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Sets the maximum number of models, evicting models if needed
+     *
+     * @param maximumSize the maximum number of models
+     */
+    public synchronized void setMaximumSize(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size must not be negative.");
+        }
+        this.maximumSize = maximumSize;
+        evict();
+    }
+
+    /**
+     * @return the maximum number of models
+     */
+    public synchronized int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the number of cached models
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups that found a model
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that found no model
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of models evicted to respect the maximum size
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Removes all models and resets the counters
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Identifies the model of a learner for a label subset on a training set
+     */
+    static final class Key {
+
+        private final long fingerprint;
+        private final int[] subset;
+        private final String configuration;
+
+        /**
+         * @param fingerprint the fingerprint of the training set
+         * @param subset the sorted indices of the labels of the subset
+         * @param configuration the configuration of the learner
+         */
+        Key(long fingerprint, int[] subset, String configuration) {
+            this.fingerprint = fingerprint;
+            this.subset = subset.clone();
+            this.configuration = configuration;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return fingerprint == other.fingerprint && Arrays.equals(subset, other.subset)
+                    && configuration.equals(other.configuration);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Long.hashCode(fingerprint) + Arrays.hashCode(subset)) + configuration.hashCode();
+        }
+    }
+
+    /**
+     * A trained model together with the filter that removes the labels
+     * outside its subset
+     */
+    static final class Entry {
+
+        final Object model;
+        final Remove remove;
+
+        /**
+         * @param model a {@link mulan.classifier.MultiLabelLearner} or a
+         * {@link weka.classifiers.meta.FilteredClassifier}
+         * @param remove the filter of the model
+         */
+        Entry(Object model, Remove remove) {
+            this.model = model;
+            this.remove = remove;
+        }
+    }
+}
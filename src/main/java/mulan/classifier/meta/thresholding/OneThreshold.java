@@ -127,6 +127,8 @@ public class OneThreshold extends MultiLabelMetaLearner {
         boolean[] thresholdHasProblem = new boolean[numOfThresholds];
         Arrays.fill(thresholdHasProblem, false);
 
+        // the labels of the instances are hidden from the learner
+        MultiLabelOutput[] outputs = ThresholdingUtils.predictLabeledInstances(learner, data);
         for (int j = 0; j < data.getNumInstances(); j++) {
             Instance instance = data.getDataSet().instance(j);
 
@@ -134,7 +136,7 @@ public class OneThreshold extends MultiLabelMetaLearner {
                 continue;
             }
 
-            MultiLabelOutput mlo = learner.makePrediction(instance);
+            MultiLabelOutput mlo = outputs[j];
 
             boolean[] trueLabels = new boolean[numLabels];
             for (int counter = 0; counter < numLabels; counter++) {
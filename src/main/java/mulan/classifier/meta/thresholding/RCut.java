@@ -161,6 +161,8 @@ public class RCut extends MultiLabelMetaLearner {
             measures[i] = measure.makeCopy();
         }
                
+        // the labels of the instances are hidden from the learner
+        MultiLabelOutput[] outputs = ThresholdingUtils.predictLabeledInstances(learner, data);
         for (int j = 0; j < data.getNumInstances(); j++) {
             Instance instance = data.getDataSet().instance(j);
 
@@ -168,7 +170,7 @@ public class RCut extends MultiLabelMetaLearner {
                 continue;
             }
 
-            MultiLabelOutput mlo = learner.makePrediction(instance);
+            MultiLabelOutput mlo = outputs[j];
 
             boolean[] trueLabels = new boolean[numLabels];
             for (int counter = 0; counter < numLabels; counter++) {
@@ -126,12 +126,27 @@ public class SCut extends MultiLabelMetaLearner {
             conf[l] = new ArrayList();
         }
         //get the Confidences and TrueLabels from all instances
+        // the labels of the instances are hidden from the learner
+        MultiLabelOutput[] outputs;
+        try {
+            outputs = learner.makePredictions(data);
+        } catch (Exception ex) {
+            // predict the instances one by one, so that only the failing ones are lost
+            outputs = new MultiLabelOutput[data.getNumInstances()];
+            for (int j = 0; j < data.getNumInstances(); j++) {
+                try {
+                    outputs[j] = learner.makePredictions(data, j, j + 1)[0];
+                } catch (Exception e) {
+                    Logger.getLogger(SCut.class.getName()).log(Level.SEVERE, null, e);
+                }
+            }
+        }
         for (int j = 0; j < data.getNumInstances(); j++) {
-            try {
-                arraysOfConfidences[j] = learner.makePrediction(data.getDataSet().instance(j)).getConfidences();
-            } catch (Exception ex) {
-                Logger.getLogger(SCut.class.getName()).log(Level.SEVERE, null, ex);
+            if (outputs[j] != null) {
+                arraysOfConfidences[j] = outputs[j].getConfidences();
             }
+        }
+        for (int j = 0; j < data.getNumInstances(); j++) {
             for (int l = 0; l < numLabels; l++) {
                 int labelIndice = labelIndices[l];
                 trueLabels[j][l] = data.getDataSet().attribute(labelIndice).value((int) data.getDataSet().instance(j).value(labelIndice)).equals("1");
@@ -0,0 +1,64 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.classifier.meta.thresholding;
+
+import mulan.classifier.MultiLabelLearner;
+import mulan.classifier.MultiLabelOutput;
+import mulan.data.MultiLabelInstances;
+import weka.core.Instances;
+
+/**
+ * Utility methods for the thresholding learners
+ *
+ * @version 2026.10.18
+ */
+final class ThresholdingUtils {
+
+    private ThresholdingUtils() {
+    }
+
+    /**
+     * Predicts the instances without missing labels of a data set. Consecutive
+     * instances are predicted together with
+     * {@link MultiLabelLearner#makePredictions(MultiLabelInstances, int, int)},
+     * which hides their labels from the learner.
+     *
+     * @param learner a trained learner
+     * @param data the data set
+     * @return the output of each instance or null for instances with missing
+     * labels
+     * @throws Exception if the learner fails
+     */
+    static MultiLabelOutput[] predictLabeledInstances(MultiLabelLearner learner, MultiLabelInstances data) throws Exception {
+        Instances dataSet = data.getDataSet();
+        int numInstances = dataSet.numInstances();
+        MultiLabelOutput[] outputs = new MultiLabelOutput[numInstances];
+        int from = 0;
+        while (from < numInstances) {
+            if (data.hasMissingLabels(dataSet.instance(from))) {
+                from++;
+                continue;
+            }
+            int to = from + 1;
+            while (to < numInstances && !data.hasMissingLabels(dataSet.instance(to))) {
+                to++;
+            }
+            System.arraycopy(learner.makePredictions(data, from, to), 0, outputs, from, to - from);
+            from = to;
+        }
+        return outputs;
+    }
+}
@@ -16,10 +16,13 @@
 package mulan.classifier.transformation;
 
 import mulan.classifier.MultiLabelOutput;
+import mulan.core.ParallelExecutor;
 import mulan.data.MultiLabelInstances;
 import mulan.transformations.BinaryRelevanceTransformation;
 import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
+import weka.core.Attribute;
+import weka.core.BatchPredictor;
 import weka.core.Instance;
 import weka.core.Instances;
 
@@ -42,6 +45,12 @@ public class BinaryRelevance extends TransformationBasedMultiLabelLearner {
      */
     protected String[] correspondence;
     protected BinaryRelevanceTransformation brt;
+    /**
+     * The number of binary models that are built in parallel. As each of them
+     * is trained on its own transformed copy of the training set, this also
+     * bounds the number of such copies in memory.
+     */
+    protected int numThreads = 1;
 
     /**
      * Creates a new instance
@@ -64,50 +73,166 @@ public class BinaryRelevance extends TransformationBasedMultiLabelLearner {
         debug("preparing shell");
         brt = new BinaryRelevanceTransformation(train);
 
-        for (int i = 0; i < numLabels; i++) {
-            ensemble[i] = AbstractClassifier.makeCopy(baseClassifier);
-            Instances shell = brt.transformInstances(i);
-            debug("Bulding model " + (i + 1) + "/" + numLabels);
-            ensemble[i].buildClassifier(shell);
-        }
+        ParallelExecutor.run(numLabels, numThreads, this::buildLabelModel);
+    }
+
+    /**
+     * Builds the binary model of a label from a fresh copy of the base
+     * classifier, so that the models (including the seeds of randomized base
+     * classifiers) do not depend on the order or number of threads they are
+     * built with.
+     *
+     * @param i the index of the label
+     * @throws Exception if the model cannot be built
+     */
+    protected void buildLabelModel(int i) throws Exception {
+        ensemble[i] = AbstractClassifier.makeCopy(baseClassifier);
+        Instances shell = brt.transformInstances(i);
+        debug("Bulding model " + (i + 1) + "/" + numLabels);
+        ensemble[i].buildClassifier(shell);
+    }
+
+    /**
+     * Sets the number of binary models that are built in parallel
+     *
+     * @param numThreads the number of threads (1 builds the models one after
+     * another)
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Returns the number of binary models that are built in parallel
+     *
+     * @return the number of threads
+     */
+    public int getNumThreads() {
+        return numThreads;
     }
 
     protected MultiLabelOutput makePredictionInternal(Instance instance) {
         boolean[] bipartition = new boolean[numLabels];
         double[] confidences = new double[numLabels];
-        
-        boolean isContainBinary=false;
-        boolean isContainNumeric=false;
 
+        Instance features = brt.transformFeatures(instance);
+        try {
+            for (int counter = 0; counter < numLabels; counter++) {
+                Instance transformedInstance = brt.transformInstance(instance, features, counter);
+                predictLabel(counter, instance.attribute(labelIndices[counter]), transformedInstance, null,
+                        bipartition, confidences);
+            }
+        } catch (Exception e) {
+            System.out.println(e);
+            return null;
+        }
+        return createOutput(instance, bipartition, confidences);
+    }
+
+    /**
+     * Transforms the features of the instances once and predicts the labels
+     * one after another on all instances, in a single call to base
+     * classifiers that are {@link BatchPredictor}s. As with
+     * {@link #makePredictionInternal(Instance)}, the output of an instance
+     * whose prediction fails is null.
+     */
+    @Override
+    protected MultiLabelOutput[] makePredictionsInternal(MultiLabelInstances instances, int from, int to)
+            throws Exception {
+        Instances dataSet = instances.getDataSet();
+        int numInstances = to - from;
+        Instance[] features = new Instance[numInstances];
+        for (int i = 0; i < numInstances; i++) {
+            features[i] = brt.transformFeatures(dataSet.instance(from + i));
+        }
+
+        boolean[][] bipartitions = new boolean[numInstances][numLabels];
+        double[][] confidences = new double[numInstances][numLabels];
+        boolean[] failed = new boolean[numInstances];
         for (int counter = 0; counter < numLabels; counter++) {
-            Instance transformedInstance = brt.transformInstance(instance, counter);
-            if(instance.attribute(labelIndices[counter]).isNominal()){
-            	isContainBinary=true;
-            	double distribution[];
-                 try {
-                     distribution = ensemble[counter].distributionForInstance(transformedInstance);
-                 } catch (Exception e) {
-                     System.out.println(e);
-                     return null;
-                 }
-                 int maxIndex = (distribution[0] > distribution[1]) ? 0 : 1;
-
-                 // Ensure correct predictions both for class values {0,1} and {1,0}
-                 bipartition[counter] = (maxIndex == 1) ? true : false;
-
-                 // The confidence of the label being equal to 1
-                 confidences[counter] = distribution[1];
+            Instances batch = brt.transformInstances(features, counter);
+            Attribute labelAttribute = dataSet.attribute(labelIndices[counter]);
+            double[][] distributions = null;
+            if (labelAttribute.isNominal() && ensemble[counter] instanceof BatchPredictor) {
+                try {
+                    distributions = ((BatchPredictor) ensemble[counter]).distributionsForInstances(batch);
+                } catch (Exception e) {
+                    // predict the instances one by one to find the failing ones
+                    distributions = null;
+                }
             }
-            else if(instance.attribute(labelIndices[counter]).isNumeric()){
-            	isContainNumeric=true;
-            	try {
-            		confidences[counter] = ensemble[counter].classifyInstance(transformedInstance);
+            for (int i = 0; i < numInstances; i++) {
+                if (failed[i]) {
+                    continue;
+                }
+                try {
+                    predictLabel(counter, labelAttribute, batch.instance(i),
+                            distributions == null ? null : distributions[i], bipartitions[i], confidences[i]);
                 } catch (Exception e) {
                     System.out.println(e);
-                    return null;
+                    failed[i] = true;
                 }
             }
         }
+
+        MultiLabelOutput[] outputs = new MultiLabelOutput[numInstances];
+        for (int i = 0; i < numInstances; i++) {
+            if (!failed[i]) {
+                outputs[i] = createOutput(dataSet.instance(from + i), bipartitions[i], confidences[i]);
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Predicts one label of an instance
+     *
+     * @param counter the index of the label
+     * @param labelAttribute the attribute of the label
+     * @param transformedInstance the instance transformed for the model of the
+     * label
+     * @param distribution the distribution of a nominal label if it has already
+     * been predicted, null otherwise
+     * @param bipartition where the relevance of the label is stored
+     * @param confidences where the confidence of the label is stored
+     * @throws Exception if the model of the label fails
+     */
+    private void predictLabel(int counter, Attribute labelAttribute, Instance transformedInstance,
+            double[] distribution, boolean[] bipartition, double[] confidences) throws Exception {
+        if (labelAttribute.isNominal()) {
+            if (distribution == null) {
+                distribution = ensemble[counter].distributionForInstance(transformedInstance);
+            }
+            int maxIndex = (distribution[0] > distribution[1]) ? 0 : 1;
+
+            // Ensure correct predictions both for class values {0,1} and {1,0}
+            bipartition[counter] = (maxIndex == 1) ? true : false;
+
+            // The confidence of the label being equal to 1
+            confidences[counter] = distribution[1];
+        } else if (labelAttribute.isNumeric()) {
+            confidences[counter] = ensemble[counter].classifyInstance(transformedInstance);
+        }
+    }
+
+    /**
+     * Creates the output of an instance from its predicted labels
+     *
+     * @param instance the instance
+     * @param bipartition the predicted relevance of the labels
+     * @param confidences the predicted confidences or values of the labels
+     * @return the output or null if the labels are both nominal and numeric
+     */
+    private MultiLabelOutput createOutput(Instance instance, boolean[] bipartition, double[] confidences) {
+        boolean isContainBinary=false;
+        boolean isContainNumeric=false;
+        for (int counter = 0; counter < numLabels; counter++) {
+            if (instance.attribute(labelIndices[counter]).isNominal()) {
+                isContainBinary = true;
+            } else if (instance.attribute(labelIndices[counter]).isNumeric()) {
+                isContainNumeric = true;
+            }
+        }
         MultiLabelOutput mlo=null;
         if(isContainBinary && !isContainNumeric){
         	mlo= new MultiLabelOutput(bipartition, confidences);
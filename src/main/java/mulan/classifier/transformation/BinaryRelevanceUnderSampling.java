@@ -1,7 +1,5 @@
 package mulan.classifier.transformation;
 
-import mulan.data.MultiLabelInstances;
-import mulan.transformations.BinaryRelevanceTransformation;
 import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
 import weka.core.Instance;
@@ -54,48 +52,37 @@ public class BinaryRelevanceUnderSampling extends BinaryRelevance{
 	}    
 	
 
-    protected void buildInternal(MultiLabelInstances train) throws Exception {
-        ensemble = new Classifier[numLabels];
-
-        correspondence = new String[numLabels];
-        for (int i = 0; i < numLabels; i++) {
-            correspondence[i] = train.getDataSet().attribute(labelIndices[i]).name();
+    @Override
+    protected void buildLabelModel(int i) throws Exception {
+        ensemble[i] = AbstractClassifier.makeCopy(baseClassifier);
+        Instances shell = brt.transformInstances(i);
+        debug("Bulding model " + (i + 1) + "/" + numLabels);            
+        
+        int c0=0,c1=0;
+        for(Instance data:shell){
+        	if(data.stringValue(data.classIndex()).equals("1")){
+        		c1++;
+        	}
+        	else{
+        		c0++;
+        	}
         }
-
-        debug("preparing shell");
-        brt = new BinaryRelevanceTransformation(train);
-
-        for (int i = 0; i < numLabels; i++) {
-            ensemble[i] = AbstractClassifier.makeCopy(baseClassifier);
-            Instances shell = brt.transformInstances(i);
-            debug("Bulding model " + (i + 1) + "/" + numLabels);            
-            
-            int c0=0,c1=0;
-            for(Instance data:shell){
-            	if(data.stringValue(data.classIndex()).equals("1")){
-            		c1++;
-            	}
-            	else{
-            		c0++;
-            	}
-            }
-            int minNum=Math.min(c0, c1), maxNum=Math.max(c0, c1);
-            double d=maxNum*(1.0-underSamplingPercent)/minNum;
-            if(d<1.0){
-            	d=1.0;
-            }
-            
-            
-            
-            SpreadSubsampleWithMissClassValues ss=new SpreadSubsampleWithMissClassValues();
-            ss.setRandomSeed(seed);
-            ss.setDistributionSpread(d);
-            ss.setInputFormat(shell);  
-            Instances sshell = ss.useFilter(shell, ss);  
-            
-            
-            ensemble[i].buildClassifier(sshell);
+        int minNum=Math.min(c0, c1), maxNum=Math.max(c0, c1);
+        double d=maxNum*(1.0-underSamplingPercent)/minNum;
+        if(d<1.0){
+        	d=1.0;
         }
+        
+        
+        
+        SpreadSubsampleWithMissClassValues ss=new SpreadSubsampleWithMissClassValues();
+        ss.setRandomSeed(seed);
+        ss.setDistributionSpread(d);
+        ss.setInputFormat(shell);  
+        Instances sshell = ss.useFilter(shell, ss);  
+        
+        
+        ensemble[i].buildClassifier(sshell);
     }
 
 }
@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Random;
 import mulan.classifier.InvalidDataException;
 import mulan.classifier.MultiLabelOutput;
+import mulan.core.ParallelExecutor;
 import mulan.data.MultiLabelInstances;
 import weka.classifiers.Classifier;
 import weka.classifiers.trees.J48;
@@ -110,6 +111,10 @@ public class EnsembleOfClassifierChains extends TransformationBasedMultiLabelLea
     protected double samplingPercentage = 67;
 
     protected int seed=1;
+    /**
+     * The number of classifier chains that are built in parallel
+     */
+    protected int numThreads = 1;
     
     /**
      * Default constructor
@@ -136,81 +141,153 @@ public class EnsembleOfClassifierChains extends TransformationBasedMultiLabelLea
     }
 
     @Override
-    protected void buildInternal(MultiLabelInstances trainingSet) throws Exception {
+    protected void buildInternal(final MultiLabelInstances trainingSet) throws Exception {
 
-        Instances dataSet = new Instances(trainingSet.getDataSet());
+        final Instances dataSet = new Instances(trainingSet.getDataSet());
         Random rand=new Random(seed);
-        for (int i = 0; i < numOfModels; i++) {
-            debug("ECC Building Model:" + (i + 1) + "/" + numOfModels);
-            Instances sampledDataSet;
-            dataSet.randomize(rand);
-            if (useSamplingWithReplacement) {
-                int bagSize = dataSet.numInstances() * BagSizePercent / 100;
-                // create the in-bag dataset
-                sampledDataSet = dataSet.resampleWithWeights(new Random(1));
-                if (bagSize < dataSet.numInstances()) {
-                    sampledDataSet = new Instances(sampledDataSet, 0, bagSize);
-                }
-            } else {
-                RemovePercentage rmvp = new RemovePercentage();
-                rmvp.setInvertSelection(true);
-                rmvp.setPercentage(samplingPercentage);
-                rmvp.setInputFormat(dataSet);
-                sampledDataSet = Filter.useFilter(dataSet, rmvp);
+        if (numThreads <= 1) {
+            for (int i = 0; i < numOfModels; i++) {
+                debug("ECC Building Model:" + (i + 1) + "/" + numOfModels);
+                dataSet.randomize(rand);
+                MultiLabelInstances train = new MultiLabelInstances(sample(dataSet), trainingSet.getLabelsMetaData());
+                int[] chain = drawChain(rand);
+                debug(Arrays.toString(chain));
+                ensemble[i] = new ClassifierChain(baseClassifier, chain);
+                ensemble[i].build(train);
             }
-            MultiLabelInstances train = new MultiLabelInstances(sampledDataSet, trainingSet.getLabelsMetaData());
+            return;
+        }
 
-            int[] chain = new int[numLabels];
-            for (int j = 0; j < numLabels; j++) {
-                chain[j] = j;
+        // draw the order of the data and the chain of all models before
+        // building them, so that the ensemble does not depend on the number of
+        // threads. Only the orders are kept, each sample is created by the
+        // thread that builds its model.
+        final int[][] orders = new int[numOfModels][];
+        final int[][] chains = new int[numOfModels][];
+        int[] order = new int[dataSet.numInstances()];
+        for (int j = 0; j < order.length; j++) {
+            order[j] = j;
+        }
+        for (int i = 0; i < numOfModels; i++) {
+            // the same random swaps as Instances.randomize
+            for (int j = order.length - 1; j > 0; j--) {
+                int randomPosition = rand.nextInt(j + 1);
+                int temp = order[j];
+                order[j] = order[randomPosition];
+                order[randomPosition] = temp;
             }
-            for (int j = 0; j < chain.length; j++) {
-                int randomPosition = rand.nextInt(chain.length);
-                int temp = chain[j];
-                chain[j] = chain[randomPosition];
-                chain[randomPosition] = temp;
+            orders[i] = order.clone();
+            chains[i] = drawChain(rand);
+        }
+
+        ParallelExecutor.run(numOfModels, numThreads, i -> {
+            debug("ECC Building Model:" + (i + 1) + "/" + numOfModels + " " + Arrays.toString(chains[i]));
+            Instances ordered = new Instances(dataSet, orders[i].length);
+            for (int index : orders[i]) {
+                ordered.add(dataSet.instance(index));
             }
-            debug(Arrays.toString(chain));
+            orders[i] = null;
+            MultiLabelInstances train = new MultiLabelInstances(sample(ordered), trainingSet.getLabelsMetaData());
+            ensemble[i] = new ClassifierChain(baseClassifier, chains[i]);
+            ensemble[i].build(train);
+        });
+    }
 
-            // MAYBE WE SHOULD CHECK NOT TO PRODUCE THE SAME VECTOR FOR THE
-            // INDICES
-            // BUT IN THE PAPER IT DID NOT MENTION SOMETHING LIKE THAT
-            // IT JUST SIMPLY SAY A RANDOM CHAIN ORDERING OF L
+    /**
+     * Creates the training set of a model from the randomized data
+     *
+     * @param dataSet the randomized data
+     * @return a bag or a percentage of the data
+     * @throws Exception if sampling fails
+     */
+    private Instances sample(Instances dataSet) throws Exception {
+        Instances sampledDataSet;
+        if (useSamplingWithReplacement) {
+            int bagSize = dataSet.numInstances() * BagSizePercent / 100;
+            // create the in-bag dataset
+            sampledDataSet = dataSet.resampleWithWeights(new Random(1));
+            if (bagSize < dataSet.numInstances()) {
+                sampledDataSet = new Instances(sampledDataSet, 0, bagSize);
+            }
+        } else {
+            RemovePercentage rmvp = new RemovePercentage();
+            rmvp.setInvertSelection(true);
+            rmvp.setPercentage(samplingPercentage);
+            rmvp.setInputFormat(dataSet);
+            sampledDataSet = Filter.useFilter(dataSet, rmvp);
+        }
+        return sampledDataSet;
+    }
 
-            ensemble[i] = new ClassifierChain(baseClassifier, chain);
-            ensemble[i].build(train);
+    /**
+     * Draws a random chain ordering of the labels
+     *
+     * @param rand the random number generator
+     * @return the chain
+     */
+    private int[] drawChain(Random rand) {
+        int[] chain = new int[numLabels];
+        for (int j = 0; j < numLabels; j++) {
+            chain[j] = j;
         }
+        for (int j = 0; j < chain.length; j++) {
+            int randomPosition = rand.nextInt(chain.length);
+            int temp = chain[j];
+            chain[j] = chain[randomPosition];
+            chain[randomPosition] = temp;
+        }
+
+        // MAYBE WE SHOULD CHECK NOT TO PRODUCE THE SAME VECTOR FOR THE
+        // INDICES
+        // BUT IN THE PAPER IT DID NOT MENTION SOMETHING LIKE THAT
+        // IT JUST SIMPLY SAY A RANDOM CHAIN ORDERING OF L
+        return chain;
+    }
+
+    /**
+     * Sets the number of classifier chains that are built in parallel
+     *
+     * @param numThreads the number of threads (1 builds the chains one after
+     * another)
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
 
+    /**
+     * Returns the number of classifier chains that are built in parallel
+     *
+     * @return the number of threads
+     */
+    public int getNumThreads() {
+        return numThreads;
     }
 
     @Override
     protected MultiLabelOutput makePredictionInternal(Instance instance) throws Exception,
             InvalidDataException {
 
-        int[] sumVotes = new int[numLabels];
-        double[] sumConf = new double[numLabels];
-
-        Arrays.fill(sumVotes, 0);
-        Arrays.fill(sumConf, 0);
-
+        // sum the votes or confidences directly into the output
+        double[] confidence = new double[numLabels];
         for (int i = 0; i < numOfModels; i++) {
             MultiLabelOutput ensembleMLO = ensemble[i].makePrediction(instance);
-            boolean[] bip = ensembleMLO.getBipartition();
-            double[] conf = ensembleMLO.getConfidences();
-
-            for (int j = 0; j < numLabels; j++) {
-                sumVotes[j] += bip[j] == true ? 1 : 0;
-                sumConf[j] += conf[j];
+            if (useConfidences) {
+                double[] conf = ensembleMLO.getConfidences();
+                for (int j = 0; j < numLabels; j++) {
+                    confidence[j] += conf[j];
+                }
+            } else {
+                boolean[] bip = ensembleMLO.getBipartition();
+                for (int j = 0; j < numLabels; j++) {
+                    if (bip[j]) {
+                        confidence[j]++;
+                    }
+                }
             }
         }
 
-        double[] confidence = new double[numLabels];
         for (int j = 0; j < numLabels; j++) {
-            if (useConfidences) {
-                confidence[j] = sumConf[j] / numOfModels;
-            } else {
-                confidence[j] = sumVotes[j] / (double) numOfModels;
-            }
+            confidence[j] /= numOfModels;
         }
 
         MultiLabelOutput mlo = new MultiLabelOutput(confidence, 0.5);
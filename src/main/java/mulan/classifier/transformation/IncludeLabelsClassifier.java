@@ -45,6 +45,10 @@ public class IncludeLabelsClassifier extends TransformationBasedMultiLabelLearne
      * it is reused during prediction.
      */
     protected Instances transformed;
+    /**
+     * The number of threads used to transform the training set
+     */
+    protected int numThreads = 1;
 
     /**
      * Constructor that initializes a new learner with the given base classifier
@@ -61,12 +65,30 @@ public class IncludeLabelsClassifier extends TransformationBasedMultiLabelLearne
         //and generate the classifier
         pt6Trans = new IncludeLabelsTransformation();
         debug("Transforming the dataset");
-        transformed = pt6Trans.transformInstances(mlData);
+        transformed = pt6Trans.transformInstances(mlData, numThreads);
         debug("Building the base-level classifier");
         baseClassifier.buildClassifier(transformed);
         transformed.delete();
     }
 
+    /**
+     * Sets the number of threads used to transform the training set
+     *
+     * @param numThreads the number of threads
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Returns the number of threads used to transform the training set
+     *
+     * @return the number of threads
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
     protected MultiLabelOutput makePredictionInternal(Instance instance) throws Exception {
         double[] confidences = new double[numLabels];
         boolean[] bipartition = new boolean[numLabels];
@@ -33,7 +33,7 @@ import weka.core.Instances;
  *
  * @author Grigorios Tsoumakas
  * @author Robert Friberg
- * @version 2012.02.27
+ * @version 2026.10.18
  */
 public class LabelPowerset extends TransformationBasedMultiLabelLearner {
 
@@ -67,6 +67,11 @@ public class LabelPowerset extends TransformationBasedMultiLabelLearner {
      * Random number generator for randomly solving tied predictions
      */
     protected Random Rand;
+    /**
+     * The seed for solving tied predictions, combined with the features of
+     * each instance
+     */
+    private int seed = 1;
 
     /**
      * Conststructor that initializes the learner with a base classifier
@@ -93,6 +98,7 @@ public class LabelPowerset extends TransformationBasedMultiLabelLearner {
      * @param s the seed
      */
     public void setSeed(int s) {
+        seed = s;
         Rand = new Random(s);
     }
 
@@ -131,19 +137,29 @@ public class LabelPowerset extends TransformationBasedMultiLabelLearner {
         }
     }
 
+    /**
+     * Combines the seed with the feature values of an instance
+     *
+     * @param instance the instance to predict
+     * @return the seed for solving the tied predictions of the instance
+     */
+    private long tieBreakingSeed(Instance instance) {
+        long hash = seed;
+        for (int index : featureIndices) {
+            long h = (hash ^ Double.doubleToLongBits(instance.value(index))) * 0x9E3779B97F4A7C15L;
+            hash = h ^ (h >>> 29);
+        }
+        return hash;
+    }
+
     protected MultiLabelOutput makePredictionInternal(Instance instance) throws Exception {
         boolean bipartition[] = null;
         double confidences[] = null;
 
+        LabelSet[] classLabelSets = transformation.getClassLabelSets();
         // check for unary class
-        if (transformation.getTransformedFormat().classAttribute().numValues() == 1) {
-            String strClass = transformation.getTransformedFormat().classAttribute().value(0);
-            LabelSet labelSet = null;
-            try {
-                labelSet = LabelSet.fromBitString(strClass);
-            } catch (Exception ex) {
-                Logger.getLogger(LabelPowerset.class.getName()).log(Level.SEVERE, null, ex);
-            }
+        if (classLabelSets.length == 1) {
+            LabelSet labelSet = classLabelSets[0];
             bipartition = labelSet.toBooleanArray();
             confidences = labelSet.toDoubleArray();
         } else {
@@ -157,15 +173,12 @@ public class LabelPowerset extends TransformationBasedMultiLabelLearner {
             } catch (Exception ex) {
                 Logger.getLogger(LabelPowerset.class.getName()).log(Level.SEVERE, null, ex);
             }
+            // ties are solved depending on the instance only, not on the
+            // instances predicted before it
+            Rand.setSeed(tieBreakingSeed(instance));
             int classIndex = Util.RandomIndexOfMax(distribution, Rand);
             //debug("" + classIndex);
-            String strClass = (transformation.getTransformedFormat().classAttribute()).value(classIndex);
-            LabelSet labelSet = null;
-            try {
-                labelSet = LabelSet.fromBitString(strClass);
-            } catch (Exception ex) {
-                Logger.getLogger(LabelPowerset.class.getName()).log(Level.SEVERE, null, ex);
-            }
+            LabelSet labelSet = classLabelSets[classIndex];
 
             bipartition = labelSet.toBooleanArray();
             //debug(Arrays.toString(bipartition));
@@ -183,19 +196,11 @@ public class LabelPowerset extends TransformationBasedMultiLabelLearner {
                     break;
                 case 2:
                     confidences = new double[numLabels];
+                    int[][] classMembers = transformation.getClassMembers();
                     for (int i = 0; i < distribution.length; i++) {
-                        strClass = (transformation.getTransformedFormat().classAttribute()).value(i);
-                        try {
-                            labelSet = LabelSet.fromBitString(strClass);
-                        } catch (Exception ex) {
-                            Logger.getLogger(LabelPowerset.class.getName()).log(Level.SEVERE, null, ex);
-                        }
-                        double[] predictionsTemp = labelSet.toDoubleArray();
                         double confidence = distribution[i];
-                        for (int j = 0; j < numLabels; j++) {
-                            if (predictionsTemp[j] == 1) {
-                                confidences[j] += confidence;
-                            }
+                        for (int j : classMembers[i]) {
+                            confidences[j] += confidence;
                         }
                     }
             }
@@ -0,0 +1,96 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a number of independent, indexed tasks on a bounded number of threads.
+ * Tasks are started in the order of their indices. With a single thread, the
+ * tasks are run one after another in the calling thread.
+ *
+ * @version 2026.10.17
+ */
+public final class ParallelExecutor {
+
+    /**
+     * A task that is identified by its index
+     */
+    public interface Task {
+
+        /**
+         * Runs the task
+         *
+         * @param index the index of the task
+         * @throws Exception if the task fails
+         */
+        void run(int index) throws Exception;
+    }
+
+    private ParallelExecutor() {
+    }
+
+    /**
+     * Runs the tasks 0, ..., numTasks - 1 on at most numThreads threads and
+     * waits until all of them have finished. If a task fails, the tasks that
+     * have not been started yet are cancelled and the failure is rethrown.
+     *
+     * @param numTasks the number of tasks
+     * @param numThreads the maximum number of tasks to run at the same time
+     * @param task the task to run for each index
+     * @throws Exception the exception of the first failed task
+     */
+    public static void run(int numTasks, int numThreads, final Task task) throws Exception {
+        if (numThreads <= 1 || numTasks <= 1) {
+            for (int i = 0; i < numTasks; i++) {
+                task.run(i);
+            }
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(numThreads, numTasks));
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(numTasks);
+            for (int i = 0; i < numTasks; i++) {
+                final int index = i;
+                futures.add(pool.submit(() -> {
+                    task.run(index);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    for (Future<Void> other : futures) {
+                        other.cancel(true);
+                    }
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw new MulanRuntimeException("Parallel task failed.", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -22,10 +22,10 @@ package mulan.data;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import mulan.core.ParallelExecutor;
 import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
 import weka.classifiers.meta.FilteredClassifier;
@@ -56,28 +56,46 @@ public class ConditionalDependenceIdentifier implements LabelPairsDependenceIden
     private int numFolds = 10;
     /** Seed for replication of random experiments*/
     protected int seed;
-    /** A caching mechanism for reusing once constructed models. */
-    private static HashMap<String, FilteredClassifier> existingModels=null;
+    /** The number of threads that test the labels. */
+    private int numThreads = 1;
 
     /**
-     *  Initializes a single-label classifier used to perform dependence test between labels and a caching mechanism for reusing constructed models.
+     *  Initializes a single-label classifier used to perform dependence test between labels.
      * @param classifier - a single-label classifier used to perform dependence test between labels.
      */
     public ConditionalDependenceIdentifier(Classifier classifier) {
         baseLearner = classifier;
-        if (existingModels==null){
-            existingModels = new HashMap<String,FilteredClassifier>();
-        }
     }
 
     /**
-     *  Calculates t-statistic value for each pair of labels.
+     *  Calculates t-statistic value for each pair of labels. The cross-validation folds are created once and the labels are
+     *  tested in parallel, each of them against all other labels, so that the independent model of a label is built only once per fold.
      *
      * @param mlInstances the {@link mulan.data.MultiLabelInstances} dataset on which dependencies should be calculated
      * @return an array of label pairs sorted in descending order of the t-statistic value
      */
     public LabelsPair[] calculateDependence(MultiLabelInstances mlInstances){
-        int numLabels = mlInstances.getNumLabels();
+        final int numLabels = mlInstances.getNumLabels();
+        final int[] labelIndices = mlInstances.getLabelIndices();
+        final double[][] values = new double[numLabels][numLabels];                                                    //values[i][j] holds the dependency test for classes  i  and  j
+        for (double[] row : values) {
+            Arrays.fill(row, -1);
+        }
+        final Instances[] trainSets = new Instances[numFolds];
+        final Instances[] testSets = new Instances[numFolds];
+        Instances workingSet = new Instances(mlInstances.getDataSet());
+        Random random = new Random(seed);
+        workingSet.randomize(random);                                                                                                     //randomize numFolds train-test pairs
+        for (int i=0; i<numFolds; i++) {
+            trainSets[i] = workingSet.trainCV(numFolds, i, random);
+            testSets[i]  = workingSet.testCV(numFolds, i);
+        }
+        try {
+            ParallelExecutor.run(numLabels, numThreads, label -> testDependence(label, labelIndices, trainSets, testSets, values[label]));
+        } catch (Exception e) {
+            Logger.getLogger(ConditionalDependenceIdentifier.class.getSimpleName()).log(Level.SEVERE, null, e);
+        }
+
         int numPairs = numLabels*(numLabels-1)/2;
         LabelsPair[] pairs = new  LabelsPair[numPairs];
         int ind=0;
@@ -89,8 +107,8 @@ public class ConditionalDependenceIdentifier implements LabelPairsDependenceIden
                 comb1[1] = j;
                 comb2[0] = j;
                 comb2[1] = i;
-                double val1 = testDependence(comb1, mlInstances, numFolds);                                   // dependency test for classes  i  and  j
-                double val2 = testDependence(comb2, mlInstances, numFolds);                                  // dependency test for classes  j  and  i
+                double val1 = values[i][j];
+                double val2 = values[j][i];
                 if(val1>=val2){                                                                                                                               //add a pair with MAXIMAL value to the results object
                     pairs[ind++] = new LabelsPair(comb1, val1);
                 }
@@ -104,91 +122,66 @@ public class ConditionalDependenceIdentifier implements LabelPairsDependenceIden
     }
 
     /**
-     *  Performs dependency test between two labels.
+     *  Performs dependency tests between a label and each other label. The folds are copied, so that each label can set its own class index.
      *
-     * @param comb an array with indexes of the two labels for the test
-     * @param mlData the {@link mulan.data.MultiLabelInstances} dataset on which dependencies should be calculated
-     * @param numFolds number of folds used for cross validation
-     * @return a value indicating the level of dependence between two labels. As higher is value as more conditionally dependent are the labels. For independent labels "-1" is returned.
+     * @param label the index of the label tested as class
+     * @param labelIndices the indices of the label attributes
+     * @param trainSets the training set of each fold
+     * @param testSets the test set of each fold
+     * @param values an array where the value of the test with each other label is stored. As higher is value as more conditionally
+     * dependent are the labels. For independent labels or a failed test "-1" is stored.
      */
-    private double testDependence(int[] comb, MultiLabelInstances mlData, int numFolds) {
-        double[] acc1 = null;
-        double[] acc2 = null;
-        double val;
+    private void testDependence(int label, int[] labelIndices, Instances[] trainSets, Instances[] testSets, double[] values) {
+        int numLabels = labelIndices.length;
+        int classIndex = labelIndices[label];
+        Instances[] trainCopies = new Instances[numFolds];
+        Instances[] testCopies = new Instances[numFolds];
+        double[] acc1 = new double[numFolds];
         try{
-            int numLabels = mlData.getNumLabels();
-            int[] indecesToRemove1;
-            int[] indecesToRemove2;
-            int classIndex;
-            final int[] labelIndices = mlData.getLabelIndices();
-            Instances[] trainSets = new Instances[numFolds];
-            Instances[] testSets = new Instances[numFolds];
-            weka.classifiers.Evaluation[] eval = new weka.classifiers.Evaluation[numFolds];
-            weka.classifiers.Evaluation[] eval2 = new weka.classifiers.Evaluation[numFolds];
-            acc1 = new double[numFolds];
-            acc2 = new double[numFolds];
-            Instances workingSet = new Instances(mlData.getDataSet());
-            Random random = new Random(seed);
-            workingSet.randomize(random);                                                                                                     //randomize numFolds train-test pairs
-            for (int i=0; i<numFolds; i++)                                                                                                       //build dependent and independent models on each fold
-            {
-                trainSets[i] = workingSet.trainCV(numFolds, i, random);
-                testSets[i]  = workingSet.testCV(numFolds, i);
-                classIndex = labelIndices[comb[0]];
-                indecesToRemove1 = new int[numLabels-1];                                                                            //prepare indexes to build independent  model   (x -> L1)
-                int counter2 = 0;
-                for (int counter1 = 0; counter1<numLabels; counter1++){
-                    if(counter1!=comb[0]){
-                        indecesToRemove1[counter2] = labelIndices[counter1];
-                        counter2++;
-                    }
-                }
-                FilteredClassifier indepModel;
-                int foldHash = trainSets[i].toString().hashCode();
-                String modelKey = createKey(indecesToRemove1, foldHash);
-                if (existingModels.containsKey(modelKey))  {
-                    indepModel=existingModels.get(modelKey);                                                                   //Retrieving model from cache
+            int[] indecesToRemove1 = new int[numLabels-1];                                                                               //prepare indexes to build independent  model   (x -> L1)
+            int counter2 = 0;
+            for (int counter1 = 0; counter1<numLabels; counter1++){
+                if(counter1!=label){
+                    indecesToRemove1[counter2] = labelIndices[counter1];
+                    counter2++;
                 }
-                else{
-                    indepModel = buildModel(indecesToRemove1,classIndex, trainSets[i]);            //Building independent model for L1
-                }
-                indecesToRemove2 = new int[numLabels-2];                                                                           //prepare indexes to build dependent model  (x, L2 - > L1)
-                counter2 = 0;
-                for (int counter1 = 0; counter1<numLabels; counter1++){
-                    if((counter1!=comb[0]) && (counter1!=comb[1])){
-                        indecesToRemove2[counter2] = labelIndices[counter1];
-                        counter2++;
-                    }
-                }
-                FilteredClassifier depModel = buildModel(indecesToRemove2,                              //Building depend model for the L1 label
-                        classIndex, trainSets[i]);
-
-                //evaluate independent model
-                Instances filteredTrainData = prepareDatSet(indecesToRemove1,classIndex,trainSets[i]);
-                Instances filteredTestData = prepareDatSet(indecesToRemove1,classIndex,testSets[i]);
-                eval[i] = new weka.classifiers.Evaluation(filteredTrainData);
-                eval[i].evaluateModel(indepModel, filteredTestData);
-                acc1[i] = eval[i]. pctCorrect();
-
-                //evaluate  dependent model
-                Instances filteredTrainData2 = prepareDatSet(indecesToRemove2,classIndex,trainSets[i]);
-                Instances filteredTestData2 = prepareDatSet(indecesToRemove2,classIndex,testSets[i]);
-                eval2[i] = new weka.classifiers.Evaluation(filteredTrainData2);
-                eval2[i].evaluateModel(depModel, filteredTestData2);
-                acc2[i] = eval2[i]. pctCorrect();
+            }
+            for (int i=0; i<numFolds; i++) {                                                                                                    //build and evaluate the independent model on each fold
+                trainCopies[i] = new Instances(trainSets[i]);
+                trainCopies[i].setClassIndex(classIndex);
+                testCopies[i] = new Instances(testSets[i]);
+                testCopies[i].setClassIndex(classIndex);
+                FilteredClassifier indepModel = buildModel(indecesToRemove1, trainCopies[i]);                 //Building independent model for L1
+                acc1[i] = evaluateModel(indepModel, trainCopies[i], testCopies[i]);
             }
         } catch (Exception e) {
             Logger.getLogger(ConditionalDependenceIdentifier.class.getSimpleName()).log(Level.SEVERE, null, e);
+            return;
         }
-        finally{
-            if(acc1==null || acc2==null){
-                val = -1;
+
+        for (int other = 0; other < numLabels; other++) {
+            if (other == label) {
+                continue;
             }
-            else{
-                val = applyTtest(acc1,acc2);                                                                                                       // /t-test on evaluation results
+            try{
+                int[] indecesToRemove2 = new int[numLabels-2];                                                                           //prepare indexes to build dependent model  (x, L2 - > L1)
+                int counter2 = 0;
+                for (int counter1 = 0; counter1<numLabels; counter1++){
+                    if((counter1!=label) && (counter1!=other)){
+                        indecesToRemove2[counter2] = labelIndices[counter1];
+                        counter2++;
+                    }
+                }
+                double[] acc2 = new double[numFolds];
+                for (int i=0; i<numFolds; i++) {
+                    FilteredClassifier depModel = buildModel(indecesToRemove2, trainCopies[i]);                 //Building depend model for the L1 label
+                    acc2[i] = evaluateModel(depModel, trainCopies[i], testCopies[i]);
+                }
+                values[other] = applyTtest(acc1, acc2);                                                                                     // /t-test on evaluation results
+            } catch (Exception e) {
+                Logger.getLogger(ConditionalDependenceIdentifier.class.getSimpleName()).log(Level.SEVERE, null, e);
             }
         }
-        return val;
     }
 
     /**
@@ -240,12 +233,11 @@ public class ConditionalDependenceIdentifier implements LabelPairsDependenceIden
      * Creating classification model.
      *
      * @param indicesToRemove indexes of labels to be removed from dataset
-     * @param classIndex index of the label tested as class
-     * @param trainDataset the {@link weka.core.Instances} dataset on which the model should be learned
+     * @param trainDataset the {@link weka.core.Instances} dataset on which the model should be learned, with the tested label as class
      * @return {@link weka.classifiers.meta.FilteredClassifier} classification model
      * @throws Exception if creating the classification model fails
      */
-    private FilteredClassifier buildModel(int[] indicesToRemove, int classIndex, Instances trainDataset) throws Exception {
+    private FilteredClassifier buildModel(int[] indicesToRemove, Instances trainDataset) throws Exception {
         FilteredClassifier model = new FilteredClassifier();
         model.setClassifier( AbstractClassifier.makeCopy(baseLearner));
         Remove remove = new Remove();
@@ -253,47 +245,23 @@ public class ConditionalDependenceIdentifier implements LabelPairsDependenceIden
         remove.setInputFormat(trainDataset);
         remove.setInvertSelection(false);
         model.setFilter(remove);
-        trainDataset.setClassIndex(classIndex);
         model.buildClassifier(trainDataset);
-        int foldHash = trainDataset.toString().hashCode();
-        String modelKey = createKey(indicesToRemove, foldHash);
-        existingModels.put(modelKey, model);
         return model;
     }
 
     /**
-     * Concatenate all integers from an array with additional integer into a single string.
-     *
-     * @param set an array representing labels subset
-     * @param fold a hash code of the current training set
-     * @return a string in the form: "_l1_l2_ ... ln_fold"
-     */
-    private String createKey(int[] set, int fold) {
-        StringBuilder sb = new StringBuilder("_");
-        for (int i : set){
-            sb.append(i);
-            sb.append("_");
-        }
-        sb.append(fold);
-        return  sb.toString();
-    }
-
-    /**
-     * Removes the specified features from the supplied dataset, and set the specified feature as class.
+     * Evaluates a classification model.
      *
-     * @param indicesToRemove indexes of labels to be removed from the initial dataset
-     * @param classIndex index of the class label
-     * @param dataset the initial {@link weka.core.Instances} dataset
-     * @return {@link weka.core.Instances} filtered dataset with set classIndex
-     * @throws Exception if removal has failed
+     * @param model the model to evaluate
+     * @param trainDataset the {@link weka.core.Instances} dataset on which the model was learned
+     * @param testDataset the {@link weka.core.Instances} dataset on which the model is evaluated
+     * @return the percentage of correctly classified test instances
+     * @throws Exception if the evaluation fails
      */
-    private Instances prepareDatSet(int[] indicesToRemove, int classIndex, Instances dataset) throws Exception {
-        Remove remove = new Remove();
-        remove.setAttributeIndicesArray(indicesToRemove);
-        remove.setInputFormat(dataset);
-        remove.setInvertSelection(false);
-        dataset.setClassIndex(classIndex);
-        return dataset;
+    private double evaluateModel(FilteredClassifier model, Instances trainDataset, Instances testDataset) throws Exception {
+        weka.classifiers.Evaluation eval = new weka.classifiers.Evaluation(trainDataset);
+        eval.evaluateModel(model, testDataset);
+        return eval.pctCorrect();
     }
 
     /**
@@ -339,4 +307,20 @@ public class ConditionalDependenceIdentifier implements LabelPairsDependenceIden
     public void setNumFolds(int numFolds) {
         this.numFolds = numFolds;
     }
+
+    /**
+     *
+     * @return The number of threads that test the labels
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     *
+     * @param numThreads the number of threads that test the labels (1 tests them in the calling thread)
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
 }
@@ -4,8 +4,6 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashMap;
 
-import weka.core.Instance;
-import weka.core.Instances;
 import weka.core.TechnicalInformation;
 import weka.core.TechnicalInformationHandler;
 
@@ -185,25 +183,15 @@ public class ImbalancedStatistics implements Serializable, TechnicalInformationH
 	public void calculateC0C1(MultiLabelInstances mlData){
 		int numInstances = mlData.getNumInstances();
         int numLabels = mlData.getNumLabels();
-        int[] labelIndices = mlData.getLabelIndices();
-        Instances dataSet=mlData.getDataSet();
+        LabelMatrix labels = mlData.getLabelMatrix();
         
 		c1=new int[numLabels];
 		c0=new int[numLabels];
 		 //calculate c1, c0
-        for (int i = 0; i < numInstances; i++) {
-        	Instance ins=dataSet.get(i);
-        	for (int j = 0; j < numLabels; j++) {    
-        		/* Returns the value of a nominal, string, date, 
-        		  or relational attribute for the instance as a string. */
-        		if (ins.stringValue(labelIndices[j]).equals("1")) {
-                    c1[j]++;
-                }
-        		else if(ins.stringValue(labelIndices[j]).equals("0")){
-        			c0[j]++;
-        		}
-            }
-        }  
+        for (int j = 0; j < numLabels; j++) {
+            c1[j] = labels.getLabelCount(j);
+            c0[j] = numInstances - c1[j] - labels.getMissingCount(j);
+        }
         maxC1=Arrays.stream(c1).max().getAsInt();
 	}
 	
@@ -228,8 +216,7 @@ public class ImbalancedStatistics implements Serializable, TechnicalInformationH
 	public void calculateImSta(MultiLabelInstances mlData){
     	int numInstances = mlData.getNumInstances();
         int numLabels = mlData.getNumLabels();
-        int[] labelIndices = mlData.getLabelIndices();
-        Instances dataSet=mlData.getDataSet();
+        LabelMatrix labels = mlData.getLabelMatrix();
         
         c1=new int[numLabels];
         c0=new int[numLabels];
@@ -245,19 +232,10 @@ public class ImbalancedStatistics implements Serializable, TechnicalInformationH
         SCUMBLE=0;
         
         //calculate c1, c0
-        for (int i = 0; i < numInstances; i++) {
-        	Instance ins=dataSet.get(i);
-        	for (int j = 0; j < numLabels; j++) {    
-        		/* Returns the value of a nominal, string, date, 
-        		  or relational attribute for the instance as a string. */
-        		if (ins.stringValue(labelIndices[j]).equals("1")) {
-                    c1[j]++;
-                }
-        		else if(ins.stringValue(labelIndices[j]).equals("0")){
-        			c0[j]++;
-        		}
-            }
-        }        
+        for (int j = 0; j < numLabels; j++) {
+            c1[j] = labels.getLabelCount(j);
+            c0[j] = numInstances - c1[j] - labels.getMissingCount(j);
+        }
         maxC1=Arrays.stream(c1).max().getAsInt();
         
         //calculate IRLbls and ImRs
@@ -322,11 +300,10 @@ public class ImbalancedStatistics implements Serializable, TechnicalInformationH
         //calculate SCUMBLE, SCUMBLEs
         SCUMBLE=0;
         for(int i=0;i<numInstances;i++){
-        	Instance ins=dataSet.get(i);
         	double pro=1,ave=0;
         	int c=0;
         	for(int j=0;j<numLabels;j++){
-        		if(ins.stringValue(labelIndices[j]).equals("1")){
+        		if(labels.isRelevant(i, j)){
         			pro*=IRLbls[j];  //Do not considering Double.MAX_VALUE
         			ave+=IRLbls[j];
         			c++;
@@ -0,0 +1,165 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.data;
+
+import java.util.BitSet;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * An immutable n x L matrix with the relevance of each label for each instance
+ * of a multi-label dataset, together with a mask of the missing label values.
+ * A label is relevant if its value is the nominal value "1"; missing values and
+ * numeric labels are not relevant. <p>
+ *
+ * The matrix is stored row by row in a byte array, so that labels can be read
+ * without string comparisons.
+ *
+ * @version 2026.10.17
+ */
+public final class LabelMatrix {
+
+    private final int numInstances;
+    private final int numLabels;
+    /** 1 for a relevant label, 0 otherwise, row by row */
+    private final byte[] relevance;
+    /** the positions of the missing values, row by row */
+    private final BitSet missing;
+    /** the number of instances for which each label is relevant */
+    private final int[] labelCounts;
+    /** the number of instances for which each label is missing */
+    private final int[] missingCounts;
+    private final long numRelevant;
+
+    /**
+     * Reads the labels of a dataset
+     *
+     * @param dataSet the dataset
+     * @param labelIndices the indices of the label attributes
+     */
+    LabelMatrix(Instances dataSet, int[] labelIndices) {
+        numInstances = dataSet.numInstances();
+        numLabels = labelIndices.length;
+        relevance = new byte[numInstances * numLabels];
+        missing = new BitSet();
+        labelCounts = new int[numLabels];
+        missingCounts = new int[numLabels];
+
+        // the index of the nominal value "1" of each label, -1 if there is none
+        int[] indexOfOne = new int[numLabels];
+        for (int j = 0; j < numLabels; j++) {
+            Attribute attribute = dataSet.attribute(labelIndices[j]);
+            indexOfOne[j] = attribute.isNominal() ? attribute.indexOfValue("1") : -1;
+        }
+
+        long relevant = 0;
+        for (int i = 0; i < numInstances; i++) {
+            Instance instance = dataSet.instance(i);
+            for (int j = 0; j < numLabels; j++) {
+                double value = instance.value(labelIndices[j]);
+                if (Double.isNaN(value)) {
+                    missing.set(i * numLabels + j);
+                    missingCounts[j]++;
+                } else if (indexOfOne[j] != -1 && (int) value == indexOfOne[j]) {
+                    relevance[i * numLabels + j] = 1;
+                    labelCounts[j]++;
+                    relevant++;
+                }
+            }
+        }
+        numRelevant = relevant;
+    }
+
+    /**
+     * @return the number of instances
+     */
+    public int getNumInstances() {
+        return numInstances;
+    }
+
+    /**
+     * @return the number of labels
+     */
+    public int getNumLabels() {
+        return numLabels;
+    }
+
+    /**
+     * @param instanceIndex the index of an instance
+     * @param labelIndex the index of a label (starting from 0)
+     * @return whether the label is relevant for the instance
+     */
+    public boolean isRelevant(int instanceIndex, int labelIndex) {
+        return relevance[instanceIndex * numLabels + labelIndex] == 1;
+    }
+
+    /**
+     * @param instanceIndex the index of an instance
+     * @param labelIndex the index of a label (starting from 0)
+     * @return whether the value of the label is missing for the instance
+     */
+    public boolean isMissing(int instanceIndex, int labelIndex) {
+        return missing.get(instanceIndex * numLabels + labelIndex);
+    }
+
+    /**
+     * @param instanceIndex the index of an instance
+     * @return whether the instance has missing labels
+     */
+    public boolean hasMissingLabels(int instanceIndex) {
+        int from = instanceIndex * numLabels;
+        int next = missing.nextSetBit(from);
+        return next != -1 && next < from + numLabels;
+    }
+
+    /**
+     * @param instanceIndex the index of an instance
+     * @return a new array with the relevance of each label for the instance
+     */
+    public boolean[] getRelevance(int instanceIndex) {
+        boolean[] labels = new boolean[numLabels];
+        int from = instanceIndex * numLabels;
+        for (int j = 0; j < numLabels; j++) {
+            labels[j] = relevance[from + j] == 1;
+        }
+        return labels;
+    }
+
+    /**
+     * @param labelIndex the index of a label (starting from 0)
+     * @return the number of instances for which the label is relevant
+     */
+    public int getLabelCount(int labelIndex) {
+        return labelCounts[labelIndex];
+    }
+
+    /**
+     * @param labelIndex the index of a label (starting from 0)
+     * @return the number of instances for which the value of the label is
+     * missing
+     */
+    public int getMissingCount(int labelIndex) {
+        return missingCounts[labelIndex];
+    }
+
+    /**
+     * @return the number of relevant labels over all instances
+     */
+    public long getNumRelevant() {
+        return numRelevant;
+    }
+}
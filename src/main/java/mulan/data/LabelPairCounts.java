@@ -0,0 +1,139 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.data;
+
+import mulan.core.ParallelExecutor;
+
+/**
+ * The 2 x 2 contingency tables of all pairs of labels of a dataset. The label
+ * columns are packed into bitsets, so that the number of instances where two
+ * labels are both relevant is counted with one bitwise and plus a population
+ * count per 64 instances. The pairs of a label can be counted in parallel.
+ *
+ * @version 2026.10.17
+ */
+public final class LabelPairCounts {
+
+    private final int numInstances;
+    private final int numLabels;
+    /** the number of instances for which each label is relevant */
+    private final int[] counts;
+    /** the number of instances for which both labels are relevant */
+    private final int[][] jointCounts;
+
+    private LabelPairCounts(int numInstances, int[] counts, int[][] jointCounts) {
+        this.numInstances = numInstances;
+        this.numLabels = counts.length;
+        this.counts = counts;
+        this.jointCounts = jointCounts;
+    }
+
+    /**
+     * Counts the label pairs of a dataset
+     *
+     * @param labels the labels of the dataset
+     * @param missingAsRelevant whether missing label values count as relevant
+     * @param numThreads the number of threads to count the pairs of different
+     * labels with
+     * @return the counts
+     * @throws Exception if counting fails
+     */
+    public static LabelPairCounts count(LabelMatrix labels, boolean missingAsRelevant, int numThreads) throws Exception {
+        final int numInstances = labels.getNumInstances();
+        final int numLabels = labels.getNumLabels();
+        final int numWords = (numInstances + 63) >>> 6;
+
+        final long[][] columns = new long[numLabels][numWords];
+        for (int i = 0; i < numInstances; i++) {
+            long bit = 1L << i;
+            for (int j = 0; j < numLabels; j++) {
+                if (labels.isRelevant(i, j) || (missingAsRelevant && labels.isMissing(i, j))) {
+                    columns[j][i >>> 6] |= bit;
+                }
+            }
+        }
+
+        final int[] counts = new int[numLabels];
+        final int[][] jointCounts = new int[numLabels][numLabels];
+        ParallelExecutor.run(numLabels, numThreads, j -> {
+            long[] column = columns[j];
+            for (int k = j; k < numLabels; k++) {
+                long[] other = columns[k];
+                int joint = 0;
+                for (int w = 0; w < numWords; w++) {
+                    joint += Long.bitCount(column[w] & other[w]);
+                }
+                jointCounts[j][k] = joint;
+                jointCounts[k][j] = joint;
+            }
+            counts[j] = jointCounts[j][j];
+        });
+        return new LabelPairCounts(numInstances, counts, jointCounts);
+    }
+
+    /**
+     * @return the number of instances
+     */
+    public int getNumInstances() {
+        return numInstances;
+    }
+
+    /**
+     * @return the number of labels
+     */
+    public int getNumLabels() {
+        return numLabels;
+    }
+
+    /**
+     * @param label the index of a label (starting from 0)
+     * @return the number of instances for which the label is relevant
+     */
+    public int getCount(int label) {
+        return counts[label];
+    }
+
+    /**
+     * @param first the index of a label (starting from 0)
+     * @param second the index of a label (starting from 0)
+     * @return the number of instances for which both labels are relevant
+     */
+    public int getJointCount(int first, int second) {
+        return jointCounts[first][second];
+    }
+
+    /**
+     * Computes the phi correlation of two labels, which is NaN if either of
+     * them is relevant for all or for none of the instances
+     *
+     * @param first the index of a label (starting from 0)
+     * @param second the index of a label (starting from 0)
+     * @return the phi correlation
+     */
+    public double getPhi(int first, int second) {
+        // a: neither label, b: only the first, c: only the second, d: both
+        int d = jointCounts[first][second];
+        int b = counts[first] - d;
+        int c = counts[second] - d;
+        int a = numInstances - b - c - d;
+        double e = a + b;
+        double f = c + d;
+        double g = a + c;
+        double h = b + d;
+        double nominator = (double) a * d - (double) b * c;
+        return nominator / Math.sqrt(e * f * g * h);
+    }
+}
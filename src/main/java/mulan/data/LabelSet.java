@@ -22,7 +22,7 @@ package mulan.data;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import weka.core.Utils;
+import java.util.Arrays;
 
 /**
  * Class that handles labelsets <p>
@@ -33,14 +33,27 @@ import weka.core.Utils;
  */
 public class LabelSet implements Serializable, Comparable<LabelSet> {
 
-    private static final long serialVersionUID = 7658871740607834759L;
+    private static final long serialVersionUID = -2419623917734460381L;
     /**
-     * The set is represented internally as an array of integers.
-     * Weka uses doubles but we choose integers for fast comparisons.
+     * The set is represented internally as a bitset packed into longs, bit
+     * (i % 64) of word (i / 64) being set iff label i is a member. This allows
+     * hashing, comparisons and set operations without creating strings.
      * Observe that the set is immutable,
      * once assigned by the constructor, no changes are possible.
      */
-    protected int[] labelSet;
+    protected final long[] bits;
+    /**
+     * The number of labels (not the number of set members).
+     */
+    protected final int numLabels;
+    /**
+     * The hash code, which equals the hash code of the bitstring of this set.
+     */
+    private final int hash;
+    /**
+     * The number of set members.
+     */
+    private final int size;
 
     /**
      * Initializes an object based on an array of doubles containing 0/1
@@ -48,10 +61,52 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
      * @param set array of doubles containing 0 and 1
      */
     public LabelSet(double[] set) {
-        labelSet = new int[set.length];
+        this(pack(set), set.length);
+    }
+
+    /**
+     * Initializes an object based on an array of booleans
+     *
+     * @param set array of booleans, true denoting membership
+     */
+    public LabelSet(boolean[] set) {
+        this(pack(set), set.length);
+    }
+
+    private LabelSet(long[] bits, int numLabels) {
+        this.numLabels = numLabels;
+        this.bits = bits;
+        int h = 0;
+        int count = 0;
+        for (int i = 0; i < numLabels; i++) {
+            // same value as toBitString().hashCode()
+            h = 31 * h + (contains(i) ? '1' : '0');
+        }
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        this.hash = h;
+        this.size = count;
+    }
+
+    private static long[] pack(double[] set) {
+        long[] words = new long[(set.length + 63) >>> 6];
+        for (int i = 0; i < set.length; i++) {
+            if ((int) set[i] == 1) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return words;
+    }
+
+    private static long[] pack(boolean[] set) {
+        long[] words = new long[(set.length + 63) >>> 6];
         for (int i = 0; i < set.length; i++) {
-            labelSet[i] = (int) set[i];
+            if (set[i]) {
+                words[i >>> 6] |= 1L << i;
+            }
         }
+        return words;
     }
 
     /**
@@ -64,45 +119,52 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hash;
     }
 
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof LabelSet) {
             LabelSet other = (LabelSet) obj;
-            return other.labelSet.length == this.labelSet.length && hammingDifference(other) == 0;
+            return other.numLabels == this.numLabels && other.hash == this.hash && Arrays.equals(other.bits, this.bits);
         } else {
             return false; //could perhaps allow comparison with double array
         }
     }
-    /**
-     * A cached count of the set size. Observe that the set
-     * size is not the same as the size of the double array.
-     */
-    private int size = -1;
 
     /**
-     * The number of set members. Calculated on first call and
-     * cached for subsequent calls.
+     * The number of set members.
      * @return The number of set members
      */
     public int size() {
-        if (size == -1) {
-            size = Utils.sum(labelSet);
-        }
-
         return size;
     }
 
+    /**
+     * The number of labels the set is defined on.
+     * @return The number of labels
+     */
+    public int getNumLabels() {
+        return numLabels;
+    }
+
+    /**
+     * Checks whether a label is a member of this set.
+     * @param label the index of the label
+     * @return whether the label is a member
+     */
+    public boolean contains(int label) {
+        return (bits[label >>> 6] & (1L << label)) != 0;
+    }
+
     /**
      * Get an array representation of this set.
      * @return a copy of the underlying array.
      */
     public double[] toDoubleArray() {
-        double[] arr = new double[labelSet.length];
-        for (int i = 0; i < labelSet.length; i++) {
-            arr[i] = labelSet[i];
+        double[] arr = new double[numLabels];
+        for (int i = 0; i < numLabels; i++) {
+            arr[i] = contains(i) ? 1 : 0;
         }
         return arr;
     }
@@ -112,9 +174,26 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
      * @return a copy of the underlying array.
      */
     public boolean[] toBooleanArray() {
-        boolean[] arr = new boolean[labelSet.length];
-        for (int i = 0; i < labelSet.length; i++) {
-            arr[i] = (labelSet[i] == 1) ? true : false;
+        boolean[] arr = new boolean[numLabels];
+        for (int i = 0; i < numLabels; i++) {
+            arr[i] = contains(i);
+        }
+        return arr;
+    }
+
+    /**
+     * Get the indices of the set members.
+     * @return the indices of the members in increasing order.
+     */
+    public int[] toIndexArray() {
+        int[] arr = new int[size];
+        int counter = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                arr[counter++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
         }
         return arr;
     }
@@ -127,10 +206,8 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
      */
     public int hammingDifference(LabelSet other) {
         int diff = 0;
-        for (int i = 0; i < labelSet.length; i++) {
-            if (labelSet[i] != other.labelSet[i]) {
-                diff++;
-            }
+        for (int i = 0; i < bits.length; i++) {
+            diff += Long.bitCount(bits[i] ^ other.bits[i]);
         }
         return diff;
     }
@@ -140,11 +217,11 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
      * @return the bitstring.
      */
     public String toBitString() {
-        StringBuilder sb = new StringBuilder(labelSet.length);
-        for (int i = 0; i < labelSet.length; i++) {
-            sb.append(Integer.toString(labelSet[i]));
+        char[] chars = new char[numLabels];
+        for (int i = 0; i < numLabels; i++) {
+            chars[i] = contains(i) ? '1' : '0';
         }
-        return sb.toString();
+        return new String(chars);
     }
 
     /**
@@ -155,20 +232,19 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
      * @throws Exception if creation fails due to invalid bitstring
      */
     public static LabelSet fromBitString(String bits) throws Exception {
-        LabelSet result = new LabelSet(new double[bits.length()]);
+        long[] words = new long[(bits.length() + 63) >>> 6];
         for (int i = 0; i < bits.length(); i++) {
             switch (bits.charAt(i)) {
                 case '1':
-                    result.labelSet[i] = 1;
+                    words[i >>> 6] |= 1L << i;
                     break;
                 case '0':
-                    result.labelSet[i] = 0;
                     break;
                 default:
                     throw new Exception("Bad bitstring: " + bits);
             }
         }
-        return result;
+        return new LabelSet(words, bits.length());
     }
 
     /**
@@ -180,31 +256,26 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
     public ArrayList<LabelSet> getSubsets() throws Exception {
         ArrayList<LabelSet> subsets = new ArrayList<LabelSet>();
 
+        int[] members = new int[size];
+        int counter = 0;
+        for (int j = 0; j < numLabels; j++) {
+            if (contains(j)) {
+                members[counter++] = j;
+            }
+        }
+
         //the number of members of a power set is 2^n
-        int powerElements = (int) Math.pow(2, size());
+        long powerElements = 1L << size;
 
-        for (int i = 1; i < powerElements - 1; i++) {
-            String temp = Integer.toBinaryString(i);
-            int foundDigits = temp.length();
-            for (int j = foundDigits; j < size(); j++) {
-                temp = "0" + temp;
-            }
-            LabelSet tempSet = LabelSet.fromBitString(temp);
-            double[] tempDouble = tempSet.toDoubleArray();
-
-            double[] subset = new double[labelSet.length];
-            int counter = 0;
-            for (int j = 0; j < labelSet.length; j++) {
-                if (labelSet[j] == 0) {
-                    subset[j] = 0;
-                } else {
-                    subset[j] = tempDouble[counter];
-                    counter++;
+        for (long i = 1; i < powerElements - 1; i++) {
+            // the first member corresponds to the most significant bit of i
+            long[] subset = new long[bits.length];
+            for (int c = 0; c < size; c++) {
+                if (((i >>> (size - 1 - c)) & 1L) != 0) {
+                    subset[members[c] >>> 6] |= 1L << members[c];
                 }
             }
-
-            LabelSet finalLabelSet = new LabelSet(subset);
-            subsets.add(finalLabelSet);
+            subsets.add(new LabelSet(subset, numLabels));
         }
         return subsets;
     }
@@ -216,23 +287,16 @@ public class LabelSet implements Serializable, Comparable<LabelSet> {
      * @return their interesection
      */
     public static LabelSet intersection(LabelSet l1, LabelSet l2) {
-        double[] arrayL1 = l1.toDoubleArray();
-        double[] arrayL2 = l2.toDoubleArray();
-
-        if (arrayL1.length != arrayL2.length) {
+        if (l1.numLabels != l2.numLabels) {
             return null;
         }
 
-        double[] intersection = new double[arrayL2.length];
-        for (int i = 0; i < arrayL2.length; i++) {
-            if (arrayL1[i] == 1 && arrayL2[i] == 1) {
-                intersection[i] = 1;
-            } else {
-                intersection[i] = 0;
-            }
+        long[] intersection = new long[l1.bits.length];
+        for (int i = 0; i < intersection.length; i++) {
+            intersection[i] = l1.bits[i] & l2.bits[i];
         }
 
-        return new LabelSet(intersection);
+        return new LabelSet(intersection, l1.numLabels);
     }
 
     /**
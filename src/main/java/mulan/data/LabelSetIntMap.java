@@ -0,0 +1,164 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from labelsets to primitive ints, e.g. to count
+ * labelsets or to map them to class indices, without boxing. Keys are
+ * enumerated in insertion order. <p>
+ *
+ * @version 2026.10.17
+ */
+public class LabelSetIntMap implements Serializable {
+
+    private static final long serialVersionUID = 4871920537392384190L;
+    /** positions in the key/value arrays, -1 denoting an empty slot */
+    private int[] slots;
+    private LabelSet[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates an empty map
+     */
+    public LabelSetIntMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map
+     *
+     * @param expectedSize the number of labelsets expected to be stored
+     */
+    public LabelSetIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        keys = new LabelSet[Math.max(4, expectedSize)];
+        values = new int[keys.length];
+    }
+
+    private int findSlot(LabelSet key) {
+        int mask = slots.length - 1;
+        int h = key.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (slots[slot] != -1 && !keys[slots[slot]].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @param key a labelset
+     * @return the position of the labelset in insertion order or -1 if it is
+     * not contained
+     */
+    public int indexOf(LabelSet key) {
+        return slots[findSlot(key)];
+    }
+
+    /**
+     * @param key a labelset
+     * @return whether the map contains the labelset
+     */
+    public boolean containsKey(LabelSet key) {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * @param key a labelset
+     * @param defaultValue the value to return if the labelset is not contained
+     * @return the value associated with the labelset
+     */
+    public int get(LabelSet key, int defaultValue) {
+        int index = indexOf(key);
+        return index == -1 ? defaultValue : values[index];
+    }
+
+    /**
+     * Associates a value with a labelset
+     *
+     * @param key a labelset
+     * @param value the value
+     */
+    public void put(LabelSet key, int value) {
+        int slot = findSlot(key);
+        if (slots[slot] != -1) {
+            values[slots[slot]] = value;
+            return;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        slots[slot] = size++;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * Increments the value associated with a labelset, starting from 0 if the
+     * labelset is not contained yet
+     *
+     * @param key a labelset
+     * @return the incremented value
+     */
+    public int increment(LabelSet key) {
+        int index = indexOf(key);
+        if (index == -1) {
+            put(key, 1);
+            return 1;
+        }
+        return ++values[index];
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < size; i++) {
+            slots[findSlot(keys[i])] = i;
+        }
+    }
+
+    /**
+     * @return the number of labelsets in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index a position in insertion order
+     * @return the labelset at the given position
+     */
+    public LabelSet keyAt(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @param index a position in insertion order
+     * @return the value of the labelset at the given position
+     */
+    public int valueAt(int index) {
+        return values[index];
+    }
+}
@@ -52,6 +52,50 @@ public class MultiLabelInstances implements Serializable {
      * This loader is used when the dataset is loaded incrementally (instance by instance)
      */
     private ArffLoader loader;
+    /**
+     * The label attributes as found in the header of the data set, rebuilt when the header changes
+     */
+    private transient volatile LabelView labelView;
+
+    /**
+     * The positions of the label attributes in a header, along with the labels of the data set
+     * read with them. Weka copies the attributes that are renamed or moved, so comparing the
+     * attribute objects detects changes of the header.
+     */
+    private static final class LabelView {
+
+        private final int numAttributes;
+        private final int[] labelIndices;
+        private final Attribute[] labelAttributes;
+        private volatile LabelMatrix labelMatrix;
+
+        LabelView(Instances dataSet, Set<String> labelNames) {
+            numAttributes = dataSet.numAttributes();
+            labelIndices = new int[labelNames.size()];
+            labelAttributes = new Attribute[labelNames.size()];
+            int counter = 0;
+            for (int index = 0; index < numAttributes && counter < labelIndices.length; index++) {
+                Attribute attr = dataSet.attribute(index);
+                if (labelNames.contains(attr.name())) {
+                    labelIndices[counter] = index;
+                    labelAttributes[counter] = attr;
+                    counter++;
+                }
+            }
+        }
+
+        boolean matches(Instances dataSet, int numLabels) {
+            if (dataSet.numAttributes() != numAttributes || labelIndices.length != numLabels) {
+                return false;
+            }
+            for (int j = 0; j < labelIndices.length; j++) {
+                if (dataSet.attribute(labelIndices[j]) != labelAttributes[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 
     /**
      * Creates a new instance of {@link MultiLabelInstances} data. The label attributes are assumed
@@ -323,59 +367,55 @@ public class MultiLabelInstances implements Serializable {
      * @return dataset cardinality
      */
     public double getCardinality() {
-        double labelCardinality = 0;
+        double labelCardinality = getLabelMatrix().getNumRelevant();
 
-        int numInstances = dataSet.numInstances();
-        int numLabels = labelsMetaData.getNumLabels();
-        int[] labelIndices = getLabelIndices();
+        labelCardinality /= dataSet.numInstances();
+        return labelCardinality;
+    }
 
-        for (int i = 0; i < numInstances; i++) {
-            for (int j = 0; j < numLabels; j++) {
-                if (dataSet.instance(i).stringValue(labelIndices[j]).equals("1")) {
-                    labelCardinality++;
-                }
-            }
+    private LabelView getLabelView() {
+        LabelView view = labelView;
+        if (view == null || !view.matches(dataSet, labelsMetaData.getNumLabels())) {
+            view = new LabelView(dataSet, labelsMetaData.getLabelNames());
+            labelView = view;
         }
+        return view;
+    }
 
-        labelCardinality /= numInstances;
-        return labelCardinality;
+    /**
+     * Gets the labels of all instances. The matrix is built once and cached. It is rebuilt when the
+     * header or the number of instances of the data set changes, but not when the instances are
+     * reordered (e.g. by {@link Instances#randomize(java.util.Random)}) or their label values are
+     * modified in place. It should therefore only be used for statistics that do not depend on the
+     * order of the instances, such as label counts.
+     *
+     * @return the labels of all instances
+     */
+    public LabelMatrix getLabelMatrix() {
+        LabelView view = getLabelView();
+        LabelMatrix matrix = view.labelMatrix;
+        if (matrix == null || matrix.getNumInstances() != dataSet.numInstances()) {
+            matrix = new LabelMatrix(dataSet, view.labelIndices);
+            view.labelMatrix = matrix;
+        }
+        return matrix;
     }
 
     /**
      * @return an array with the indices of the label attributes inside the Instances object
      */
     public int[] getLabelIndices() {
-        int[] labelIndices = new int[labelsMetaData.getNumLabels()];
-        int numAttributes = dataSet.numAttributes();
-        Set<String> labelNames = labelsMetaData.getLabelNames();
-        int counter = 0;
-
-        for (int index = 0; index < numAttributes; index++) {
-            Attribute attr = dataSet.attribute(index);
-            if (labelNames.contains(attr.name())) {
-                labelIndices[counter] = index;
-                counter++;
-            }
-        }
-
-        return labelIndices;
+        return getLabelView().labelIndices.clone();
     }
 
     /**
      * @return an array with the names of the label attributes inside the Instances object
      */
     public String[] getLabelNames() {
-        String[] orderedLabelNames = new String[labelsMetaData.getNumLabels()];
-        int numAttributes = dataSet.numAttributes();
-        Set<String> labelNames = labelsMetaData.getLabelNames();
-        int counter = 0;
-
-        for (int index = 0; index < numAttributes; index++) {
-            Attribute attr = dataSet.attribute(index);
-            if (labelNames.contains(attr.name())) {
-                orderedLabelNames[counter] = attr.name();
-                counter++;
-            }
+        Attribute[] labelAttributes = getLabelView().labelAttributes;
+        String[] orderedLabelNames = new String[labelAttributes.length];
+        for (int j = 0; j < labelAttributes.length; j++) {
+            orderedLabelNames[j] = labelAttributes[j].name();
         }
 
         return orderedLabelNames;
@@ -385,17 +425,11 @@ public class MultiLabelInstances implements Serializable {
      * @return a mapping of attribute names and their indices Instances object
      */
     public Map<String, Integer> getLabelsOrder() {
-        int numAttributes = dataSet.numAttributes();
-        Set<String> labelNames = labelsMetaData.getLabelNames();
+        Attribute[] labelAttributes = getLabelView().labelAttributes;
         HashMap<String, Integer> assoc = new HashMap<String, Integer>();
 
-        int counter = 0;
-        for (int index = 0; index < numAttributes; index++) {
-            Attribute attr = dataSet.attribute(index);
-            if (labelNames.contains(attr.name())) {
-                assoc.put(attr.name(), counter);
-                counter++;
-            }
+        for (int counter = 0; counter < labelAttributes.length; counter++) {
+            assoc.put(labelAttributes[counter].name(), counter);
         }
 
         return assoc;
@@ -408,16 +442,7 @@ public class MultiLabelInstances implements Serializable {
      * @return the Set of label Attribute instances
      */
     public Set<Attribute> getLabelAttributes() {
-        Set<String> labelNames = labelsMetaData.getLabelNames();
-        Set<Attribute> labelAttributes = new HashSet<Attribute>(getNumLabels());
-        int numAttributes = dataSet.numAttributes();
-        for (int index = 0; index < numAttributes; index++) {
-            Attribute attr = dataSet.attribute(index);
-            if (labelNames.contains(attr.name())) {
-                labelAttributes.add(attr);
-            }
-        }
-        return labelAttributes;
+        return new HashSet<Attribute>(Arrays.asList(getLabelView().labelAttributes));
     }
 
     /**
@@ -803,8 +828,8 @@ public class MultiLabelInstances implements Serializable {
      * @return true if the instance has missing labels
      */
     public boolean hasMissingLabels(Instance instance) {
-        int numLabels = getNumLabels();
-        int[] labelIndices = getLabelIndices();
+        int[] labelIndices = getLabelView().labelIndices;
+        int numLabels = labelIndices.length;
 
         boolean missing = false;
         for (int j = 0; j < numLabels; j++) {
@@ -844,15 +869,10 @@ public class MultiLabelInstances implements Serializable {
         int numLabels = labelsMetaData.getNumLabels();
     	
     	double imbalanceRatios[] = new double[numLabels];
-        int[] labelIndices = getLabelIndices();
+        LabelMatrix labels = getLabelMatrix();
 
         for (int j = 0; j < numLabels; j++) {
-        	double c1=0;  //count the number of instance has value 1 for jth label
-        	for (int i = 0; i < numInstances; i++) {
-                if (dataSet.instance(i).stringValue(labelIndices[j]).equals("1")) {
-                    c1++;
-                }
-            }
+        	double c1=labels.getLabelCount(j);  //count the number of instance has value 1 for jth label
         	imbalanceRatios[j]=c1*1.0/numInstances;
         }
         return imbalanceRatios;
@@ -867,7 +887,7 @@ public class MultiLabelInstances implements Serializable {
     public double[] getImbalanceRatio(int arrayLabelIndex[]){
     	int numInstances = dataSet.numInstances();
         int numLabels = labelsMetaData.getNumLabels();
-        int[] labelIndices = getLabelIndices();
+        LabelMatrix labels = getLabelMatrix();
         
     	double imbalanceRatios[]=new double[arrayLabelIndex.length];
 
@@ -876,12 +896,7 @@ public class MultiLabelInstances implements Serializable {
         		imbalanceRatios[j]=-1;  
         	}
         	else{
-        		double c1=0;  //count the number of instance has value 1 for jth label
-            	for (int i = 0; i < numInstances; i++) {
-                    if (dataSet.instance(i).stringValue(labelIndices[arrayLabelIndex[j]]).equals("1")) {
-                        c1++;
-                    }
-                }
+        		double c1=labels.getLabelCount(arrayLabelIndex[j]);  //count the number of instance has value 1 for jth label
             	imbalanceRatios[j]=c1*1.0/numInstances;
         	}
         }
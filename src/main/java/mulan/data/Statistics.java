@@ -25,11 +25,10 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Set;
+import mulan.core.MulanRuntimeException;
 import weka.core.TechnicalInformation.Field;
 import weka.core.TechnicalInformation.Type;
 import weka.core.*;
-import weka.filters.Filter;
-import weka.filters.unsupervised.attribute.Remove;
 
 /**
 <!-- globalinfo-start -->
@@ -88,6 +87,8 @@ public class Statistics implements Serializable, TechnicalInformationHandler {
     private HashMap<LabelSet, Integer> labelsets;
     /** the array holding the phi correlations*/
     double[][] phi;
+    /** the number of threads that count the pairs of labels */
+    private int numThreads = 1;
 
     /** 
      * returns the HashMap containing the distinct labelsets and their frequencies
@@ -111,17 +112,15 @@ public class Statistics implements Serializable, TechnicalInformationHandler {
         double[][] coocurrenceMatrix = new double[labels][labels];
 
         numPredictors = data.numAttributes() - labels;
-        for (int k = 0; k < data.numInstances(); k++) {
-            Instance temp = data.instance(k);
-            for (int i = 0; i < labels; i++) {
-                for (int j = 0; j < labels; j++) {
-                    if (i >= j) {
-                        continue;
-                    }
-                    if (temp.stringValue(numPredictors + i).equals("1") && temp.stringValue(numPredictors + j).equals("1")) {
-                        coocurrenceMatrix[i][j]++;
-                    }
-                }
+        LabelPairCounts counts;
+        try {
+            counts = LabelPairCounts.count(mdata.getLabelMatrix(), false, numThreads);
+        } catch (Exception e) {
+            throw new MulanRuntimeException("Counting the co-occurrences of labels failed", e);
+        }
+        for (int i = 0; i < labels; i++) {
+            for (int j = i + 1; j < labels; j++) {
+                coocurrenceMatrix[i][j] = counts.getJointCount(i, j);
             }
         }
 
@@ -145,7 +144,6 @@ public class Statistics implements Serializable, TechnicalInformationHandler {
         // initialize statistics
         Instances data = mlData.getDataSet();
         numLabels = mlData.getNumLabels();
-        int[] labelIndices = mlData.getLabelIndices();
         int[] featureIndices = mlData.getFeatureIndices();
         numPredictors = featureIndices.length;
 
@@ -167,11 +165,13 @@ public class Statistics implements Serializable, TechnicalInformationHandler {
         }
 
         numInstances = data.numInstances();
+        LabelMatrix labels = mlData.getLabelMatrix();
+        LabelSetIntMap counts = new LabelSetIntMap();
         for (int i = 0; i < numInstances; i++) {
             int exampleCardinality = 0;
             double[] dblLabels = new double[numLabels];
             for (int j = 0; j < numLabels; j++) {
-                if (data.instance(i).stringValue(labelIndices[j]).equals("1")) {
+                if (labels.isRelevant(i, j)) {
                     dblLabels[j] = 1;
                     exampleCardinality++;
                     labelCardinality++;
@@ -182,12 +182,10 @@ public class Statistics implements Serializable, TechnicalInformationHandler {
             }
             cardinalityDistribution[exampleCardinality]++;
 
-            LabelSet labelSet = new LabelSet(dblLabels);
-            if (labelsets.containsKey(labelSet)) {
-                labelsets.put(labelSet, labelsets.get(labelSet) + 1);
-            } else {
-                labelsets.put(labelSet, 1);
-            }
+            counts.increment(new LabelSet(dblLabels));
+        }
+        for (int i = 0; i < counts.size(); i++) {
+            labelsets.put(counts.keyAt(i), counts.valueAt(i));
         }
 
         labelCardinality /= numInstances;
@@ -205,67 +203,38 @@ public class Statistics implements Serializable, TechnicalInformationHandler {
      * @throws java.lang.Exception Potential exception thrown. To be handled in an upper level.
      */
     public double[][] calculatePhi(MultiLabelInstances dataSet) throws Exception {
-
-        numLabels = dataSet.getNumLabels();
-
-        /** the indices of the label attributes */
-        int[] labelIndices;
-
-        labelIndices = dataSet.getLabelIndices();
         numLabels = dataSet.getNumLabels();
         phi = new double[numLabels][numLabels];
 
-        Remove remove = new Remove();
-        remove.setInvertSelection(true);
-        remove.setAttributeIndicesArray(labelIndices);
-        remove.setInputFormat(dataSet.getDataSet());
-        Instances result = Filter.useFilter(dataSet.getDataSet(), remove);
-        result.setClassIndex(result.numAttributes() - 1);
-
+        // any value other than "0", including a missing one, counts as relevant
+        LabelPairCounts counts = LabelPairCounts.count(dataSet.getLabelMatrix(), true, numThreads);
         for (int i = 0; i < numLabels; i++) {
-
-            int a[] = new int[numLabels];
-            int b[] = new int[numLabels];
-            int c[] = new int[numLabels];
-            int d[] = new int[numLabels];
-            double e[] = new double[numLabels];
-            double f[] = new double[numLabels];
-            double g[] = new double[numLabels];
-            double h[] = new double[numLabels];
-
-            for (int j = 0; j < result.numInstances(); j++) {
-                for (int l = 0; l < numLabels; l++) {
-                    if (result.instance(j).stringValue(i).equals("0")) {
-                        if (result.instance(j).stringValue(l).equals("0")) {
-                            a[l]++;
-                        } else {
-                            c[l]++;
-                        }
-                    } else {
-                        if (result.instance(j).stringValue(l).equals("0")) {
-                            b[l]++;
-                        } else {
-                            d[l]++;
-                        }
-                    }
-                }
-            }
             for (int l = 0; l < numLabels; l++) {
-                e[l] = a[l] + b[l];
-                f[l] = c[l] + d[l];
-                g[l] = a[l] + c[l];
-                h[l] = b[l] + d[l];
-
-                double mult = e[l] * f[l] * g[l] * h[l];
-                double denominator = Math.sqrt(mult);
-                double nominator = a[l] * d[l] - b[l] * c[l];
-                phi[i][l] = nominator / denominator;
-
+                phi[i][l] = counts.getPhi(i, l);
             }
         }
         return phi;
     }
 
+    /**
+     * Sets the number of threads that count the pairs of labels in
+     * {@link #calculatePhi(MultiLabelInstances)} and
+     * {@link #calculateCoocurrence(MultiLabelInstances)}
+     *
+     * @param numThreads the number of threads (1 counts them in the calling
+     * thread)
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * @return the number of threads that count the pairs of labels
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
     /**
      * Prints out phi correlations
      */
@@ -39,6 +39,9 @@ public class UnconditionalChiSquareIdentifier implements LabelPairsDependenceIde
     /** A default chi square critical value, corresponds to significance level 0.01. Label pairs with dependence value below the critical are considered as independent.*/
     private double criticalValue = 6.635;
 
+    /** The number of threads that count the pairs of labels. */
+    private int numThreads = 1;
+
     /**
      * Calculates Chi Square values for each pair of labels.  It uses Phi correlation value calculated in {@link mulan.data.Statistics} as follows: ChiSquareValue = PhiValue^2 * NumberOfInstances in the data set. 
 
@@ -48,24 +51,14 @@ public class UnconditionalChiSquareIdentifier implements LabelPairsDependenceIde
     public LabelsPair[] calculateDependence(MultiLabelInstances mlInstances){
         LabelsPair[] pairs;
         List<LabelsPair> chiPairsList = new ArrayList<LabelsPair>();
-        double v;
-        Statistics st = new Statistics();
-        int N= mlInstances.getDataSet().numInstances();
         try {
-            double[][] matrix = st.calculatePhi(mlInstances);
+            double[][] matrix = calculateDependenceMatrix(mlInstances);
             for(int i=0; i<matrix.length-1; i++){
                 for(int j=i+1; j<matrix[i].length; j++){
                     int[] pair = new int[2];
                     pair[0] = i;
                     pair[1] = j;
-                    double val = matrix[i][j];
-                    if(Double.isNaN(val)){
-                        v=0.0001;
-                    }
-                    else{
-                        v= Math.pow(val,2)*N;
-                    }
-                    chiPairsList.add(new LabelsPair(pair, v));
+                    chiPairsList.add(new LabelsPair(pair, matrix[i][j]));
                 }
             }
         } catch (Exception e) {
@@ -79,6 +72,48 @@ public class UnconditionalChiSquareIdentifier implements LabelPairsDependenceIde
         return pairs;
     }
 
+    /**
+     * Calculates Chi Square values for all pairs of labels at once, without creating and sorting {@link LabelsPair} objects. The contingency tables
+     * of the pairs are counted on packed label columns by {@link LabelPairCounts}. Pairs with an undefined Phi correlation get the value 0.0001.
+     *
+     * @param mlInstances multilabel data set
+     * @return a symmetric matrix with the ChiSquare value of each pair of different labels and 0 on the diagonal
+     * @throws Exception if counting the pairs of labels fails
+     */
+    public double[][] calculateDependenceMatrix(MultiLabelInstances mlInstances) throws Exception {
+        LabelPairCounts counts = LabelPairCounts.count(mlInstances.getLabelMatrix(), true, numThreads);
+        int numLabels = counts.getNumLabels();
+        int N = counts.getNumInstances();
+        double[][] matrix = new double[numLabels][numLabels];
+        for(int i=0; i<numLabels-1; i++){
+            for(int j=i+1; j<numLabels; j++){
+                double val = counts.getPhi(i, j);
+                double v;
+                if(Double.isNaN(val)){
+                    v=0.0001;
+                }
+                else{
+                    v= Math.pow(val,2)*N;
+                }
+                matrix[i][j] = v;
+                matrix[j][i] = v;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     *
+     * @param numThreads the number of threads that count the pairs of labels (1 counts them in the calling thread)
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
     /**
      * 
      * @param criticalValue the critical value to set
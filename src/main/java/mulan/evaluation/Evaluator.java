@@ -17,20 +17,26 @@ package mulan.evaluation;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import mulan.classifier.MultiLabelLearner;
 import mulan.classifier.MultiLabelOutput;
 import mulan.classifier.clus.ClusWrapperClassification;
+import mulan.core.ParallelExecutor;
 import mulan.data.MultiLabelInstances;
 import mulan.evaluation.measure.AveragePrecision;
+import mulan.evaluation.measure.ClassificationMeasureBase;
 import mulan.evaluation.measure.Coverage;
 import mulan.evaluation.measure.ErrorSetSize;
 import mulan.evaluation.measure.ExampleBasedAccuracy;
@@ -38,6 +44,7 @@ import mulan.evaluation.measure.ExampleBasedFMeasure;
 import mulan.evaluation.measure.ExampleBasedPrecision;
 import mulan.evaluation.measure.ExampleBasedRecall;
 import mulan.evaluation.measure.ExampleBasedSpecificity;
+import mulan.evaluation.measure.ExampleStatistics;
 import mulan.evaluation.measure.GeometricMeanAverageInterpolatedPrecision;
 import mulan.evaluation.measure.GeometricMeanAveragePrecision;
 import mulan.evaluation.measure.HammingLoss;
@@ -66,6 +73,7 @@ import mulan.evaluation.measure.regression.macro.MacroRMSE;
 import mulan.evaluation.measure.regression.macro.MacroRMaxSE;
 import mulan.evaluation.measure.regression.macro.MacroRelMAE;
 import mulan.evaluation.measure.regression.macro.MacroRelRMSE;
+import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 import clus.Clus;
@@ -82,6 +90,12 @@ public class Evaluator {
 
     /** seed for reproduction of cross-validation results **/
     private int seed = 1;
+    /** number of threads that evaluate parts of the test set in parallel **/
+    private int numThreads = 1;
+    /** number of cross-validation folds that are run in parallel **/
+    private int numFoldThreads = 1;
+    /** number of instances that are predicted at once by each thread **/
+    private static final int CHUNK_SIZE = 1000;
 
     /**
      * Sets the seed for reproduction of cross-validation results
@@ -114,45 +128,143 @@ public class Evaluator {
             m.reset();
         }
 
-        int numLabels = mlTestData.getNumLabels();
-        int[] labelIndices = mlTestData.getLabelIndices();
-        GroundTruth truth;
-        Set<Measure> failed = new HashSet<Measure>();
-        Instances testData = mlTestData.getDataSet();
-        int numInstances = testData.numInstances();
-        for (int instanceIndex = 0; instanceIndex < numInstances; instanceIndex++) {
-            Instance instance = testData.instance(instanceIndex);
-            boolean hasMissingLabels = mlTestData.hasMissingLabels(instance);
-            Instance labelsMissing = (Instance) instance.copy();
-            labelsMissing.setDataset(instance.dataset());
-            for (int i = 0; i < mlTestData.getNumLabels(); i++) {
-                labelsMissing.setMissing(labelIndices[i]);
-            }
-            MultiLabelOutput output = learner.makePrediction(labelsMissing);
-            if (output.hasPvalues()) {// check if we have regression outputs
-                truth = new GroundTruth(getTrueScores(instance, numLabels, labelIndices));
-            } else {
-                truth = new GroundTruth(getTrueLabels(instance, numLabels, labelIndices));
+        final int numInstances = mlTestData.getNumInstances();
+        final int numLabels = mlTestData.getNumLabels();
+        final int[] labelIndices = mlTestData.getLabelIndices();
+        // the index of the nominal value "1" of each label, -1 if there is none
+        final int[] indexOfOne = new int[numLabels];
+        for (int counter = 0; counter < numLabels; counter++) {
+            Attribute attribute = mlTestData.getDataSet().attribute(labelIndices[counter]);
+            indexOfOne[counter] = attribute.isNominal() ? attribute.indexOfValue("1") : -1;
+        }
+
+        // each thread evaluates a contiguous block of instances with its own
+        // copies of the learner and the measures
+        final int numBlocks = Math.max(1, Math.min(numThreads, numInstances));
+        final MultiLabelLearner[] learners = new MultiLabelLearner[numBlocks];
+        final List<List<Measure>> blockMeasures = new ArrayList<List<Measure>>(numBlocks);
+        final List<Set<Measure>> blockFailed = new ArrayList<Set<Measure>>(numBlocks);
+        learners[0] = learner;
+        blockMeasures.add(measures);
+        for (int b = 0; b < numBlocks; b++) {
+            if (b > 0) {
+                learners[b] = learner.makeCopy();
+                List<Measure> copies = new ArrayList<Measure>(measures.size());
+                for (Measure m : measures) {
+                    copies.add(m.makeCopy());
+                }
+                blockMeasures.add(copies);
             }
-            Iterator<Measure> it = measures.iterator();
-            while (it.hasNext()) {
-                Measure m = it.next();
-                if (!failed.contains(m)) {
-                    try {
-                        if (hasMissingLabels && !m.handlesMissingValues()) {
-                            continue;
+            blockFailed.add(new HashSet<Measure>());
+        }
+
+        ParallelExecutor.run(numBlocks, numThreads, b -> {
+            int from = (int) ((long) numInstances * b / numBlocks);
+            int to = (int) ((long) numInstances * (b + 1) / numBlocks);
+            Set<Measure> failed = blockFailed.get(b);
+            // the confusion and the sorted ranks of an example are computed
+            // once and shared by all classification measures
+            ExampleStatistics statistics = new ExampleStatistics();
+            for (int chunk = from; chunk < to; chunk += CHUNK_SIZE) {
+                int chunkEnd = Math.min(to, chunk + CHUNK_SIZE);
+                MultiLabelOutput[] outputs = learners[b].makePredictions(mlTestData, chunk, chunkEnd);
+                for (int instanceIndex = chunk; instanceIndex < chunkEnd; instanceIndex++) {
+                    Instance instance = mlTestData.getDataSet().instance(instanceIndex);
+                    MultiLabelOutput output = outputs[instanceIndex - chunk];
+                    GroundTruth truth = getGroundTruth(instance, output, labelIndices, indexOfOne);
+                    boolean hasMissingLabels = mlTestData.hasMissingLabels(instance);
+                    if (truth.isClassification()) {
+                        statistics.set(output, truth.getTrueLabels());
+                    }
+                    for (Measure m : blockMeasures.get(b)) {
+                        if (!failed.contains(m)) {
+                            try {
+                                if (hasMissingLabels && !m.handlesMissingValues()) {
+                                    continue;
+                                }
+                                if (truth.isClassification() && m instanceof ClassificationMeasureBase) {
+                                    ((ClassificationMeasureBase) m).update(output, truth, statistics);
+                                } else {
+                                    m.update(output, truth);
+                                }
+                            } catch (Exception ex) {
+                                failed.add(m);
+                            }
                         }
-                        m.update(output, truth);
-                    } catch (Exception ex) {
-                        failed.add(m);
                     }
                 }
             }
+        });
+
+        // the blocks are combined in instance order; a measure that failed
+        // in a block is not updated with the blocks after it
+        for (int i = 0; i < measures.size(); i++) {
+            for (int b = 1; b < numBlocks; b++) {
+                if (blockFailed.get(b - 1).contains(blockMeasures.get(b - 1).get(i))) {
+                    break;
+                }
+                measures.get(i).combine(blockMeasures.get(b).get(i));
+            }
         }
 
         return new Evaluation(measures, mlTestData);
     }
 
+    /**
+     * Reads the ground truth of an instance: its true scores if the output
+     * has p-values, its true labels otherwise
+     *
+     * @param instance an instance of the data set for evaluation
+     * @param output the prediction for the instance
+     * @param labelIndices the indices of the label attributes
+     * @param indexOfOne the index of the nominal value "1" of each label, -1
+     * if there is none
+     * @return the ground truth of the instance
+     */
+    private GroundTruth getGroundTruth(Instance instance, MultiLabelOutput output, int[] labelIndices,
+                                       int[] indexOfOne) {
+        int numLabels = labelIndices.length;
+        if (output.hasPvalues()) {
+            double[] trueScores = new double[numLabels];
+            for (int counter = 0; counter < numLabels; counter++) {
+                trueScores[counter] = instance.value(labelIndices[counter]);
+            }
+            return new GroundTruth(trueScores);
+        }
+        boolean[] trueLabels = new boolean[numLabels];
+        for (int counter = 0; counter < numLabels; counter++) {
+            // a missing label is treated like the first nominal value
+            trueLabels[counter] = indexOfOne[counter] != -1
+                    && (int) instance.value(labelIndices[counter]) == indexOfOne[counter];
+        }
+        return new GroundTruth(trueLabels);
+    }
+
+    /**
+     * Sets the number of threads that evaluate parts of the test set in
+     * parallel. Each thread updates its own copies of the measures, which are
+     * combined afterwards, so the values may differ from those with one
+     * thread in the last bits of floating point sums. Each thread also
+     * predicts with its own copy of the learner, so learners that break ties
+     * with a random number generator during prediction may give different
+     * results than with one thread.
+     *
+     * @param numThreads the number of threads
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Returns the number of threads that evaluate parts of the test set in
+     * parallel
+     *
+     * @return the number of threads
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
     private void checkLearner(MultiLabelLearner learner) {
         if (learner == null) {
             throw new IllegalArgumentException("Learner to be evaluated is null.");
@@ -272,35 +384,6 @@ public class Evaluator {
         return measures;
     }
 
-    private boolean[] getTrueLabels(Instance instance, int numLabels, int[] labelIndices) {
-
-        boolean[] trueLabels = new boolean[numLabels];
-        for (int counter = 0; counter < numLabels; counter++) {
-            int classIdx = labelIndices[counter];
-            String classValue = instance.attribute(classIdx).value((int) instance.value(classIdx));
-            trueLabels[counter] = classValue.equals("1");
-        }
-
-        return trueLabels;
-    }
-
-    private double[] getTrueScores(Instance instance, int numLabels, int[] labelIndices) {
-
-        double[] trueScores = new double[numLabels];
-        for (int counter = 0; counter < numLabels; counter++) {
-            int classIdx = labelIndices[counter];
-            double score;
-            if (instance.isMissing(classIdx)) {// if target is missing
-                score = Double.NaN; // make it equal to Double.Nan
-            } else {
-                score = instance.value(classIdx);
-            }
-            trueScores[counter] = score;
-        }
-
-        return trueScores;
-    }
-
     /**
      * Evaluates a {@link MultiLabelLearner} via cross-validation on given data set with defined
      * number of folds and seed.
@@ -338,36 +421,129 @@ public class Evaluator {
         return innerCrossValidate(learner, data, true, measures, someFolds);
     }
 
-    private MultipleEvaluation innerCrossValidate(MultiLabelLearner learner,
-                                                  MultiLabelInstances data, boolean hasMeasures, List<Measure> measures, int someFolds) {
-        Evaluation[] evaluation = new Evaluation[someFolds];
+    private MultipleEvaluation innerCrossValidate(final MultiLabelLearner learner,
+                                                  final MultiLabelInstances data, final boolean hasMeasures, final List<Measure> measures, final int someFolds) {
+        final Evaluation[] evaluation = new Evaluation[someFolds];
+        final long[] foldTimes = new long[someFolds];
+        final long[] foldPeakMemory = new long[someFolds];
 
-        Instances workingSet = new Instances(data.getDataSet());
+        // the train and test sets of the folds are created when the fold is
+        // run and share the attribute values of the working set
+        final Instances workingSet = new Instances(data.getDataSet());
         workingSet.randomize(new Random(seed));
-        for (int i = 0; i < someFolds; i++) {
-            System.out.println("Fold " + (i + 1) + "/" + someFolds);
-            try {
-                Instances train = workingSet.trainCV(someFolds, i);
-                Instances test = workingSet.testCV(someFolds, i);
-                MultiLabelInstances mlTrain = new MultiLabelInstances(train,
-                        data.getLabelsMetaData());
-                MultiLabelInstances mlTest = new MultiLabelInstances(test, data.getLabelsMetaData());
-                MultiLabelLearner clone = learner.makeCopy();
-                clone.build(mlTrain);
-                if (hasMeasures) {
-                    evaluation[i] = evaluate(clone, mlTest, measures);
-                } else {
-                    evaluation[i] = evaluate(clone, mlTest, mlTrain);
+        // the heap is shared, so its peak can only be attributed to a fold
+        // when the folds run one after another
+        final PeakMemoryMonitor monitor = numFoldThreads <= 1 ? new PeakMemoryMonitor() : null;
+        try {
+            ParallelExecutor.run(someFolds, numFoldThreads, i -> {
+                System.out.println("Fold " + (i + 1) + "/" + someFolds);
+                long start = System.nanoTime();
+                if (monitor != null) {
+                    monitor.start();
+                }
+                try {
+                    Instances train = workingSet.trainCV(someFolds, i);
+                    Instances test = workingSet.testCV(someFolds, i);
+                    MultiLabelInstances mlTrain = new MultiLabelInstances(train,
+                            data.getLabelsMetaData());
+                    MultiLabelInstances mlTest = new MultiLabelInstances(test, data.getLabelsMetaData());
+                    MultiLabelLearner clone = learner.makeCopy();
+                    clone.build(mlTrain);
+                    if (hasMeasures) {
+                        // the folds must not share the state of the measures
+                        List<Measure> foldMeasures = new ArrayList<Measure>(measures.size());
+                        for (Measure m : measures) {
+                            foldMeasures.add(m.makeCopy());
+                        }
+                        evaluation[i] = evaluate(clone, mlTest, foldMeasures);
+                    } else {
+                        evaluation[i] = evaluate(clone, mlTest, mlTrain);
+                    }
+                } catch (Exception ex) {
+                    Logger.getLogger(Evaluator.class.getName()).log(Level.SEVERE, null, ex);
+                }
+                if (monitor != null) {
+                    foldPeakMemory[i] = monitor.stop();
                 }
-            } catch (Exception ex) {
-                Logger.getLogger(Evaluator.class.getName()).log(Level.SEVERE, null, ex);
+                foldTimes[i] = (System.nanoTime() - start) / 1000000;
+            });
+        } catch (Exception ex) {
+            Logger.getLogger(Evaluator.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            if (monitor != null) {
+                monitor.shutdown();
             }
         }
         MultipleEvaluation me = new MultipleEvaluation(evaluation, data);
+        me.setFoldStatistics(foldTimes, monitor != null ? foldPeakMemory : null);
         me.calculateStatistics();
         return me;
     }
 
+    /**
+     * Sets the number of cross-validation folds that are run in parallel
+     *
+     * @param numFoldThreads the number of threads (1 runs the folds one after
+     * another, which is needed to report the peak heap memory of each fold)
+     */
+    public void setNumFoldThreads(int numFoldThreads) {
+        this.numFoldThreads = numFoldThreads;
+    }
+
+    /**
+     * Returns the number of cross-validation folds that are run in parallel
+     *
+     * @return the number of threads
+     */
+    public int getNumFoldThreads() {
+        return numFoldThreads;
+    }
+
+    /**
+     * Samples the used heap memory in the background and keeps its maximum
+     * while a fold runs. Only one fold may run at a time. The peak includes
+     * garbage that has not been collected yet.
+     */
+    private static class PeakMemoryMonitor {
+
+        private static final long SAMPLING_INTERVAL_MS = 10;
+        private long peak;
+        private boolean running;
+        private final ScheduledExecutorService sampler;
+
+        PeakMemoryMonitor() {
+            sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "fold-memory-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sampler.scheduleAtFixedRate(this::sample, 0, SAMPLING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void start() {
+            running = true;
+            peak = 0;
+            sample();
+        }
+
+        synchronized long stop() {
+            sample();
+            running = false;
+            return peak;
+        }
+
+        synchronized void sample() {
+            long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            if (running && used > peak) {
+                peak = used;
+            }
+        }
+
+        void shutdown() {
+            sampler.shutdownNow();
+        }
+    }
+
     /**
      * Evaluates a {@link ClusWrapperClassification} on given test data set using specified
      * evaluation measures
@@ -43,6 +43,8 @@ public class MultipleEvaluation {
     private HashMap<String, Double> standardDeviation;
     private HashMap<String, Double[]> labelMean;
     private HashMap<String, Double[]> labelStandardDeviation;
+    private long[] foldTimes;
+    private long[] foldPeakMemory;
 
     /**
      * Constructs a new object
@@ -269,6 +271,40 @@ public class MultipleEvaluation {
         return sb.toString();
     }
 
+    /**
+     * Sets the wall time and the peak heap memory of each evaluation, e.g. of
+     * each fold of a cross-validation
+     *
+     * @param foldTimes the wall time of each evaluation in milliseconds
+     * @param foldPeakMemory the peak heap memory of each evaluation in bytes,
+     * or null if the evaluations did not run one after another
+     */
+    public void setFoldStatistics(long[] foldTimes, long[] foldPeakMemory) {
+        this.foldTimes = foldTimes;
+        this.foldPeakMemory = foldPeakMemory;
+    }
+
+    /**
+     * Returns the wall time of each evaluation
+     *
+     * @return the wall times in milliseconds or null if they are not known
+     */
+    public long[] getFoldTimes() {
+        return foldTimes;
+    }
+
+    /**
+     * Returns the peak heap memory of each evaluation. It is the highest used
+     * heap sampled while the evaluation ran, including garbage that had not
+     * been collected yet.
+     *
+     * @return the peak heap memory in bytes or null if it is not known, e.g.
+     * because the evaluations ran concurrently
+     */
+    public long[] getFoldPeakMemory() {
+        return foldPeakMemory;
+    }
+
     public ArrayList<Evaluation> getEvaluations() {
         return evaluations;
     }
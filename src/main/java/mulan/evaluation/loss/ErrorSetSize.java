@@ -15,9 +15,6 @@
  */
 package mulan.evaluation.loss;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Implementation of the ErrorSetSize loss function, which computes the size of
  * the error set. The error set is composed of all possible label pairs,
@@ -35,26 +32,14 @@ public class ErrorSetSize extends RankingLossFunctionBase {
 
     @Override
     public double computeLoss(int[] ranking, boolean[] groundTruth) {
-        double ess = 0;
-        int numLabels = groundTruth.length;
-        List<Integer> relevant = new ArrayList<Integer>();
-        List<Integer> irrelevant = new ArrayList<Integer>();
-        for (int index = 0; index < numLabels; index++) {
-            if (groundTruth[index]) {
-                relevant.add(index);
-            } else {
-                irrelevant.add(index);
-            }
-        }
-
-        for (int rLabel : relevant) {
-            for (int irLabel : irrelevant) {
-                if (ranking[rLabel] > ranking[irLabel]) {
-                    ess++;
-                }
-            }
-        }
+        // a new split per call keeps the loss function stateless
+        SortedRanks sortedRanks = new SortedRanks();
+        sortedRanks.split(ranking, groundTruth);
+        return computeLoss(sortedRanks, ranking, groundTruth);
+    }
 
-        return ess;
+    @Override
+    public double computeLoss(SortedRanks ranks, int[] ranking, boolean[] groundTruth) {
+        return ranks.countErrorPairs();
     }
 }
\ No newline at end of file
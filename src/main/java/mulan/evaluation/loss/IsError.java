@@ -15,9 +15,6 @@
  */
 package mulan.evaluation.loss;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Implementation of the IsError loss function, which is simply the indicator
  * of whether the induced ranking is perfect or not. Speaking in terms of error
@@ -35,32 +32,24 @@ public class IsError extends RankingLossFunctionBase {
 
     @Override
     public double computeLoss(int[] ranking, boolean[] groundTruth) {
-        List<Integer> relevant = new ArrayList<Integer>();
-        List<Integer> irrelevant = new ArrayList<Integer>();
+        // there is an error iff the lowest ranked relevant label is ranked
+        // lower than the highest ranked irrelevant one
+        int lowestRelevant = Integer.MIN_VALUE;
+        int highestIrrelevant = Integer.MAX_VALUE;
         int numLabels = groundTruth.length;
         for (int index = 0; index < numLabels; index++) {
             if (groundTruth[index]) {
-                relevant.add(index);
+                lowestRelevant = Math.max(lowestRelevant, ranking[index]);
             } else {
-                irrelevant.add(index);
+                highestIrrelevant = Math.min(highestIrrelevant, ranking[index]);
             }
         }
 
-        double isError = 0;
-        boolean terminate = false;
-        for (int rLabel : relevant) {
-            for (int irLabel : irrelevant) {
-                if (ranking[rLabel] > ranking[irLabel]) {
-                    isError = 1;
-                    terminate = true;
-                    break;
-                }
-            }
-            if (terminate) {
-                break;
-            }
-        }
+        return lowestRelevant > highestIrrelevant ? 1 : 0;
+    }
 
-        return isError;
+    @Override
+    public double computeLoss(SortedRanks ranks, int[] ranking, boolean[] groundTruth) {
+        return ranks.getNumRelevant() > 0 && ranks.getLowestRelevantRank() > ranks.getHighestIrrelevantRank() ? 1 : 0;
     }
 }
\ No newline at end of file
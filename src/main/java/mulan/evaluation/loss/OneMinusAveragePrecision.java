@@ -15,9 +15,6 @@
  */
 package mulan.evaluation.loss;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Implementation of the average precision as loss function.
  * 
@@ -32,26 +29,26 @@ public class OneMinusAveragePrecision extends RankingLossFunctionBase {
 
     @Override
     public double computeLoss(int[] ranking, boolean[] trueLabels) {
+        // a new split per call keeps the loss function stateless
+        SortedRanks sortedRanks = new SortedRanks();
+        sortedRanks.split(ranking, trueLabels);
+        return computeLoss(sortedRanks, ranking, trueLabels);
+    }
+
+    @Override
+    public double computeLoss(SortedRanks ranks, int[] ranking, boolean[] trueLabels) {
         double avgP = 0;
         int numLabels = trueLabels.length;
-        List<Integer> relevant = new ArrayList<Integer>();
-        for (int index = 0; index < numLabels; index++) {
-            if (trueLabels[index]) {
-                relevant.add(index);
-            }
-        }
+        int numRelevant = ranks.getNumRelevant();
 
-        if (!relevant.isEmpty()) {
-            for (int r : relevant) {
-                double rankedAbove = 0;
-                for (int rr : relevant) {
-                    if (ranking[rr] <= ranking[r]) {
-                        rankedAbove++;
-                    }
+        if (numRelevant > 0) {
+            for (int r = 0; r < numLabels; r++) {
+                if (trueLabels[r]) {
+                    double rankedAbove = ranks.countRelevantUpTo(ranking[r]);
+                    avgP += (rankedAbove / ranking[r]);
                 }
-                avgP += (rankedAbove / ranking[r]);
             }
-            avgP /= relevant.size();
+            avgP /= numRelevant;
         }
         return 1 - avgP;
     }
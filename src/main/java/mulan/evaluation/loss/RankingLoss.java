@@ -15,8 +15,6 @@
  */
 package mulan.evaluation.loss;
 
-import java.util.ArrayList;
-
 /**
  * Implementation of the "ranking loss" ranking loss function. It is basically
  * the size of the error set divided by all possible pairs of relevant and
@@ -33,29 +31,12 @@ public class RankingLoss extends ErrorSetSize {
     }
 
     @Override
-    public double computeLoss(int[] ranking, boolean[] groundTruth) {
-        int numLabels = groundTruth.length;
-        ArrayList<Integer> trueIndexes = new ArrayList<Integer>();
-        ArrayList<Integer> falseIndexes = new ArrayList<Integer>();
-        for (int labelIndex = 0; labelIndex < numLabels; labelIndex++) {
-            if (groundTruth[labelIndex]) {
-                trueIndexes.add(labelIndex);
-            } else {
-                falseIndexes.add(labelIndex);
-            }
-        }
-
-        if (!trueIndexes.isEmpty() && !falseIndexes.isEmpty()) {
-            int rolp = 0; // reversed ordered label pairs
-            for (int k : trueIndexes) {
-                for (int l : falseIndexes) {
-                    //	if (output[instanceIndex].getConfidences()[trueIndexes.get(k)] <= output[instanceIndex].getConfidences()[falseIndexes.get(l)])
-                    if (ranking[k] > ranking[l]) {
-                        rolp++;
-                    }
-                }
-            }
-            return (double) rolp / (trueIndexes.size() * falseIndexes.size());
+    public double computeLoss(SortedRanks ranks, int[] ranking, boolean[] groundTruth) {
+        double rolp = super.computeLoss(ranks, ranking, groundTruth); // reversed ordered label pairs
+        int numRelevant = ranks.getNumRelevant();
+        int numIrrelevant = ranks.getNumIrrelevant();
+        if (numRelevant > 0 && numIrrelevant > 0) {
+            return rolp / (numRelevant * numIrrelevant);
         } else {
             return 0;
         }
@@ -48,4 +48,18 @@ public abstract class RankingLossFunctionBase implements RankingLossFunction, Se
     }
 
     abstract public double computeLoss(int[] ranking, boolean[] groundTruth);
+
+    /**
+     * Computes the loss of an example whose ranks have already been split, so
+     * that the split can be shared with other losses and measures. By default
+     * the split is ignored.
+     *
+     * @param sortedRanks the split of the given ranking and ground truth
+     * @param ranking the predicted ranking
+     * @param groundTruth the ground truth
+     * @return the loss
+     */
+    public double computeLoss(SortedRanks sortedRanks, int[] ranking, boolean[] groundTruth) {
+        return computeLoss(ranking, groundTruth);
+    }
 }
\ No newline at end of file
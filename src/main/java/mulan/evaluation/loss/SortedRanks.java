@@ -0,0 +1,130 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.evaluation.loss;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Splits a ranking into the sorted ranks of the relevant and of the irrelevant
+ * labels, so that ranking losses can count label pairs in O(L log L) time. The
+ * buffers are reused across examples, so an instance must not be shared
+ * between threads.
+ *
+ * @version 2026.10.17
+ */
+public class SortedRanks implements Serializable {
+
+    private static final long serialVersionUID = 3324185719253466413L;
+    private transient int[] relevant;
+    private transient int[] irrelevant;
+    private transient int numRelevant;
+    private transient int numIrrelevant;
+
+    /**
+     * Splits and sorts the ranks of an example
+     *
+     * @param ranking the rank of each label
+     * @param groundTruth the relevance of each label
+     */
+    public void split(int[] ranking, boolean[] groundTruth) {
+        int numLabels = groundTruth.length;
+        if (relevant == null || relevant.length < numLabels) {
+            relevant = new int[numLabels];
+            irrelevant = new int[numLabels];
+        }
+        numRelevant = 0;
+        numIrrelevant = 0;
+        for (int labelIndex = 0; labelIndex < numLabels; labelIndex++) {
+            if (groundTruth[labelIndex]) {
+                relevant[numRelevant++] = ranking[labelIndex];
+            } else {
+                irrelevant[numIrrelevant++] = ranking[labelIndex];
+            }
+        }
+        Arrays.sort(relevant, 0, numRelevant);
+        Arrays.sort(irrelevant, 0, numIrrelevant);
+    }
+
+    /**
+     * @return the number of relevant labels of the last split
+     */
+    public int getNumRelevant() {
+        return numRelevant;
+    }
+
+    /**
+     * @return the number of irrelevant labels of the last split
+     */
+    public int getNumIrrelevant() {
+        return numIrrelevant;
+    }
+
+    /**
+     * @return the greatest rank of a relevant label of the last split or 0 if
+     * there are no relevant labels
+     */
+    public int getLowestRelevantRank() {
+        return numRelevant == 0 ? 0 : relevant[numRelevant - 1];
+    }
+
+    /**
+     * @return the smallest rank of an irrelevant label of the last split or
+     * {@link Integer#MAX_VALUE} if there are no irrelevant labels
+     */
+    public int getHighestIrrelevantRank() {
+        return numIrrelevant == 0 ? Integer.MAX_VALUE : irrelevant[0];
+    }
+
+    /**
+     * Counts the pairs of a relevant and an irrelevant label of the last split
+     * where the relevant label has a greater rank, i.e. is ranked lower
+     *
+     * @return the size of the error set
+     */
+    public long countErrorPairs() {
+        long pairs = 0;
+        int i = 0;
+        for (int r = 0; r < numRelevant; r++) {
+            while (i < numIrrelevant && irrelevant[i] < relevant[r]) {
+                i++;
+            }
+            pairs += i;
+        }
+        return pairs;
+    }
+
+    /**
+     * Counts the relevant labels of the last split that are ranked at or above
+     * a given rank
+     *
+     * @param rank a rank
+     * @return the number of relevant labels with a rank of at most the given one
+     */
+    public int countRelevantUpTo(int rank) {
+        int low = 0;
+        int high = numRelevant;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (relevant[middle] <= rank) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -15,8 +15,7 @@
  */
 package mulan.evaluation.measure;
 
-import java.util.ArrayList;
-import java.util.List;
+import mulan.evaluation.loss.SortedRanks;
 
 /**
  * Implementation of the average precision measure. It evaluates the average
@@ -29,6 +28,9 @@ import java.util.List;
  */
 public class AveragePrecision extends RankingMeasureBase {
 
+    /** the sorted ranks of the last example */
+    private final SortedRanks sortedRanks = new SortedRanks();
+
     @Override
     public String getName() {
         return "Average Precision";
@@ -41,26 +43,28 @@ public class AveragePrecision extends RankingMeasureBase {
 
     @Override
     protected void updateRanking(int[] ranking, boolean[] trueLabels) {
+        sortedRanks.split(ranking, trueLabels);
+        update(sortedRanks, ranking, trueLabels);
+    }
+
+    @Override
+    protected void updateRanking(int[] ranking, boolean[] trueLabels, ExampleStatistics statistics) {
+        update(statistics.getSortedRanks(), ranking, trueLabels);
+    }
+
+    private void update(SortedRanks ranks, int[] ranking, boolean[] trueLabels) {
         double avgP = 0;
         int numLabels = trueLabels.length;
-        List<Integer> relevant = new ArrayList<>();
-        for (int index = 0; index < numLabels; index++) {
-            if (trueLabels[index]) {
-                relevant.add(index);
-            }
-        }
+        int numRelevant = ranks.getNumRelevant();
 
-        if (!relevant.isEmpty()) {
-            for (int r : relevant) {
-                double rankedAbove = 0;
-                for (int rr : relevant) {
-                    if (ranking[rr] <= ranking[r]) {
-                        rankedAbove++;
-                    }
+        if (numRelevant > 0) {
+            for (int r = 0; r < numLabels; r++) {
+                if (trueLabels[r]) {
+                    double rankedAbove = ranks.countRelevantUpTo(ranking[r]);
+                    avgP += (rankedAbove / ranking[r]);
                 }
-                avgP += (rankedAbove / ranking[r]);
             }
-            avgP /= relevant.size();
+            avgP /= numRelevant;
             sum += avgP;
             count++;
         }
@@ -25,7 +25,7 @@ import mulan.core.ArgumentNullException;
  */
 public abstract class BipartitionMeasureBase extends ClassificationMeasureBase {
 
-    protected void updateInternal(MultiLabelOutput prediction, boolean[] truth) {
+    private boolean[] checkBipartition(MultiLabelOutput prediction, boolean[] truth) {
         boolean[] bipartition = prediction.getBipartition();
         if (bipartition == null) {
             throw new ArgumentNullException("Bipartition is null");
@@ -34,7 +34,16 @@ public abstract class BipartitionMeasureBase extends ClassificationMeasureBase {
             throw new IllegalArgumentException("The dimensions of the " +
                     "bipartition and the ground truth array do not match");
         }
-        updateBipartition(bipartition, truth);
+        return bipartition;
+    }
+
+    protected void updateInternal(MultiLabelOutput prediction, boolean[] truth) {
+        updateBipartition(checkBipartition(prediction, truth), truth);
+    }
+
+    @Override
+    protected void updateInternal(MultiLabelOutput prediction, boolean[] truth, ExampleStatistics statistics) {
+        updateBipartition(checkBipartition(prediction, truth), truth, statistics);
     }
 
     /**
@@ -45,4 +54,16 @@ public abstract class BipartitionMeasureBase extends ClassificationMeasureBase {
      */
     protected abstract void updateBipartition(boolean[] bipartition, boolean[] truth);
 
+    /**
+     * Updates the measure based on an example and its shared intermediate
+     * results. By default the intermediate results are ignored.
+     *
+     * @param bipartition the predicted bipartition
+     * @param truth the ground truth
+     * @param statistics the shared intermediate results of the example
+     */
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        updateBipartition(bipartition, truth);
+    }
+
 }
\ No newline at end of file
@@ -42,6 +42,28 @@ public abstract class ClassificationMeasureBase implements Measure, Serializable
          
     }
 
+    /**
+     * Updates the measure based on an example, using intermediate results that
+     * are shared with the other measures of an evaluation
+     *
+     * @param prediction the output of the algorithm for the example
+     * @param truth the ground truth of the example
+     * @param statistics the shared intermediate results of the example
+     */
+    public final void update(MultiLabelOutput prediction, GroundTruth truth, ExampleStatistics statistics) {
+        if (prediction == null) {
+            throw new ArgumentNullException("Prediction is null");
+        }
+        if (truth == null) {
+            throw new ArgumentNullException("Ground truth is null");
+        }
+        if (!truth.isClassification()) {
+            throw new ArgumentNullException("Classification ground truth is null");
+        }
+
+        updateInternal(prediction, truth.getTrueLabels(), statistics);
+    }
+
     /**
      * Returns a string with the value of a measure
      *
@@ -65,6 +87,18 @@ public abstract class ClassificationMeasureBase implements Measure, Serializable
      */
     protected abstract void updateInternal(MultiLabelOutput prediction, boolean[] truth);
 
+    /**
+     * Updates the classification measure based on an example and its shared
+     * intermediate results. By default the intermediate results are ignored.
+     *
+     * @param prediction the output of the algorithm for the example
+     * @param truth the ground truth of the example
+     * @param statistics the shared intermediate results of the example
+     */
+    protected void updateInternal(MultiLabelOutput prediction, boolean[] truth, ExampleStatistics statistics) {
+        updateInternal(prediction, truth);
+    }
+
     public Measure makeCopy() throws Exception {
         return (Measure) new SerializedObject(this).getObject();
     }
@@ -0,0 +1,362 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.evaluation.measure;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Accumulates the confidences and ground truths of the examples of a binary
+ * problem, in order to rank the examples and to compute the area under the ROC
+ * and the precision-recall curve. <p>
+ *
+ * In exact mode, the confidences and ground truths are kept in primitive
+ * columns, which are sorted by descending confidence at most once after the
+ * last update. The sorted columns serve the ranking of the examples as well as
+ * the areas, which are the same as those of Weka's ThresholdCurve. In
+ * approximate mode, the confidences are counted in equal-width bins over
+ * [0, 1], so that memory does not depend on the number of examples and each
+ * bin acts as one threshold.
+ *
+ * @version 2026.10.17
+ */
+public class ConfidenceCounts implements Serializable {
+
+    private static final long serialVersionUID = -6409125148370718622L;
+    /** the number of bins or 0 to keep the exact confidences */
+    private final int numBins;
+    /** the confidences of the examples (exact mode) */
+    private double[] confidences;
+    /** the ground truths of the examples (exact mode) */
+    private boolean[] actuals;
+    private int numExamples;
+    /** whether the columns are sorted by descending confidence */
+    private boolean sorted;
+    /** the number of positive examples per bin (approximate mode) */
+    private long[] binPositives;
+    /** the number of negative examples per bin (approximate mode) */
+    private long[] binNegatives;
+
+    /**
+     * Creates empty counts that keep the exact confidences
+     */
+    public ConfidenceCounts() {
+        this(0);
+    }
+
+    /**
+     * Creates empty counts
+     *
+     * @param numBins the number of bins to count confidences in or 0 to keep
+     * the exact confidences
+     */
+    public ConfidenceCounts(int numBins) {
+        if (numBins < 0) {
+            throw new IllegalArgumentException("The number of bins must not be negative.");
+        }
+        this.numBins = numBins;
+        reset();
+    }
+
+    /**
+     * Removes all examples
+     */
+    public final void reset() {
+        numExamples = 0;
+        sorted = true;
+        if (numBins == 0) {
+            confidences = new double[16];
+            actuals = new boolean[16];
+        } else {
+            binPositives = new long[numBins];
+            binNegatives = new long[numBins];
+        }
+    }
+
+    /**
+     * Adds an example
+     *
+     * @param confidence the confidence that the example is positive
+     * @param actual whether the example is positive
+     */
+    public void add(double confidence, boolean actual) {
+        if (numBins > 0) {
+            if (actual) {
+                binPositives[bin(confidence)]++;
+            } else {
+                binNegatives[bin(confidence)]++;
+            }
+        } else {
+            ensureCapacity(numExamples + 1);
+            confidences[numExamples] = confidence;
+            actuals[numExamples] = actual;
+            numExamples++;
+            sorted = false;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > confidences.length) {
+            int length = Math.max(2 * confidences.length, capacity);
+            confidences = Arrays.copyOf(confidences, length);
+            actuals = Arrays.copyOf(actuals, length);
+        }
+    }
+
+    private int bin(double confidence) {
+        if (!(confidence > 0)) {
+            return 0;
+        }
+        return Math.min(numBins - 1, (int) (confidence * numBins));
+    }
+
+    /**
+     * Adds the examples of other counts with the same number of bins
+     *
+     * @param other the counts to add
+     */
+    public void addAll(ConfidenceCounts other) {
+        if (other.numBins != numBins) {
+            throw new IllegalArgumentException("Cannot add counts with a different number of bins.");
+        }
+        if (numBins > 0) {
+            for (int i = 0; i < numBins; i++) {
+                binPositives[i] += other.binPositives[i];
+                binNegatives[i] += other.binNegatives[i];
+            }
+            return;
+        }
+        ensureCapacity(numExamples + other.numExamples);
+        System.arraycopy(other.confidences, 0, confidences, numExamples, other.numExamples);
+        System.arraycopy(other.actuals, 0, actuals, numExamples, other.numExamples);
+        numExamples += other.numExamples;
+        sorted = sorted && other.numExamples == 0;
+    }
+
+    /**
+     * Returns counts that hold the examples of all given counts, e.g. to
+     * compute micro-averaged areas
+     *
+     * @param counts counts with the same number of bins
+     * @return the union of the counts
+     */
+    public static ConfidenceCounts union(ConfidenceCounts[] counts) {
+        ConfidenceCounts union = new ConfidenceCounts(counts.length == 0 ? 0 : counts[0].numBins);
+        for (ConfidenceCounts c : counts) {
+            union.addAll(c);
+        }
+        return union;
+    }
+
+    /**
+     * @return the number of examples
+     */
+    public long size() {
+        if (numBins == 0) {
+            return numExamples;
+        }
+        long size = 0;
+        for (int i = 0; i < numBins; i++) {
+            size += binPositives[i] + binNegatives[i];
+        }
+        return size;
+    }
+
+    /**
+     * Sorts the columns by descending confidence, keeping examples with equal
+     * confidences in the order they were added. NaN is ranked first.
+     */
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        int[] order = new int[numExamples];
+        for (int i = 0; i < numExamples; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[numExamples], 0, numExamples);
+        double[] sortedConfidences = new double[confidences.length];
+        boolean[] sortedActuals = new boolean[actuals.length];
+        for (int i = 0; i < numExamples; i++) {
+            sortedConfidences[i] = confidences[order[i]];
+            sortedActuals[i] = actuals[order[i]];
+        }
+        confidences = sortedConfidences;
+        actuals = sortedActuals;
+        sorted = true;
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle);
+        mergeSort(order, buffer, middle, to);
+        if (Double.compare(confidences[order[middle - 1]], confidences[order[middle]]) >= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j == to || (i < middle && Double.compare(confidences[buffer[i]], confidences[buffer[j]]) >= 0)) {
+                order[k] = buffer[i++];
+            } else {
+                order[k] = buffer[j++];
+            }
+        }
+    }
+
+    /**
+     * Ranks the examples by descending confidence, keeping examples with equal
+     * confidences in the order they were added. Only available in exact mode.
+     *
+     * @return the ground truths of the examples in the order of their ranks
+     */
+    public boolean[] getRankedActuals() {
+        if (numBins > 0) {
+            throw new IllegalStateException("Binned counts do not rank the examples.");
+        }
+        sort();
+        return Arrays.copyOf(actuals, numExamples);
+    }
+
+    /**
+     * Computes the points of the threshold curve, one per distinct confidence
+     * (or non-empty bin) in ascending order, followed by the point where all
+     * examples are predicted negative.
+     *
+     * @return the true positives, false positives and false negatives of the
+     * points or null if there are no examples
+     */
+    private double[][] curve() {
+        double[] groupPositives;
+        double[] groupNegatives;
+        int numGroups = 0;
+        if (numBins > 0) {
+            groupPositives = new double[numBins];
+            groupNegatives = new double[numBins];
+            for (int i = 0; i < numBins; i++) {
+                if (binPositives[i] + binNegatives[i] > 0) {
+                    groupPositives[numGroups] = binPositives[i];
+                    groupNegatives[numGroups] = binNegatives[i];
+                    numGroups++;
+                }
+            }
+        } else {
+            // ascending, so that NaN, ranked first, joins the last group as in
+            // ThresholdCurve
+            sort();
+            groupPositives = new double[numExamples];
+            groupNegatives = new double[numExamples];
+            double threshold = 0;
+            for (int i = numExamples - 1; i >= 0; i--) {
+                if (numGroups == 0 || confidences[i] > threshold) {
+                    threshold = confidences[i];
+                    numGroups++;
+                }
+                if (actuals[i]) {
+                    groupPositives[numGroups - 1]++;
+                } else {
+                    groupNegatives[numGroups - 1]++;
+                }
+            }
+        }
+        if (numGroups == 0) {
+            return null;
+        }
+
+        double totalPositives = 0;
+        double totalNegatives = 0;
+        for (int g = 0; g < numGroups; g++) {
+            totalPositives += groupPositives[g];
+            totalNegatives += groupNegatives[g];
+        }
+        double[] tp = new double[numGroups + 1];
+        double[] fp = new double[numGroups + 1];
+        double[] fn = new double[numGroups + 1];
+        tp[0] = totalPositives;
+        fp[0] = totalNegatives;
+        for (int g = 1; g < numGroups; g++) {
+            tp[g] = tp[g - 1] - groupPositives[g - 1];
+            fp[g] = fp[g - 1] - groupNegatives[g - 1];
+            fn[g] = fn[g - 1] + groupPositives[g - 1];
+        }
+        fn[numGroups] = totalPositives;
+        return new double[][]{tp, fp, fn};
+    }
+
+    /**
+     * Computes the area under the ROC curve
+     *
+     * @return the area or NaN if there are no examples
+     */
+    public double getROCArea() {
+        double[][] curve = curve();
+        if (curve == null) {
+            return Double.NaN;
+        }
+        double[] tp = curve[0];
+        double[] fp = curve[1];
+        int n = tp.length;
+        double area = 0;
+        double cumNeg = 0;
+        for (int i = 0; i < n; i++) {
+            double cip;
+            double cin;
+            if (i < n - 1) {
+                cip = tp[i] - tp[i + 1];
+                cin = fp[i] - fp[i + 1];
+            } else {
+                cip = tp[n - 1];
+                cin = fp[n - 1];
+            }
+            area += cip * (cumNeg + (0.5 * cin));
+            cumNeg += cin;
+        }
+        return area / (tp[0] * fp[0]);
+    }
+
+    /**
+     * Computes the area under the precision-recall curve
+     *
+     * @return the area or NaN if there are no examples or the area is 0
+     */
+    public double getPRCArea() {
+        double[][] curve = curve();
+        if (curve == null) {
+            return Double.NaN;
+        }
+        double[] tp = curve[0];
+        double[] fp = curve[1];
+        double[] fn = curve[2];
+        int n = tp.length;
+        double area = 0;
+        double recallLast = recall(tp[n - 1], fn[n - 1]);
+        for (int i = n - 2; i >= 0; i--) {
+            double recall = recall(tp[i], fn[i]);
+            double precision = tp[i] + fp[i] == 0 ? 0 : tp[i] / (tp[i] + fp[i]);
+            area += precision * (recall - recallLast);
+            recallLast = recall;
+        }
+        return area == 0 ? Double.NaN : area;
+    }
+
+    private static double recall(double tp, double fn) {
+        return tp + fn == 0 ? 0 : tp / (tp + fn);
+    }
+}
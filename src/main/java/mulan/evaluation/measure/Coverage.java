@@ -35,22 +35,22 @@ public class Coverage extends RankingMeasureBase {
 
     @Override
     protected void updateRanking(int[] ranking, boolean[] trueLabels) {
+        // the depth of the lowest ranked relevant label
         int howDeep = 0;
         int numLabels = trueLabels.length;
-        for (int rank = numLabels; rank >= 1; rank--) {
-            int indexOfRank;
-            for (indexOfRank = 0; indexOfRank < numLabels; indexOfRank++) {
-                if (ranking[indexOfRank] == rank) {
-                    break;
-                }
-            }
-            if (trueLabels[indexOfRank]) {
-                howDeep = rank - 1;
-                break;
+        for (int labelIndex = 0; labelIndex < numLabels; labelIndex++) {
+            if (trueLabels[labelIndex]) {
+                howDeep = Math.max(howDeep, ranking[labelIndex] - 1);
             }
         }
 
         sum += howDeep;
         count++;
     }
+
+    @Override
+    protected void updateRanking(int[] ranking, boolean[] trueLabels, ExampleStatistics statistics) {
+        sum += Math.max(0, statistics.getSortedRanks().getLowestRelevantRank() - 1);
+        count++;
+    }
 }
\ No newline at end of file
@@ -53,17 +53,13 @@ public class ExampleBasedAccuracy extends ExampleBasedBipartitionMeasureBase {
 
     @Override
     protected void updateBipartition(boolean[] bipartition, boolean[] truth) {
-        double intersection = 0;
-        double union = 0;
-        for (int i = 0; i < truth.length; i++) {
-            if (bipartition[i] && truth[i]) {
-                intersection++;
-            }
-            if (bipartition[i] || truth[i]) {
-                union++;
-            }
-        }
+        updateBipartition(bipartition, truth, statisticsOf(bipartition, truth));
+    }
 
+    @Override
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        double intersection = statistics.getNumTruePositives();
+        double union = intersection + statistics.getNumFalsePositives() + statistics.getNumFalseNegatives();
         if (union == 0) {
             sum += Math.pow(1, forgivenessRate);
         } else {
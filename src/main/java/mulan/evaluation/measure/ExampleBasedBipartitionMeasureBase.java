@@ -31,6 +31,11 @@ public abstract class ExampleBasedBipartitionMeasureBase extends BipartitionMeas
      * The number of validation examples processed
      */
     protected int count;
+    /**
+     * The intermediate results of the updates that come without them, reused
+     * across examples
+     */
+    private transient ExampleStatistics statistics;
 
     @Override
     public void reset() {
@@ -38,9 +43,32 @@ public abstract class ExampleBasedBipartitionMeasureBase extends BipartitionMeas
         count = 0;
     }
 
+    @Override
+    public void combine(Measure other) {
+        ExampleBasedBipartitionMeasureBase that = (ExampleBasedBipartitionMeasureBase) other;
+        sum += that.sum;
+        count += that.count;
+    }
+
     @Override
     public double getValue() {
         return sum / count;
     }
 
+    /**
+     * Computes the intermediate results of an example, for updates that come
+     * without them. The returned object is overwritten by the next call.
+     *
+     * @param bipartition the predicted bipartition
+     * @param truth the ground truth
+     * @return the intermediate results of the example
+     */
+    ExampleStatistics statisticsOf(boolean[] bipartition, boolean[] truth) {
+        if (statistics == null) {
+            statistics = new ExampleStatistics();
+        }
+        statistics.set(bipartition, truth);
+        return statistics;
+    }
+
 }
\ No newline at end of file
@@ -38,6 +38,13 @@ public abstract class ExampleBasedConfidenceMeasureBase extends ConfidenceMeasur
         count = 0;
     }
 
+    @Override
+    public void combine(Measure other) {
+        ExampleBasedConfidenceMeasureBase that = (ExampleBasedConfidenceMeasureBase) other;
+        sum += that.sum;
+        count += that.count;
+    }
+
     @Override
     public double getValue() {
         return sum / count;
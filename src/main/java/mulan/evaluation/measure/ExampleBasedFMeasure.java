@@ -54,21 +54,14 @@ public class ExampleBasedFMeasure extends ExampleBasedBipartitionMeasureBase {
 
     @Override
     protected void updateBipartition(boolean[] bipartition, boolean[] truth) {
-        double tp = 0;
-        double fp = 0;
-        double fn = 0;
-        for (int i = 0; i < truth.length; i++) {
-            if (bipartition[i] && truth[i]) {
-                tp++;
-            }
-            if (bipartition[i] && !truth[i]) {
-                fp++;
-            }
-            if (!bipartition[i] && truth[i]) {
-                fn++;
-            }
-        }
+        updateBipartition(bipartition, truth, statisticsOf(bipartition, truth));
+    }
 
+    @Override
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        double tp = statistics.getNumTruePositives();
+        double fp = statistics.getNumFalsePositives();
+        double fn = statistics.getNumFalseNegatives();
         sum += InformationRetrievalMeasures.fMeasure(tp, fp, fn, beta);
         count++;
     }
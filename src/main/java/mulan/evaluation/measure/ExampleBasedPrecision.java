@@ -35,22 +35,14 @@ public class ExampleBasedPrecision extends ExampleBasedBipartitionMeasureBase {
 
     @Override
     protected void updateBipartition(boolean[] bipartition, boolean[] truth) {
-        double tp = 0;
-        double fp = 0;
-        double fn = 0;
-        for (int i = 0; i < truth.length; i++) {
-            if (bipartition[i]) {
-                if (truth[i]) {
-                    tp++;
-                } else {
-                    fp++;
-                }
-            } else {
-                if (truth[i]) {
-                    fn++;
-                }
-            }
-        }
+        updateBipartition(bipartition, truth, statisticsOf(bipartition, truth));
+    }
+
+    @Override
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        double tp = statistics.getNumTruePositives();
+        double fp = statistics.getNumFalsePositives();
+        double fn = statistics.getNumFalseNegatives();
         sum += InformationRetrievalMeasures.precision(tp, fp, fn);
         count++;
     }
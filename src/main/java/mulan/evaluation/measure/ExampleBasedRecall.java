@@ -30,28 +30,20 @@ public class ExampleBasedRecall extends ExampleBasedBipartitionMeasureBase {
 
     @Override
     protected void updateBipartition(boolean[] bipartition, boolean[] truth) {
-        double tp = 0;
-        double fp = 0;
-        double fn = 0;
-        for (int i = 0; i < truth.length; i++) {
-            if (bipartition[i]) {
-                if (truth[i]) {
-                    tp++;
-                } else {
-                    fp++;
-                }
-            } else {
-                if (truth[i]) {
-                    fn++;
-                }
-            }
-        }
-        sum += InformationRetrievalMeasures.recall(tp, fp, fn);
-        count++;
+        updateBipartition(bipartition, truth, statisticsOf(bipartition, truth));
     }
 
     @Override
     public double getIdealValue() {
         return 1;
     }
+
+    @Override
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        double tp = statistics.getNumTruePositives();
+        double fp = statistics.getNumFalsePositives();
+        double fn = statistics.getNumFalseNegatives();
+        sum += InformationRetrievalMeasures.recall(tp, fp, fn);
+        count++;
+    }
 }
\ No newline at end of file
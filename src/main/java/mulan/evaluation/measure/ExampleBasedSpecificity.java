@@ -35,23 +35,14 @@ public class ExampleBasedSpecificity extends ExampleBasedBipartitionMeasureBase
 
     @Override
     protected void updateBipartition(boolean[] bipartition, boolean[] truth) {
-        double tn = 0;
-        double fp = 0;
-        double fn = 0;
-        for (int i = 0; i < truth.length; i++) {
-            if (!truth[i]) {
-                if (!bipartition[i]) {
-                    tn++;
-                } else {
-                    fp++;
-                }
-            } else {
-                if (!bipartition[i]) {
-                    fn++;
-                }
-            }
-        }
+        updateBipartition(bipartition, truth, statisticsOf(bipartition, truth));
+    }
 
+    @Override
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        double tn = statistics.getNumTrueNegatives();
+        double fp = statistics.getNumFalsePositives();
+        double fn = statistics.getNumFalseNegatives();
         sum += InformationRetrievalMeasures.specificity(tn, fp, fn);
         count++;
     }
@@ -0,0 +1,182 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.evaluation.measure;
+
+import mulan.classifier.MultiLabelOutput;
+import mulan.evaluation.loss.SortedRanks;
+
+/**
+ * Intermediate results of one example that are shared by the measures of an
+ * evaluation: the confusion of the predicted bipartition with the ground truth
+ * and the sorted ranks of the relevant and the irrelevant labels. Each of them
+ * is computed on first use, at most once per example. <p>
+ *
+ * An instance is reused across examples, so it must not be shared between
+ * threads.
+ *
+ * @version 2026.10.17
+ */
+public class ExampleStatistics {
+
+    private MultiLabelOutput prediction;
+    private boolean[] bipartition;
+    private boolean[] truth;
+    private boolean hasConfusion;
+    private boolean hasSortedRanks;
+    /** the indices of the labels per outcome, in label order */
+    private int[] truePositiveLabels;
+    private int[] falsePositiveLabels;
+    private int[] falseNegativeLabels;
+    private int[] trueNegativeLabels;
+    private int numTruePositives;
+    private int numFalsePositives;
+    private int numFalseNegatives;
+    private int numTrueNegatives;
+    private final SortedRanks sortedRanks = new SortedRanks();
+
+    /**
+     * Moves on to a new example
+     *
+     * @param aPrediction the output of the learner for the example
+     * @param aTruth the ground truth of the example
+     */
+    public void set(MultiLabelOutput aPrediction, boolean[] aTruth) {
+        prediction = aPrediction;
+        bipartition = aPrediction.getBipartition();
+        truth = aTruth;
+        hasConfusion = false;
+        hasSortedRanks = false;
+    }
+
+    /**
+     * Moves on to a new example of which only the predicted bipartition is
+     * known, so that the sorted ranks are not available
+     *
+     * @param aBipartition the predicted bipartition of the example
+     * @param aTruth the ground truth of the example
+     */
+    void set(boolean[] aBipartition, boolean[] aTruth) {
+        prediction = null;
+        bipartition = aBipartition;
+        truth = aTruth;
+        hasConfusion = false;
+        hasSortedRanks = false;
+    }
+
+    private void computeConfusion() {
+        if (hasConfusion) {
+            return;
+        }
+        int numLabels = truth.length;
+        if (truePositiveLabels == null || truePositiveLabels.length < numLabels) {
+            truePositiveLabels = new int[numLabels];
+            falsePositiveLabels = new int[numLabels];
+            falseNegativeLabels = new int[numLabels];
+            trueNegativeLabels = new int[numLabels];
+        }
+        numTruePositives = 0;
+        numFalsePositives = 0;
+        numFalseNegatives = 0;
+        numTrueNegatives = 0;
+        for (int labelIndex = 0; labelIndex < numLabels; labelIndex++) {
+            if (truth[labelIndex]) {
+                if (bipartition[labelIndex]) {
+                    truePositiveLabels[numTruePositives++] = labelIndex;
+                } else {
+                    falseNegativeLabels[numFalseNegatives++] = labelIndex;
+                }
+            } else {
+                if (bipartition[labelIndex]) {
+                    falsePositiveLabels[numFalsePositives++] = labelIndex;
+                } else {
+                    trueNegativeLabels[numTrueNegatives++] = labelIndex;
+                }
+            }
+        }
+        hasConfusion = true;
+    }
+
+    /**
+     * @return the number of relevant labels in the predicted bipartition
+     */
+    public int getNumTruePositives() {
+        computeConfusion();
+        return numTruePositives;
+    }
+
+    /**
+     * @return the number of irrelevant labels in the predicted bipartition
+     */
+    public int getNumFalsePositives() {
+        computeConfusion();
+        return numFalsePositives;
+    }
+
+    /**
+     * @return the number of relevant labels missing from the predicted
+     * bipartition
+     */
+    public int getNumFalseNegatives() {
+        computeConfusion();
+        return numFalseNegatives;
+    }
+
+    /**
+     * @return the number of irrelevant labels missing from the predicted
+     * bipartition
+     */
+    public int getNumTrueNegatives() {
+        computeConfusion();
+        return numTrueNegatives;
+    }
+
+    /**
+     * Adds the outcome of each label of the example to per-label counts
+     *
+     * @param truePositives the number of true positives per label
+     * @param falsePositives the number of false positives per label
+     * @param falseNegatives the number of false negatives per label
+     * @param trueNegatives the number of true negatives per label
+     */
+    public void addConfusion(double[] truePositives, double[] falsePositives,
+                             double[] falseNegatives, double[] trueNegatives) {
+        computeConfusion();
+        for (int i = 0; i < numTruePositives; i++) {
+            truePositives[truePositiveLabels[i]]++;
+        }
+        for (int i = 0; i < numFalsePositives; i++) {
+            falsePositives[falsePositiveLabels[i]]++;
+        }
+        for (int i = 0; i < numFalseNegatives; i++) {
+            falseNegatives[falseNegativeLabels[i]]++;
+        }
+        for (int i = 0; i < numTrueNegatives; i++) {
+            trueNegatives[trueNegativeLabels[i]]++;
+        }
+    }
+
+    /**
+     * @return the predicted ranks of the example, split into the sorted ranks
+     * of the relevant and of the irrelevant labels
+     */
+    public SortedRanks getSortedRanks() {
+        if (!hasSortedRanks) {
+            sortedRanks.split(prediction.getRanking(), truth);
+            hasSortedRanks = true;
+        }
+        return sortedRanks;
+    }
+}
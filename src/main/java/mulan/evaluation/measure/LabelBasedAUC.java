@@ -15,11 +15,10 @@
  */
 package mulan.evaluation.measure;
 
-import weka.classifiers.evaluation.NominalPrediction;
-import weka.core.FastVector;
-
 /**
- * Implementation of the label-based macro precision measure.
+ * Base class for the label-based AUC measures. The confidences are accumulated
+ * per label in primitive {@link ConfidenceCounts}, either exactly or, to bound
+ * memory on large test sets, in a fixed number of bins.
  * 
  * @author Grigorios Tsoumakas
  * @version 2012.07.17
@@ -28,10 +27,10 @@ public abstract class LabelBasedAUC extends ConfidenceMeasureBase {
 
     /** The number of labels */
     protected int numOfLabels;
-    /** The predictions for each label */
-    protected FastVector[] m_Predictions;
-    /** The predictions for all labels */
-    protected FastVector all_Predictions;
+    /** The number of bins or 0 for the exact AUC */
+    protected int numBins;
+    /** The confidences for each label */
+    protected ConfidenceCounts[] labelCounts;
 
     /**
      * Creates a new instance of this class
@@ -39,20 +38,38 @@ public abstract class LabelBasedAUC extends ConfidenceMeasureBase {
      * @param numOfLabels the number of labels
      */
     public LabelBasedAUC(int numOfLabels) {
+        this(numOfLabels, 0);
+    }
+
+    /**
+     * Creates a new instance of this class that approximates the AUC by
+     * counting the confidences in equal-width bins
+     * 
+     * @param numOfLabels the number of labels
+     * @param numBins the number of bins or 0 for the exact AUC
+     */
+    public LabelBasedAUC(int numOfLabels, int numBins) {
         this.numOfLabels = numOfLabels;
-        m_Predictions = new FastVector[numOfLabels];
+        this.numBins = numBins;
+        labelCounts = new ConfidenceCounts[numOfLabels];
         for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
-            m_Predictions[labelIndex] = new FastVector();
+            labelCounts[labelIndex] = new ConfidenceCounts(numBins);
         }
-        all_Predictions = new FastVector();
     }
 
     @Override
     public void reset() {
         for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
-            m_Predictions[labelIndex] = new FastVector();
+            labelCounts[labelIndex].reset();
+        }
+    }
+
+    @Override
+    public void combine(Measure other) {
+        LabelBasedAUC that = (LabelBasedAUC) other;
+        for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
+            labelCounts[labelIndex].addAll(that.labelCounts[labelIndex]);
         }
-        all_Predictions = new FastVector();
     }
 
     @Override
@@ -63,21 +80,7 @@ public abstract class LabelBasedAUC extends ConfidenceMeasureBase {
     @Override
     protected void updateConfidence(double[] confidences, boolean[] truth) {
         for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
-
-            int classValue;
-            boolean actual = truth[labelIndex];
-            if (actual) {
-                classValue = 1;
-            } else {
-                classValue = 0;
-            }
-
-            double[] dist = new double[2];
-            dist[1] = confidences[labelIndex];
-            dist[0] = 1 - dist[1];
-
-            m_Predictions[labelIndex].addElement(new NominalPrediction(classValue, dist, 1));
-            all_Predictions.addElement(new NominalPrediction(classValue, dist, 1));
+            labelCounts[labelIndex].add(confidences[labelIndex], truth[labelIndex]);
         }
     }
 }
\ No newline at end of file
@@ -15,11 +15,11 @@
  */
 package mulan.evaluation.measure;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
+ * Base class for the measures that rank the examples of each label by
+ * confidence. The confidences and ground truths are kept per label in the
+ * primitive columns of {@link ConfidenceCounts}, which are sorted at most once
+ * after the last update.
  * 
  * @author Eleftherios Spyromitros-Xioufis
  * @version 2010.12.04
@@ -28,8 +28,8 @@ public abstract class LabelBasedAveragePrecision extends ConfidenceMeasureBase {
 
     /** the number of labels */
     protected int numOfLabels;
-    /** collection that stores all predictions and ground truths */
-    protected List<ConfidenceActual>[] confact;
+    /** the confidences and ground truths for each label */
+    protected ConfidenceCounts[] labelCounts;
 
     /**
      * Creates a new instance of this class
@@ -38,78 +38,42 @@ public abstract class LabelBasedAveragePrecision extends ConfidenceMeasureBase {
      */
     public LabelBasedAveragePrecision(int numOfLabels) {
         this.numOfLabels = numOfLabels;
-        confact = new ArrayList[numOfLabels];
+        labelCounts = new ConfidenceCounts[numOfLabels];
         for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
-            confact[labelIndex] = new ArrayList<>();
+            labelCounts[labelIndex] = new ConfidenceCounts();
         }
     }
 
     @Override
     protected void updateConfidence(double[] confidences, boolean[] truth) {
         for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
-            boolean actual = truth[labelIndex];
-            // boolean predicted = bipartition[labelIndex];
-            double confidence = confidences[labelIndex];
-            // another metric...
-            // if (predicted) {
-            confact[labelIndex].add(new ConfidenceActual(confidence, actual));
-            // }
+            labelCounts[labelIndex].add(confidences[labelIndex], truth[labelIndex]);
+        }
+    }
+
+    @Override
+    public void combine(Measure other) {
+        LabelBasedAveragePrecision that = (LabelBasedAveragePrecision) other;
+        for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
+            labelCounts[labelIndex].addAll(that.labelCounts[labelIndex]);
         }
     }
 
     @Override
     public void reset() {
         for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
-            confact[labelIndex].clear();
+            labelCounts[labelIndex].reset();
         }
     }
 
     /**
-     * Class that stores a confidence and a ground truth for one label/example
+     * Returns the ground truths of a label, ranked by descending confidence.
+     * Examples with equal confidences keep the order of their updates.
+     *
+     * @param labelIndex the index of a label (starting from 0)
+     * @return the ranked ground truths
      */
-    protected class ConfidenceActual implements Comparable, Serializable {
-
-        private boolean actual;
-        private double confidence;
-
-        /**
-         * Creates a new instance of this class
-         *
-         * @param confidence the confidence
-         * @param actual the ground truth
-         */
-        public ConfidenceActual(double confidence, boolean actual) {
-            this.actual = actual;
-            this.confidence = confidence;
-        }
-
-        /**
-         * Returns the ground truth
-         *
-         * @return the ground truht
-         */
-        public boolean getActual() {
-            return actual;
-        }
-
-        /**
-         * Returns the confidence
-         *
-         * @return the confidence
-         */
-        public double getConfidence() {
-            return confidence;
-        }
-
-        @Override
-        public int compareTo(Object o) {
-            if (this.confidence > ((ConfidenceActual) o).confidence) {
-                return 1;
-            } else if (this.confidence < ((ConfidenceActual) o).confidence) {
-                return -1;
-            } else {
-                return 0;
-            }
-        }
+    protected boolean[] getRankedActuals(int labelIndex) {
+        return labelCounts[labelIndex].getRankedActuals();
     }
 }
\ No newline at end of file
@@ -79,6 +79,22 @@ public abstract class LabelBasedBipartitionMeasureBase extends BipartitionMeasur
         }
     }
 
+    @Override
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        statistics.addConfusion(truePositives, falsePositives, falseNegatives, trueNegatives);
+    }
+
+    @Override
+    public void combine(Measure other) {
+        LabelBasedBipartitionMeasureBase that = (LabelBasedBipartitionMeasureBase) other;
+        for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
+            falseNegatives[labelIndex] += that.falseNegatives[labelIndex];
+            truePositives[labelIndex] += that.truePositives[labelIndex];
+            falsePositives[labelIndex] += that.falsePositives[labelIndex];
+            trueNegatives[labelIndex] += that.trueNegatives[labelIndex];
+        }
+    }
+
     @Override
     public void reset() {
         for (int labelIndex = 0; labelIndex < numOfLabels; labelIndex++) {
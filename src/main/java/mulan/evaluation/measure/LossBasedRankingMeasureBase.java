@@ -16,6 +16,7 @@
 package mulan.evaluation.measure;
 
 import mulan.evaluation.loss.RankingLossFunction;
+import mulan.evaluation.loss.RankingLossFunctionBase;
 
 /**
  *
@@ -42,6 +43,16 @@ public abstract class LossBasedRankingMeasureBase extends RankingMeasureBase {
         count++;
     }
 
+    @Override
+    protected void updateRanking(int[] ranking, boolean[] truth, ExampleStatistics statistics) {
+        if (!(loss instanceof RankingLossFunctionBase)) {
+            updateRanking(ranking, truth);
+            return;
+        }
+        sum += ((RankingLossFunctionBase) loss).computeLoss(statistics.getSortedRanks(), ranking, truth);
+        count++;
+    }
+
     @Override
     public String getName() {
         return loss.getName();
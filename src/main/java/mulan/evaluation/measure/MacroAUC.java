@@ -15,8 +15,6 @@
  */
 package mulan.evaluation.measure;
 
-import weka.classifiers.evaluation.ThresholdCurve;
-import weka.core.Instances;
 import weka.core.Utils;
 
 /**
@@ -36,6 +34,17 @@ public class MacroAUC extends LabelBasedAUC implements MacroAverageMeasure {
         super(numOfLabels);
     }
 
+    /**
+     * Creates a new instance of this class that approximates the AUC by
+     * counting the confidences in equal-width bins
+     *
+     * @param numOfLabels the number of labels
+     * @param numBins the number of bins or 0 for the exact AUC
+     */
+    public MacroAUC(int numOfLabels, int numBins) {
+        super(numOfLabels, numBins);
+    }
+
     @Override
     public String getName() {
         return "Macro-averaged AUC";
@@ -45,9 +54,7 @@ public class MacroAUC extends LabelBasedAUC implements MacroAverageMeasure {
     public double getValue() {
         double[] labelAUC = new double[numOfLabels];
         for (int i = 0; i < numOfLabels; i++) {
-            ThresholdCurve tc = new ThresholdCurve();
-            Instances result = tc.getCurve(m_Predictions[i], 1);
-            labelAUC[i] = ThresholdCurve.getROCArea(result);
+            labelAUC[i] = labelCounts[i].getROCArea();
         }
         return Utils.mean(labelAUC);
     }
@@ -60,9 +67,7 @@ public class MacroAUC extends LabelBasedAUC implements MacroAverageMeasure {
      */
     @Override
     public double getValue(int labelIndex) {
-        ThresholdCurve tc = new ThresholdCurve();
-        Instances result = tc.getCurve(m_Predictions[labelIndex], 1);
-        return ThresholdCurve.getROCArea(result);  
+        return labelCounts[labelIndex].getROCArea();
     }
 
 }
\ No newline at end of file
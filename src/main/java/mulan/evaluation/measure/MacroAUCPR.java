@@ -1,7 +1,5 @@
 package mulan.evaluation.measure;
 
-import weka.classifiers.evaluation.ThresholdCurve;
-import weka.core.Instances;
 import weka.core.Utils;
 
 /**
@@ -17,6 +15,17 @@ public class MacroAUCPR extends LabelBasedAUC implements MacroAverageMeasure{
 		super(numOfLabels);
 		// TODO Auto-generated constructor stub
 	}
+
+    /**
+     * Creates a new instance of this class that approximates the AUCPR by
+     * counting the confidences in equal-width bins
+     *
+     * @param numOfLabels the number of labels
+     * @param numBins the number of bins or 0 for the exact AUCPR
+     */
+    public MacroAUCPR(int numOfLabels, int numBins) {
+        super(numOfLabels, numBins);
+    }
 	
     @Override
     public String getName() {
@@ -27,21 +36,7 @@ public class MacroAUCPR extends LabelBasedAUC implements MacroAverageMeasure{
     public double getValue() {
         double[] labelAUCPR = new double[numOfLabels];
         for (int i = 0; i < numOfLabels; i++) {
-            ThresholdCurve tc = new ThresholdCurve();
-            try{
-                Instances result = tc.getCurve(m_Predictions[i], 1);
-             // When the "m_Predictions[i].size()==0" is true, the return of "getCurve" function is "null" 
-                labelAUCPR[i] = ThresholdCurve.getPRCArea(result);
-            }
-            catch (Exception e){  //when "result" is "null"
-            	//e.printStackTrace();
-            	labelAUCPR[i]=0;
-            }
-            
-            //when the AUCPR is NaN (true labels only contain "1" or "0" values)
-            if(Double.isNaN(labelAUCPR[i])){
-            	labelAUCPR[i]=0;       
-            }
+            labelAUCPR[i] = getValue(i);
         }
         return Utils.mean(labelAUCPR);
     }
@@ -54,23 +49,11 @@ public class MacroAUCPR extends LabelBasedAUC implements MacroAverageMeasure{
      */
     @Override
     public double getValue(int labelIndex) {
-        ThresholdCurve tc = new ThresholdCurve();
-        try{
-        	Instances result = tc.getCurve(m_Predictions[labelIndex], 1);
-        	double d=ThresholdCurve.getPRCArea(result);
-        	if(Double.isNaN(d)){
-        		return 0;  //when the AUCPR is NaN (true labels only contain "1" or "0" values)
-        	}
-        	else{
-        		return d;
-        	}
-        }
-        catch (Exception e){
-        	//e.printStackTrace();
-        	return 0;
+        double d = labelCounts[labelIndex].getPRCArea();
+        if (Double.isNaN(d)) {
+            return 0;  //when there are no predictions or the true labels only contain "1" or "0" values
         }
-        
-          
+        return d;
     }
     
     @Override
@@ -70,6 +70,16 @@ public interface Measure {
      */
     public Measure makeCopy() throws Exception;
 
+    /**
+     * Adds the cumulated values of another measure of the same type to this
+     * measure, e.g. to merge the values computed on different parts of a data
+     * set. The result is the same as if this measure had also been updated
+     * with the predictions of the other measure, after its own predictions.
+     *
+     * @param other a measure of the same type
+     */
+    void combine(Measure other);
+
     /**
      * Resets the cumulated measure value, so the process of computation can be started
      * from beginning (e.g. for a new series of outputs from learning task).
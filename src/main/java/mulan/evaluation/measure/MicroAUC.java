@@ -15,9 +15,6 @@
  */
 package mulan.evaluation.measure;
 
-import weka.classifiers.evaluation.ThresholdCurve;
-import weka.core.Instances;
-
 /**
  * Implementation of the micro-averaged AUC measure.
  *
@@ -34,6 +31,17 @@ public class MicroAUC extends LabelBasedAUC {
         super(numOfLabels);
     }
 
+    /**
+     * Creates a new instance of this class that approximates the AUC by
+     * counting the confidences in equal-width bins
+     *
+     * @param numOfLabels the number of labels
+     * @param numBins the number of bins or 0 for the exact AUC
+     */
+    public MicroAUC(int numOfLabels, int numBins) {
+        super(numOfLabels, numBins);
+    }
+
     @Override
     public String getName() {
         return "Micro-averaged AUC";
@@ -41,8 +49,6 @@ public class MicroAUC extends LabelBasedAUC {
 
     @Override
     public double getValue() {
-        ThresholdCurve tc = new ThresholdCurve();
-        Instances result = tc.getCurve(all_Predictions, 1);
-        return ThresholdCurve.getROCArea(result);
+        return ConfidenceCounts.union(labelCounts).getROCArea();
     }
 }
\ No newline at end of file
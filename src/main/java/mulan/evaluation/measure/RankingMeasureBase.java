@@ -39,13 +39,19 @@ public abstract class RankingMeasureBase extends ClassificationMeasureBase {
         count = 0;
     }
 
+    @Override
+    public void combine(Measure other) {
+        RankingMeasureBase that = (RankingMeasureBase) other;
+        sum += that.sum;
+        count += that.count;
+    }
+
     @Override
     public double getValue() {
         return sum / count;
     }
 
-    @Override
-    protected void updateInternal(MultiLabelOutput prediction, boolean[] truth) {
+    private int[] checkRanking(MultiLabelOutput prediction, boolean[] truth) {
         int[] ranking = prediction.getRanking();
         if (ranking == null) {
             throw new ArgumentNullException("Bipartition is null");
@@ -54,7 +60,17 @@ public abstract class RankingMeasureBase extends ClassificationMeasureBase {
             throw new IllegalArgumentException("The dimensions of the " +
                     "bipartition and the ground truth array do not match");
         }
-        updateRanking(ranking, truth);
+        return ranking;
+    }
+
+    @Override
+    protected void updateInternal(MultiLabelOutput prediction, boolean[] truth) {
+        updateRanking(checkRanking(prediction, truth), truth);
+    }
+
+    @Override
+    protected void updateInternal(MultiLabelOutput prediction, boolean[] truth, ExampleStatistics statistics) {
+        updateRanking(checkRanking(prediction, truth), truth, statistics);
     }
 
     /**
@@ -65,4 +81,16 @@ public abstract class RankingMeasureBase extends ClassificationMeasureBase {
      */
     protected abstract void updateRanking(int[] ranking, boolean[] truth);
 
+    /**
+     * Updates the measure based on an example and its shared intermediate
+     * results. By default the intermediate results are ignored.
+     *
+     * @param ranking the predicted ranking
+     * @param truth the ground truth
+     * @param statistics the shared intermediate results of the example
+     */
+    protected void updateRanking(int[] ranking, boolean[] truth, ExampleStatistics statistics) {
+        updateRanking(ranking, truth);
+    }
+
 }
\ No newline at end of file
@@ -36,16 +36,12 @@ public class SubsetAccuracy extends ExampleBasedBipartitionMeasureBase {
 
     @Override
     protected void updateBipartition(boolean[] bipartition, boolean[] truth) {
-        double value = 1;
-        for (int i = 0; i < truth.length; i++) {
-            if (bipartition[i] != truth[i]) {
-                value = 0;
-                break;
-            }
-        }
+        updateBipartition(bipartition, truth, statisticsOf(bipartition, truth));
+    }
 
-        sum += value;
+    @Override
+    protected void updateBipartition(boolean[] bipartition, boolean[] truth, ExampleStatistics statistics) {
+        sum += statistics.getNumFalsePositives() + statistics.getNumFalseNegatives() == 0 ? 1 : 0;
         count++;
     }
-
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package mulan.evaluation.measure.regression.example;
 
+import mulan.evaluation.measure.Measure;
 import mulan.evaluation.measure.regression.RegressionMeasureBase;
 
 /**
@@ -25,6 +26,12 @@ public abstract class ExampleBasedRegressionMeasureBase extends RegressionMeasur
         count = 0;
     }
 
+    public void combine(Measure other) {
+        ExampleBasedRegressionMeasureBase that = (ExampleBasedRegressionMeasureBase) other;
+        sum += that.sum;
+        count += that.count;
+    }
+
     public double getValue() {
         return sum / count;
     }
@@ -2,6 +2,7 @@ package mulan.evaluation.measure.regression.macro;
 
 import mulan.classifier.MultiLabelOutput;
 import mulan.evaluation.measure.MacroAverageMeasure;
+import mulan.evaluation.measure.Measure;
 
 /**
  * Implementation of the macro-averaged Root Maximum Squared Error (RMaxSE)
@@ -28,6 +29,14 @@ public class MacroMaxAE extends MacroRegressionMeasureBase implements MacroAvera
         return error[targetIndex];
     }
 
+    public void combine(Measure other) {
+        // the errors are maxima, not sums
+        MacroRegressionMeasureBase that = (MacroRegressionMeasureBase) other;
+        for (int i = 0; i < error.length; i++) {
+            error[i] = Math.max(error[i], that.error[i]);
+        }
+    }
+
     public void updateInternal(MultiLabelOutput prediction, double[] truth) {
         double[] scores = prediction.getPvalues();
         for (int i = 0; i < truth.length; i++) {
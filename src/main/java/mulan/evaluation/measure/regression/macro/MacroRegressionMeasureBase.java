@@ -3,6 +3,7 @@ package mulan.evaluation.measure.regression.macro;
 import java.util.Arrays;
 
 import mulan.evaluation.measure.MacroAverageMeasure;
+import mulan.evaluation.measure.Measure;
 import mulan.evaluation.measure.regression.RegressionMeasureBase;
 
 public abstract class MacroRegressionMeasureBase extends RegressionMeasureBase implements
@@ -33,6 +34,14 @@ public abstract class MacroRegressionMeasureBase extends RegressionMeasureBase i
         return value / error.length;
     }
 
+    public void combine(Measure other) {
+        MacroRegressionMeasureBase that = (MacroRegressionMeasureBase) other;
+        for (int i = 0; i < error.length; i++) {
+            error[i] += that.error[i];
+            nonMissingCounter[i] += that.nonMissingCounter[i];
+        }
+    }
+
     public void reset() {
         Arrays.fill(error, 0.0);
         Arrays.fill(nonMissingCounter, 0);
@@ -3,6 +3,7 @@ package mulan.evaluation.measure.regression.macro;
 import java.util.Arrays;
 
 import mulan.data.MultiLabelInstances;
+import mulan.evaluation.measure.Measure;
 
 public abstract class MacroRelativeRegressionMeasureBase extends MacroRegressionMeasureBase {
     /**
@@ -48,6 +49,15 @@ public abstract class MacroRelativeRegressionMeasureBase extends MacroRegression
         return targetMeansTrain[labelIndex];
     }
 
+    public void combine(Measure other) {
+        super.combine(other);
+        MacroRelativeRegressionMeasureBase that = (MacroRelativeRegressionMeasureBase) other;
+        for (int i = 0; i < trainMeanPredError.length; i++) {
+            trainMeanPredError[i] += that.trainMeanPredError[i];
+            fullMeanPredError[i] += that.fullMeanPredError[i];
+        }
+    }
+
     public void reset() {
         super.reset();
         Arrays.fill(trainMeanPredError, 0.0);
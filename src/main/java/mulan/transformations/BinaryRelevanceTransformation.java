@@ -17,18 +17,23 @@ package mulan.transformations;
 
 import mulan.data.DataUtils;
 import mulan.data.MultiLabelInstances;
+import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.Utils;
 import weka.filters.Filter;
 import weka.filters.unsupervised.attribute.Add;
 import weka.filters.unsupervised.attribute.Remove;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Class that implements the binary relevance transformation
+ * Class that implements the binary relevance transformation. The features of
+ * the training instances are stored once and shared by the transformed
+ * datasets of all labels, which only add a column with the class values.
  *
  * @author Grigorios Tsoumakas
  * @version 2012.05.30
@@ -38,9 +43,9 @@ public class BinaryRelevanceTransformation implements Serializable {
     private MultiLabelInstances data;
     private Instances shellBinary;
     private Instances shellNumeric;
-    private Remove remove;
-    private Add addBinary;
-    private Add addNumeric;
+    /** the features of the training instances, shared by all labels */
+    private Instances features;
+    private int[] sortedLabelIndices;
     private boolean isContainBianry=false;
     private boolean isContainNumeric=false;
 
@@ -52,10 +57,12 @@ public class BinaryRelevanceTransformation implements Serializable {
     public BinaryRelevanceTransformation(MultiLabelInstances data) {
         try {
             this.data = data;
-            remove = new Remove();
+            Remove remove = new Remove();
             int[] labelIndices = data.getLabelIndices();
             int[] indices = new int[labelIndices.length];
             System.arraycopy(labelIndices, 0, indices, 0, labelIndices.length);
+            sortedLabelIndices = indices.clone();
+            Arrays.sort(sortedLabelIndices);
             
             for(int i:labelIndices){
             	if(data.getDataSet().get(0).attribute(i).isNominal()){
@@ -74,7 +81,7 @@ public class BinaryRelevanceTransformation implements Serializable {
                 remove.setInputFormat(data.getDataSet());
                 shellBinary = Filter.useFilter(data.getDataSet(), remove);
                 
-                addBinary = new Add();
+                Add addBinary = new Add();
                 addBinary.setAttributeIndex("last");
                 addBinary.setNominalLabels("0,1");  
                 addBinary.setAttributeName("BinaryRelevanceLabel");
@@ -82,6 +89,8 @@ public class BinaryRelevanceTransformation implements Serializable {
                 shellBinary = Filter.useFilter(shellBinary, addBinary);
                 
                 shellBinary.setClassIndex(shellBinary.numAttributes() - 1);
+                features = shellBinary;
+                shellBinary = new Instances(features, 0);
             }
             if(isContainNumeric){
                 remove.setAttributeIndicesArray(indices);
@@ -89,19 +98,38 @@ public class BinaryRelevanceTransformation implements Serializable {
                 remove.setInputFormat(data.getDataSet());
                 shellNumeric = Filter.useFilter(data.getDataSet(), remove);
                 
-                addNumeric = new Add();
+                Add addNumeric = new Add();
                 addNumeric.setAttributeIndex("last");
                 addNumeric.setAttributeName("SignleTargetRegressorLabel");
                 addNumeric.setInputFormat(shellNumeric);
                 shellNumeric = Filter.useFilter(shellNumeric, addNumeric);
                 
                 shellNumeric.setClassIndex(shellNumeric.numAttributes() - 1);
+                if (features == null) {
+                    features = shellNumeric;
+                }
+                shellNumeric = new Instances(shellNumeric, 0);
             }
         } catch (Exception ex) {
             Logger.getLogger(BinaryRelevanceTransformation.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
 
+    /**
+     * Removes all label attributes and appends an empty class attribute. The
+     * result can be shared by the transformed instances of all labels, see
+     * {@link #transformInstance(Instance, Instance, int)}.
+     *
+     * @param instance the instance from which labels are to be removed
+     * @return the features of the instance
+     */
+    public Instance transformFeatures(Instance instance) {
+        Instance transformedInstance = RemoveAllLabels.transformInstance(instance, sortedLabelIndices);
+        transformedInstance.setDataset(null);
+        transformedInstance.insertAttributeAt(transformedInstance.numAttributes());
+        return transformedInstance;
+    }
+
     /**
      * Remove all label attributes except labelToKeep
      *
@@ -110,29 +138,27 @@ public class BinaryRelevanceTransformation implements Serializable {
      * @return transformed Instance
      */
     public Instance transformInstance(Instance instance, int labelToKeep) {
-    	int[] labelIndices = data.getLabelIndices();
-    	
-    	Instance transformedInstance;
-        remove.input(instance);
-        transformedInstance = remove.output();
-        
-        if(instance.attribute(labelIndices[labelToKeep]).isNominal()){
-        	 addBinary.input(transformedInstance);
-             transformedInstance = addBinary.output();
-             transformedInstance.setDataset(shellBinary);
-             if (data.getDataSet().attribute(labelIndices[labelToKeep]).value(0).equals("1")) {
-                 transformedInstance.setValue(shellBinary.numAttributes() - 1, 1 - instance.value(labelIndices[labelToKeep]));
-             } else {
-                 transformedInstance.setValue(shellBinary.numAttributes() - 1, instance.value(labelIndices[labelToKeep]));
-             }
-        }
-        else if(instance.attribute(labelIndices[labelToKeep]).isNumeric()){
-       	 	addNumeric.input(transformedInstance);
-            transformedInstance = addNumeric.output(); 
-            transformedInstance.setDataset(shellNumeric);
-            transformedInstance.setValue(shellNumeric.numAttributes() - 1, instance.value(labelIndices[labelToKeep]));
-            
+        return transformInstance(instance, transformFeatures(instance), labelToKeep);
+    }
+
+    /**
+     * Remove all label attributes except labelToKeep, sharing the features
+     * with the transformed instances of the other labels
+     *
+     * @param instance the instance from which labels are to be removed
+     * @param features the features of the instance, as returned by
+     * {@link #transformFeatures(Instance)}
+     * @param labelToKeep the label to keep
+     * @return transformed Instance
+     */
+    public Instance transformInstance(Instance instance, Instance features, int labelToKeep) {
+        Instances shell = getShell(labelToKeep);
+        if (shell == null) {
+            return null;
         }
+        Instance transformedInstance = new LabelViewInstance(features, shell.numAttributes() - 1,
+                classValue(instance, labelToKeep));
+        transformedInstance.setDataset(shell);
         return transformedInstance;
     }
 
@@ -144,30 +170,58 @@ public class BinaryRelevanceTransformation implements Serializable {
      * @throws Exception when removal fails
      */
     public Instances transformInstances(int labelToKeep) throws Exception {
-    	int[] labelIndices = data.getLabelIndices();
-    	Instances shellCopy=null;
-    	
-    	if(data.getDataSet().get(0).attribute(labelIndices[labelToKeep]).isNominal()){
-    		shellCopy= new Instances(this.shellBinary);
-    		boolean order10 = false;
-            if (data.getDataSet().attribute(labelIndices[labelToKeep]).value(0).equals("1")) {
-                order10 = true;
-            }
-            for (int j = 0; j < shellCopy.numInstances(); j++) {
-                if (order10) {
-                    shellCopy.instance(j).setValue(shellCopy.numAttributes() - 1, 1 - data.getDataSet().instance(j).value(labelIndices[labelToKeep]));
-                } else {
-                    shellCopy.instance(j).setValue(shellCopy.numAttributes() - 1, data.getDataSet().instance(j).value(labelIndices[labelToKeep]));
-                }
-            }
-    	}
-    	else if(data.getDataSet().get(0).attribute(labelIndices[labelToKeep]).isNumeric()){
-    		shellCopy= new Instances(this.shellNumeric);
-    		for (int j = 0; j < shellCopy.numInstances(); j++) {
-    			shellCopy.instance(j).setValue(shellCopy.numAttributes() - 1, data.getDataSet().instance(j).value(labelIndices[labelToKeep]));
-    		}
-    	}
-        return shellCopy;
+        Instances shell = getShell(labelToKeep);
+        if (shell == null) {
+            return null;
+        }
+        Instances dataSet = data.getDataSet();
+        Instances transformed = new Instances(shell, features.numInstances());
+        for (int j = 0; j < features.numInstances(); j++) {
+            transformed.add(new LabelViewInstance(features.instance(j), shell.numAttributes() - 1,
+                    classValue(dataSet.instance(j), labelToKeep)));
+        }
+        return transformed;
+    }
+
+    /**
+     * Creates the transformed instances of a label with a missing class value,
+     * sharing the features with the transformed instances of the other labels
+     *
+     * @param features the features of the instances, as returned by
+     * {@link #transformFeatures(Instance)}
+     * @param labelToKeep the label to keep
+     * @return transformed Instances object
+     */
+    public Instances transformInstances(Instance[] features, int labelToKeep) {
+        Instances shell = getShell(labelToKeep);
+        if (shell == null) {
+            return null;
+        }
+        Instances transformed = new Instances(shell, features.length);
+        for (Instance instance : features) {
+            transformed.add(new LabelViewInstance(instance, shell.numAttributes() - 1, Utils.missingValue()));
+        }
+        return transformed;
+    }
+
+    private Instances getShell(int label) {
+        Attribute attribute = data.getDataSet().attribute(data.getLabelIndices()[label]);
+        if (attribute.isNominal()) {
+            return shellBinary;
+        } else if (attribute.isNumeric()) {
+            return shellNumeric;
+        }
+        return null;
+    }
+
+    private double classValue(Instance instance, int label) {
+        int labelIndex = data.getLabelIndices()[label];
+        Attribute attribute = data.getDataSet().attribute(labelIndex);
+        // Ensure correct class values both for label values {0,1} and {1,0}
+        if (attribute.isNominal() && attribute.value(0).equals("1")) {
+            return 1 - instance.value(labelIndex);
+        }
+        return instance.value(labelIndex);
     }
 
     /**
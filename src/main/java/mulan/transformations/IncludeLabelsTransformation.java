@@ -17,6 +17,7 @@ package mulan.transformations;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import mulan.core.ParallelExecutor;
 import mulan.data.MultiLabelInstances;
 import weka.core.Attribute;
 import weka.core.Instance;
@@ -40,7 +41,19 @@ public class IncludeLabelsTransformation implements Serializable {
      * @throws Exception Potential exception thrown. To be handled in an upper level.
      */
     public Instances transformInstances(MultiLabelInstances mlData) throws Exception {
-        int numLabels = mlData.getNumLabels();
+        return transformInstances(mlData, 1);
+    }
+
+    /**
+     *
+     * @param mlData multi-label data
+     * @param numThreads the number of threads the instances are transformed
+     * with (the result does not depend on it)
+     * @return transformed instances
+     * @throws Exception Potential exception thrown. To be handled in an upper level.
+     */
+    public Instances transformInstances(MultiLabelInstances mlData, int numThreads) throws Exception {
+        final int numLabels = mlData.getNumLabels();
         labelIndices = mlData.getLabelIndices();
 
         // remove all labels
@@ -62,23 +75,21 @@ public class IncludeLabelsTransformation implements Serializable {
         transformed.insertAttributeAt(classAttr, transformed.numAttributes());
 
         // add instances
-        transformed = new Instances(transformed, 0);
-        transformed.setClassIndex(transformed.numAttributes() - 1);
-        Instances data = mlData.getDataSet();
-        for (int instanceIndex = 0; instanceIndex < data.numInstances(); instanceIndex++) {
-            for (int labelCounter = 0; labelCounter < numLabels; labelCounter++) {
-                Instance temp;
-                temp = RemoveAllLabels.transformInstance(data.instance(instanceIndex), labelIndices);
-                temp.setDataset(null);
-                temp.insertAttributeAt(temp.numAttributes());
-                temp.insertAttributeAt(temp.numAttributes());
-                temp.setDataset(transformed);
-                temp.setValue(temp.numAttributes() - 2, (String) labelNames.get(labelCounter));
-                if (data.attribute(labelIndices[labelCounter]).value((int) data.instance(instanceIndex).value(labelIndices[labelCounter])).equals("1")) {
-                    temp.setValue(temp.numAttributes() - 1, "1");
-                } else {
-                    temp.setValue(temp.numAttributes() - 1, "0");
-                }
+        final Instances header = new Instances(transformed, 0);
+        header.setClassIndex(header.numAttributes() - 1);
+        final Instances data = mlData.getDataSet();
+        final int numInstances = data.numInstances();
+        final Instance[][] transformedInstances = new Instance[numInstances][];
+        final int numBlocks = Math.min(numInstances, Math.max(1, numThreads) * 4);
+        ParallelExecutor.run(numBlocks, numThreads, block -> {
+            for (int instanceIndex = block; instanceIndex < numInstances; instanceIndex += numBlocks) {
+                transformedInstances[instanceIndex] = transformInstance(data.instance(instanceIndex), header, labelNames);
+            }
+        });
+
+        transformed = new Instances(header, numInstances * numLabels);
+        for (Instance[] perLabel : transformedInstances) {
+            for (Instance temp : perLabel) {
                 transformed.add(temp);
             }
         }
@@ -86,6 +97,27 @@ public class IncludeLabelsTransformation implements Serializable {
         return transformed;
     }
 
+    private Instance[] transformInstance(Instance instance, Instances header, ArrayList<String> labelNames) {
+        int numLabels = labelIndices.length;
+        Instance[] result = new Instance[numLabels];
+        for (int labelCounter = 0; labelCounter < numLabels; labelCounter++) {
+            Instance temp;
+            temp = RemoveAllLabels.transformInstance(instance, labelIndices);
+            temp.setDataset(null);
+            temp.insertAttributeAt(temp.numAttributes());
+            temp.insertAttributeAt(temp.numAttributes());
+            temp.setDataset(header);
+            temp.setValue(temp.numAttributes() - 2, (String) labelNames.get(labelCounter));
+            if (instance.attribute(labelIndices[labelCounter]).value((int) instance.value(labelIndices[labelCounter])).equals("1")) {
+                temp.setValue(temp.numAttributes() - 1, "1");
+            } else {
+                temp.setValue(temp.numAttributes() - 1, "0");
+            }
+            result[labelCounter] = temp;
+        }
+        return result;
+    }
+
     /**
      * Transform an unlabeled instance to the format expected by
      * the binary classifier
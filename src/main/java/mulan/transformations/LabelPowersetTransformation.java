@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 
 import mulan.data.LabelSet;
+import mulan.data.LabelSetIntMap;
 import mulan.data.MultiLabelInstances;
 import weka.core.Attribute;
 import weka.core.Instance;
@@ -35,6 +36,14 @@ import weka.core.Instances;
 public class LabelPowersetTransformation implements Serializable {
 
     private Instances transformedFormat;
+    /**
+     * The labelset of each value of the class attribute
+     */
+    private LabelSet[] classLabelSets;
+    /**
+     * The indices of the labels of each value of the class attribute
+     */
+    private int[][] classMembers;
 
     /**
      * Returns the format of the transformed instances
@@ -45,6 +54,35 @@ public class LabelPowersetTransformation implements Serializable {
         return transformedFormat;
     }
 
+    /**
+     * Returns the labelset of each value of the class attribute of the
+     * transformed format, so that predicted class indices do not have to be
+     * parsed into labelsets
+     *
+     * @return the labelsets indexed by class value
+     */
+    public LabelSet[] getClassLabelSets() {
+        return classLabelSets;
+    }
+
+    /**
+     * Returns the indices of the labels of each value of the class attribute
+     * of the transformed format
+     *
+     * @return the label indices indexed by class value
+     */
+    public int[][] getClassMembers() {
+        return classMembers;
+    }
+
+    private void setClassLabelSets(LabelSet[] labelSets) {
+        classMembers = new int[labelSets.length][];
+        for (int i = 0; i < labelSets.length; i++) {
+            classMembers[i] = labelSets[i].toIndexArray();
+        }
+        classLabelSets = labelSets;
+    }
+
     /**
      * 
      * @param mlData multi-label data
@@ -61,6 +99,7 @@ public class LabelPowersetTransformation implements Serializable {
         // gather distinct label combinations
         HashSet<LabelSet> labelSets = new HashSet<LabelSet>();
         int numInstances = data.numInstances();
+        LabelSet[] instanceLabelSets = new LabelSet[numInstances];
         for (int i = 0; i < numInstances; i++) {
             // construct labelset
             double[] dblLabels = new double[numLabels];
@@ -69,6 +108,7 @@ public class LabelPowersetTransformation implements Serializable {
                 dblLabels[j] = Double.parseDouble(data.attribute(index).value((int) data.instance(i).value(index)));
             }
             LabelSet labelSet = new LabelSet(dblLabels);
+            instanceLabelSets[i] = labelSet;
 
             // add labelset if not already present
             labelSets.add(labelSet);
@@ -76,9 +116,12 @@ public class LabelPowersetTransformation implements Serializable {
 
         // create class attribute
         ArrayList<String> classValues = new ArrayList<String>(labelSets.size());
+        LabelSetIntMap classIndices = new LabelSetIntMap(labelSets.size());
         for (LabelSet subset : labelSets) {
+            classIndices.put(subset, classValues.size());
             classValues.add(subset.toBitString());
         }
+        setClassLabelSets(labelSets.toArray(new LabelSet[labelSets.size()]));
         Attribute newClass = new Attribute("LP_Class_" + Integer.toHexString((int) Math.random()*Integer.MAX_VALUE), classValues);
 
         // remove all labels
@@ -90,14 +133,7 @@ public class LabelPowersetTransformation implements Serializable {
 
         // add class values
         for (int i = 0; i < newData.numInstances(); i++) {
-            //System.out.println(newData.instance(i).toString());
-            String strClass = "";
-            for (int j = 0; j < numLabels; j++) {
-                int index = labelIndices[j];
-                strClass = strClass + data.attribute(index).value((int) data.instance(i).value(index));
-            }
-            //System.out.println(strClass);
-            newData.instance(i).setClassValue(strClass);
+            newData.instance(i).setClassValue(classIndices.get(instanceLabelSets[i], -1));
         }
         transformedFormat = new Instances(newData, 0);
         return newData;
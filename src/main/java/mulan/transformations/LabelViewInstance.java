@@ -0,0 +1,163 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.transformations;
+
+import weka.core.AbstractInstance;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+
+/**
+ * An instance that shows a shared feature vector together with its own value
+ * of the class attribute. The feature vector (dense or sparse) is never
+ * modified: the first write to a view copies it, so views of different labels
+ * can share the same features. <p>
+ *
+ * Since this class does not extend {@link DenseInstance}, Weka's copy
+ * constructors read its values through {@link #toDoubleArray()}.
+ *
+ * @version 2026.10.17
+ */
+class LabelViewInstance extends AbstractInstance {
+
+    private static final long serialVersionUID = -2150471337940254182L;
+    /** the shared features, including a placeholder for the class value */
+    private Instance features;
+    /** the position of the class value or -1 once the features are private */
+    private int classPosition;
+    private double classValue;
+
+    /**
+     * Creates a view on shared features
+     *
+     * @param features the features with a placeholder at classPosition
+     * @param classPosition the position of the class attribute
+     * @param classValue the value of the class attribute
+     */
+    LabelViewInstance(Instance features, int classPosition, double classValue) {
+        this.features = features;
+        this.classPosition = classPosition;
+        this.classValue = classValue;
+        m_Weight = features.weight();
+    }
+
+    /**
+     * Replaces the shared features by a private copy that holds the class
+     * value, before this instance is modified
+     */
+    private void materialize() {
+        if (classPosition == -1) {
+            return;
+        }
+        Instance copy = (Instance) features.copy();
+        copy.setDataset(null);
+        copy.setValue(classPosition, classValue);
+        features = copy;
+        classPosition = -1;
+    }
+
+    private Instance toDenseInstance() {
+        Instance dense = new DenseInstance(m_Weight, toDoubleArray());
+        dense.setDataset(m_Dataset);
+        return dense;
+    }
+
+    @Override
+    public Object copy() {
+        LabelViewInstance copy = new LabelViewInstance(features, classPosition, classValue);
+        copy.m_Weight = m_Weight;
+        copy.m_Dataset = m_Dataset;
+        return copy;
+    }
+
+    @Override
+    public double value(int attIndex) {
+        return attIndex == classPosition ? classValue : features.value(attIndex);
+    }
+
+    @Override
+    public double valueSparse(int indexOfIndex) {
+        return features.index(indexOfIndex) == classPosition ? classValue : features.valueSparse(indexOfIndex);
+    }
+
+    @Override
+    public int index(int position) {
+        return features.index(position);
+    }
+
+    @Override
+    public int numAttributes() {
+        return features.numAttributes();
+    }
+
+    @Override
+    public int numValues() {
+        return features.numValues();
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        double[] values = features.toDoubleArray();
+        if (classPosition != -1) {
+            values[classPosition] = classValue;
+        }
+        return values;
+    }
+
+    @Override
+    public Instance mergeInstance(Instance inst) {
+        return toDenseInstance().mergeInstance(inst);
+    }
+
+    @Override
+    public void replaceMissingValues(double[] array) {
+        materialize();
+        features.replaceMissingValues(array);
+    }
+
+    @Override
+    public void setValue(int attIndex, double value) {
+        materialize();
+        features.setValue(attIndex, value);
+    }
+
+    @Override
+    public void setValueSparse(int indexOfIndex, double value) {
+        materialize();
+        features.setValueSparse(indexOfIndex, value);
+    }
+
+    @Override
+    protected void forceDeleteAttributeAt(int position) {
+        materialize();
+        features.deleteAttributeAt(position);
+    }
+
+    @Override
+    protected void forceInsertAttributeAt(int position) {
+        materialize();
+        features.insertAttributeAt(position);
+    }
+
+    @Override
+    public String toStringNoWeight() {
+        return toDenseInstance().toStringNoWeight();
+    }
+
+    @Override
+    public String toStringNoWeight(int afterDecimalPoint) {
+        return toDenseInstance().toStringNoWeight(afterDecimalPoint);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks the packed bits of {@link LabelSet} against a plain array of
+ * memberships, in particular around the 64 bit word boundaries.
+ */
+public class LabelSetTest {
+
+    private static final int[] NUM_LABELS = {1, 2, 7, 63, 64, 65, 127, 128, 130};
+
+    private static boolean[] randomSet(Random random, int numLabels) {
+        boolean[] set = new boolean[numLabels];
+        double density = random.nextDouble();
+        for (int i = 0; i < numLabels; i++) {
+            set[i] = random.nextDouble() < density;
+        }
+        return set;
+    }
+
+    private static double[] toDoubles(boolean[] set) {
+        double[] values = new double[set.length];
+        for (int i = 0; i < set.length; i++) {
+            values[i] = set[i] ? 1 : 0;
+        }
+        return values;
+    }
+
+    private static String toBitString(boolean[] set) {
+        StringBuilder sb = new StringBuilder();
+        for (boolean member : set) {
+            sb.append(member ? '1' : '0');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSameAsMemberships() throws Exception {
+        Random random = new Random(1);
+        for (int numLabels : NUM_LABELS) {
+            for (int trial = 0; trial < 50; trial++) {
+                boolean[] set = randomSet(random, numLabels);
+                String bitString = toBitString(set);
+                LabelSet labelSet = new LabelSet(set);
+
+                assertEquals(bitString, labelSet.toBitString());
+                assertEquals(bitString, labelSet.toString());
+                // the hash code of the former string representation
+                assertEquals(bitString.hashCode(), labelSet.hashCode());
+                assertTrue(Arrays.equals(set, labelSet.toBooleanArray()));
+                assertArrayEquals(toDoubles(set), labelSet.toDoubleArray(), 0);
+                assertEquals(numLabels, labelSet.getNumLabels());
+
+                int size = 0;
+                for (int i = 0; i < numLabels; i++) {
+                    assertEquals(set[i], labelSet.contains(i));
+                    if (set[i]) {
+                        assertEquals(i, labelSet.toIndexArray()[size]);
+                        size++;
+                    }
+                }
+                assertEquals(size, labelSet.size());
+                assertEquals(size, labelSet.toIndexArray().length);
+
+                LabelSet fromDoubles = new LabelSet(toDoubles(set));
+                LabelSet fromBits = LabelSet.fromBitString(bitString);
+                assertEquals(labelSet, fromDoubles);
+                assertEquals(labelSet, fromBits);
+                assertEquals(labelSet.hashCode(), fromDoubles.hashCode());
+                assertEquals(labelSet.hashCode(), fromBits.hashCode());
+            }
+        }
+    }
+
+    @Test
+    public void testPairOperations() {
+        Random random = new Random(2);
+        for (int numLabels : NUM_LABELS) {
+            for (int trial = 0; trial < 50; trial++) {
+                boolean[] first = randomSet(random, numLabels);
+                boolean[] second = randomSet(random, numLabels);
+                LabelSet a = new LabelSet(first);
+                LabelSet b = new LabelSet(second);
+
+                int difference = 0;
+                boolean[] intersection = new boolean[numLabels];
+                for (int i = 0; i < numLabels; i++) {
+                    if (first[i] != second[i]) {
+                        difference++;
+                    }
+                    intersection[i] = first[i] && second[i];
+                }
+                assertEquals(difference, a.hammingDifference(b));
+                assertEquals(difference == 0, a.equals(b));
+                assertEquals(new LabelSet(intersection), LabelSet.intersection(a, b));
+                assertEquals(Integer.signum(a.size() - b.size()), a.compareTo(b));
+            }
+        }
+    }
+
+    @Test
+    public void testDifferentNumberOfLabels() throws Exception {
+        assertNotEquals(LabelSet.fromBitString("01"), LabelSet.fromBitString("010"));
+        assertNotEquals(LabelSet.fromBitString("0"), LabelSet.fromBitString("00"));
+        assertFalse(LabelSet.fromBitString("1").equals("1"));
+    }
+
+    @Test(expected = Exception.class)
+    public void testBadBitString() throws Exception {
+        LabelSet.fromBitString("0120");
+    }
+
+    @Test
+    public void testSubsets() throws Exception {
+        Random random = new Random(3);
+        for (int numLabels : NUM_LABELS) {
+            boolean[] set = new boolean[numLabels];
+            int[] members = new int[Math.min(numLabels, 6)];
+            for (int c = 0; c < members.length; c++) {
+                int label;
+                do {
+                    label = random.nextInt(numLabels);
+                } while (set[label]);
+                set[label] = true;
+            }
+            for (int j = 0, c = 0; j < numLabels; j++) {
+                if (set[j]) {
+                    members[c++] = j;
+                }
+            }
+
+            ArrayList<LabelSet> subsets = new LabelSet(set).getSubsets();
+            int size = members.length;
+            assertEquals(Math.max(0, (1 << size) - 2), subsets.size());
+            // the first member corresponds to the most significant bit
+            for (int i = 1; i < (1 << size) - 1; i++) {
+                boolean[] subset = new boolean[numLabels];
+                for (int c = 0; c < size; c++) {
+                    subset[members[c]] = ((i >> (size - 1 - c)) & 1) == 1;
+                }
+                assertEquals(new LabelSet(subset), subsets.get(i - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import mulan.classifier.MultiLabelOutput;
+import mulan.classifier.transformation.BinaryRelevance;
+import mulan.data.MultiLabelInstances;
+import mulan.evaluation.measure.ClassificationMeasureBase;
+import mulan.evaluation.measure.ExampleStatistics;
+import mulan.evaluation.measure.Measure;
+import org.junit.Test;
+import weka.classifiers.trees.J48;
+
+/**
+ * Checks that updating the default measures with shared intermediate results
+ * gives the same values as updating them without.
+ */
+public class DefaultMeasuresTest {
+
+    private static final int NUM_LABELS = 4;
+    private static final int NUM_EXAMPLES = 500;
+
+    /**
+     * Returns fresh copies of the measures that the evaluator computes by
+     * default for a learner with bipartitions, confidences and rankings
+     */
+    private static List<Measure> defaultMeasures() throws Exception {
+        MultiLabelInstances train = EvaluatorTest.createData(150, 1, false);
+        MultiLabelInstances test = EvaluatorTest.createData(20, 2, false);
+        BinaryRelevance learner = new BinaryRelevance(new J48());
+        learner.build(train);
+        List<Measure> measures = new ArrayList<Measure>();
+        for (Measure m : new Evaluator().evaluate(learner, test, train).getMeasures()) {
+            Measure copy = m.makeCopy();
+            copy.reset();
+            measures.add(copy);
+        }
+        return measures;
+    }
+
+    /**
+     * Updates a measure, with the shared intermediate results if they are
+     * given
+     *
+     * @return false if the update failed
+     */
+    private static boolean update(Measure m, MultiLabelOutput output, GroundTruth truth,
+                                  ExampleStatistics statistics) {
+        try {
+            if (statistics != null && m instanceof ClassificationMeasureBase) {
+                ((ClassificationMeasureBase) m).update(output, truth, statistics);
+            } else {
+                m.update(output, truth);
+            }
+            return true;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testSharedStatistics() throws Exception {
+        List<Measure> plain = defaultMeasures();
+        List<Measure> shared = defaultMeasures();
+        // bipartition, label-based, ranking and confidence measures
+        assertTrue(plain.size() >= 28);
+
+        Random random = new Random(1);
+        ExampleStatistics statistics = new ExampleStatistics();
+        boolean[] failed = new boolean[plain.size()];
+        for (int n = 0; n < NUM_EXAMPLES; n++) {
+            // the bipartition does not follow the confidences, and empty or
+            // full bipartitions and ground truths occur
+            boolean[] bipartition = new boolean[NUM_LABELS];
+            boolean[] trueLabels = new boolean[NUM_LABELS];
+            double[] confidences = new double[NUM_LABELS];
+            for (int j = 0; j < NUM_LABELS; j++) {
+                bipartition[j] = random.nextInt(3) == 0;
+                trueLabels[j] = random.nextInt(3) == 0;
+                confidences[j] = random.nextInt(5) / 4.0;
+            }
+            MultiLabelOutput output = new MultiLabelOutput(bipartition, confidences);
+            GroundTruth truth = new GroundTruth(trueLabels);
+            statistics.set(output, trueLabels);
+            for (int i = 0; i < plain.size(); i++) {
+                if (!failed[i]) {
+                    boolean updated = update(plain.get(i), output, truth, null);
+                    assertEquals(plain.get(i).getName(), updated, update(shared.get(i), output, truth, statistics));
+                    failed[i] = !updated;
+                }
+            }
+        }
+
+        for (int i = 0; i < plain.size(); i++) {
+            assertEquals(plain.get(i).getName(), plain.get(i).getValue(), shared.get(i).getValue(), 0);
+        }
+    }
+}
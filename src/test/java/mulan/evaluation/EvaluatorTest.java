@@ -0,0 +1,127 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.evaluation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Random;
+import mulan.classifier.MultiLabelLearner;
+import mulan.classifier.lazy.MLkNN;
+import mulan.classifier.meta.RAkEL;
+import mulan.classifier.transformation.BinaryRelevance;
+import mulan.classifier.transformation.LabelPowerset;
+import mulan.data.MultiLabelInstances;
+import mulan.evaluation.measure.Measure;
+import org.junit.Test;
+import weka.classifiers.trees.J48;
+
+/**
+ * Checks that evaluating a test set in parallel gives the same results as
+ * evaluating it with one thread, up to the rounding of the combined sums.
+ */
+public class EvaluatorTest {
+
+    /** the largest difference allowed between parallel and sequential values **/
+    private static final double TOLERANCE = 1e-12;
+
+    private static final int NUM_FEATURES = 5;
+    private static final int NUM_LABELS = 4;
+
+    /**
+     * Creates a data set whose labels depend on the features, with some
+     * missing label values if requested
+     */
+    static MultiLabelInstances createData(int numInstances, long seed, boolean missingLabels) throws Exception {
+        Random random = new Random(seed);
+        StringBuilder arff = new StringBuilder("@relation test\n");
+        for (int i = 0; i < NUM_FEATURES; i++) {
+            arff.append("@attribute f").append(i).append(" numeric\n");
+        }
+        for (int j = 0; j < NUM_LABELS; j++) {
+            arff.append("@attribute l").append(j).append(" {0,1}\n");
+        }
+        arff.append("@data\n");
+        for (int n = 0; n < numInstances; n++) {
+            double[] features = new double[NUM_FEATURES];
+            for (int i = 0; i < NUM_FEATURES; i++) {
+                features[i] = random.nextGaussian();
+                arff.append(features[i]).append(',');
+            }
+            for (int j = 0; j < NUM_LABELS; j++) {
+                boolean relevant = features[j] + features[j + 1] + 0.5 * random.nextGaussian() > 0;
+                if (missingLabels && random.nextInt(20) == 0) {
+                    arff.append('?');
+                } else {
+                    arff.append(relevant ? '1' : '0');
+                }
+                arff.append(j < NUM_LABELS - 1 ? ',' : '\n');
+            }
+        }
+        return new MultiLabelInstances(new ByteArrayInputStream(arff.toString().getBytes("UTF-8")), NUM_LABELS);
+    }
+
+    private static Evaluation evaluate(MultiLabelLearner learner, MultiLabelInstances test,
+                                       MultiLabelInstances train, int numThreads) throws Exception {
+        Evaluator evaluator = new Evaluator();
+        evaluator.setNumThreads(numThreads);
+        return evaluator.evaluate(learner, test, train);
+    }
+
+    private static void assertSameEvaluation(MultiLabelLearner learner, boolean missingLabels) throws Exception {
+        MultiLabelInstances train = createData(150, 1, false);
+        // a size that is not a multiple of the numbers of threads
+        MultiLabelInstances test = createData(101, 2, missingLabels);
+        learner.build(train);
+
+        List<Measure> expected = evaluate(learner, test, train, 1).getMeasures();
+        for (int numThreads = 2; numThreads <= 4; numThreads++) {
+            List<Measure> actual = evaluate(learner, test, train, numThreads).getMeasures();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getName(), actual.get(i).getName());
+                assertEquals(expected.get(i).getName() + " with " + numThreads + " threads",
+                        expected.get(i).getValue(), actual.get(i).getValue(), TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelBinaryRelevance() throws Exception {
+        assertSameEvaluation(new BinaryRelevance(new J48()), false);
+    }
+
+    @Test
+    public void testParallelMLkNN() throws Exception {
+        assertSameEvaluation(new MLkNN(10, 1.0), false);
+    }
+
+    @Test
+    public void testParallelLabelPowerset() throws Exception {
+        assertSameEvaluation(new LabelPowerset(new J48()), false);
+    }
+
+    @Test
+    public void testParallelRAkEL() throws Exception {
+        assertSameEvaluation(new RAkEL(new LabelPowerset(new J48()), 4, 2), false);
+    }
+
+    @Test
+    public void testParallelWithMissingLabels() throws Exception {
+        assertSameEvaluation(new BinaryRelevance(new J48()), true);
+    }
+}
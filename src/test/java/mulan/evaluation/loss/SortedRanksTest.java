@@ -0,0 +1,197 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.evaluation.loss;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import mulan.classifier.MultiLabelOutput;
+import mulan.evaluation.GroundTruth;
+import mulan.evaluation.measure.AveragePrecision;
+import mulan.evaluation.measure.ClassificationMeasureBase;
+import mulan.evaluation.measure.Coverage;
+import mulan.evaluation.measure.ExampleStatistics;
+import org.junit.Test;
+
+/**
+ * Compares the ranking losses and measures that use {@link SortedRanks} with
+ * the pairwise loops they replaced.
+ */
+public class SortedRanksTest {
+
+    private static final int NUM_TRIALS = 5000;
+
+    private static int[] randomRanking(Random random, int numLabels, boolean ties) {
+        int[] ranking = new int[numLabels];
+        for (int i = 0; i < numLabels; i++) {
+            ranking[i] = ties ? 1 + random.nextInt(numLabels) : i + 1;
+        }
+        if (!ties) {
+            for (int i = numLabels - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = ranking[i];
+                ranking[i] = ranking[j];
+                ranking[j] = swap;
+            }
+        }
+        return ranking;
+    }
+
+    private static boolean[] randomTruth(Random random, int numLabels) {
+        boolean[] truth = new boolean[numLabels];
+        int mode = random.nextInt(4);
+        for (int i = 0; i < numLabels; i++) {
+            truth[i] = mode == 0 || (mode != 1 && random.nextBoolean());
+        }
+        return truth;
+    }
+
+    private static double errorSetSize(int[] ranking, boolean[] truth) {
+        double ess = 0;
+        for (int r = 0; r < truth.length; r++) {
+            for (int ir = 0; ir < truth.length; ir++) {
+                if (truth[r] && !truth[ir] && ranking[r] > ranking[ir]) {
+                    ess++;
+                }
+            }
+        }
+        return ess;
+    }
+
+    private static double rankingLoss(int[] ranking, boolean[] truth) {
+        int numRelevant = 0;
+        for (boolean relevant : truth) {
+            if (relevant) {
+                numRelevant++;
+            }
+        }
+        int numIrrelevant = truth.length - numRelevant;
+        if (numRelevant == 0 || numIrrelevant == 0) {
+            return 0;
+        }
+        return errorSetSize(ranking, truth) / (numRelevant * numIrrelevant);
+    }
+
+    private static double averagePrecision(int[] ranking, boolean[] truth) {
+        double avgP = 0;
+        int numRelevant = 0;
+        for (int r = 0; r < truth.length; r++) {
+            if (truth[r]) {
+                numRelevant++;
+                double rankedAbove = 0;
+                for (int rr = 0; rr < truth.length; rr++) {
+                    if (truth[rr] && ranking[rr] <= ranking[r]) {
+                        rankedAbove++;
+                    }
+                }
+                avgP += (rankedAbove / ranking[r]);
+            }
+        }
+        return numRelevant == 0 ? 0 : avgP / numRelevant;
+    }
+
+    private static double coverage(int[] ranking, boolean[] truth) {
+        int numLabels = truth.length;
+        for (int rank = numLabels; rank >= 1; rank--) {
+            int indexOfRank;
+            for (indexOfRank = 0; indexOfRank < numLabels; indexOfRank++) {
+                if (ranking[indexOfRank] == rank) {
+                    break;
+                }
+            }
+            if (truth[indexOfRank]) {
+                return rank - 1;
+            }
+        }
+        return 0;
+    }
+
+    private static void assertLoss(double expected, RankingLossFunctionBase loss, int[] ranking, boolean[] truth) {
+        assertEquals(expected, loss.computeLoss(ranking, truth), 0);
+        SortedRanks sortedRanks = new SortedRanks();
+        sortedRanks.split(ranking, truth);
+        assertEquals(expected, loss.computeLoss(sortedRanks, ranking, truth), 0);
+    }
+
+    @Test
+    public void testLossesEqualPairwiseLoops() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            int numLabels = 1 + random.nextInt(20);
+            int[] ranking = randomRanking(random, numLabels, random.nextBoolean());
+            boolean[] truth = randomTruth(random, numLabels);
+            double ess = errorSetSize(ranking, truth);
+
+            assertLoss(ess, new ErrorSetSize(), ranking, truth);
+            assertLoss(ess > 0 ? 1 : 0, new IsError(), ranking, truth);
+            assertLoss(rankingLoss(ranking, truth), new RankingLoss(), ranking, truth);
+            assertLoss(1 - averagePrecision(ranking, truth), new OneMinusAveragePrecision(), ranking, truth);
+        }
+    }
+
+    @Test
+    public void testReusedSplit() {
+        Random random = new Random(2);
+        SortedRanks sortedRanks = new SortedRanks();
+        ErrorSetSize loss = new ErrorSetSize();
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            // the buffers of longer examples are reused for shorter ones
+            int numLabels = 1 + random.nextInt(20);
+            int[] ranking = randomRanking(random, numLabels, true);
+            boolean[] truth = randomTruth(random, numLabels);
+            sortedRanks.split(ranking, truth);
+            assertEquals(errorSetSize(ranking, truth), loss.computeLoss(sortedRanks, ranking, truth), 0);
+        }
+    }
+
+    private static void update(ClassificationMeasureBase measure, int[] ranking, boolean[] truth, boolean shared) {
+        MultiLabelOutput prediction = new MultiLabelOutput(ranking);
+        if (shared) {
+            ExampleStatistics statistics = new ExampleStatistics();
+            statistics.set(prediction, truth);
+            measure.update(prediction, new GroundTruth(truth), statistics);
+        } else {
+            measure.update(prediction, new GroundTruth(truth));
+        }
+    }
+
+    @Test
+    public void testMeasuresEqualPairwiseLoops() {
+        Random random = new Random(3);
+        for (boolean shared : new boolean[]{false, true}) {
+            AveragePrecision averagePrecision = new AveragePrecision();
+            Coverage coverage = new Coverage();
+            double sumOfAveragePrecision = 0;
+            int numWithRelevant = 0;
+            double sumOfCoverage = 0;
+            for (int trial = 0; trial < NUM_TRIALS; trial++) {
+                int numLabels = 1 + random.nextInt(20);
+                int[] ranking = randomRanking(random, numLabels, false);
+                boolean[] truth = randomTruth(random, numLabels);
+                update(averagePrecision, ranking, truth, shared);
+                update(coverage, ranking, truth, shared);
+
+                if (averagePrecision(ranking, truth) > 0) {
+                    sumOfAveragePrecision += averagePrecision(ranking, truth);
+                    numWithRelevant++;
+                }
+                sumOfCoverage += coverage(ranking, truth);
+            }
+            assertEquals(sumOfAveragePrecision / numWithRelevant, averagePrecision.getValue(), 0);
+            assertEquals(sumOfCoverage / NUM_TRIALS, coverage.getValue(), 0);
+        }
+    }
+}
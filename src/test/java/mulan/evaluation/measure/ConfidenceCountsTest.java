@@ -0,0 +1,147 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package mulan.evaluation.measure;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.Test;
+import weka.classifiers.evaluation.NominalPrediction;
+import weka.classifiers.evaluation.Prediction;
+import weka.classifiers.evaluation.ThresholdCurve;
+import weka.core.Instances;
+
+/**
+ * Compares the areas of {@link ConfidenceCounts} with those of Weka's
+ * {@link ThresholdCurve}.
+ */
+public class ConfidenceCountsTest {
+
+    private static final int NUM_TRIALS = 2000;
+
+    /**
+     * Draws a confidence: continuous, with ties, with missing values or
+     * constant, depending on the mode
+     */
+    private static double confidence(Random random, int mode) {
+        switch (mode) {
+            case 0:
+                return random.nextDouble();
+            case 1:
+                return random.nextInt(5) / 4.0;
+            case 2:
+                return random.nextInt(10) == 0 ? Double.NaN : random.nextInt(3) / 2.0;
+            default:
+                return 0.5;
+        }
+    }
+
+    /**
+     * Draws a ground truth, which is constant for some trials
+     */
+    private static boolean actual(Random random, int trial) {
+        if (trial % 7 == 0) {
+            return true;
+        }
+        if (trial % 11 == 0) {
+            return false;
+        }
+        return random.nextBoolean();
+    }
+
+    private static void assertSameAreas(ArrayList<Prediction> predictions, ConfidenceCounts counts) {
+        Instances curve = new ThresholdCurve().getCurve(predictions, 1);
+        assertEquals(ThresholdCurve.getROCArea(curve), counts.getROCArea(), 0);
+        assertEquals(ThresholdCurve.getPRCArea(curve), counts.getPRCArea(), 0);
+    }
+
+    private static Prediction prediction(double confidence, boolean actual) {
+        return new NominalPrediction(actual ? 1 : 0, new double[]{1 - confidence, confidence}, 1);
+    }
+
+    @Test
+    public void testAreasEqualThresholdCurve() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            int numExamples = 1 + random.nextInt(40);
+            int mode = random.nextInt(4);
+            ArrayList<Prediction> predictions = new ArrayList<Prediction>();
+            ConfidenceCounts counts = new ConfidenceCounts();
+            for (int i = 0; i < numExamples; i++) {
+                double confidence = confidence(random, mode);
+                boolean actual = actual(random, trial);
+                predictions.add(prediction(confidence, actual));
+                counts.add(confidence, actual);
+            }
+            assertSameAreas(predictions, counts);
+        }
+    }
+
+    @Test
+    public void testAddAllAfterAreas() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < NUM_TRIALS; trial++) {
+            int mode = random.nextInt(4);
+            ArrayList<Prediction> predictions = new ArrayList<Prediction>();
+            ConfidenceCounts counts = new ConfidenceCounts();
+            ConfidenceCounts other = new ConfidenceCounts();
+            for (int i = 0; i < 1 + random.nextInt(20); i++) {
+                double confidence = confidence(random, mode);
+                boolean actual = actual(random, trial);
+                predictions.add(prediction(confidence, actual));
+                counts.add(confidence, actual);
+            }
+            // sorts the examples added so far
+            counts.getROCArea();
+            for (int i = 0; i < random.nextInt(20); i++) {
+                double confidence = confidence(random, mode);
+                boolean actual = actual(random, trial);
+                predictions.add(prediction(confidence, actual));
+                other.add(confidence, actual);
+            }
+            counts.addAll(other);
+            assertEquals(predictions.size(), counts.size());
+            assertSameAreas(predictions, counts);
+        }
+    }
+
+    @Test
+    public void testUnionEqualsCurveOfAllLabels() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < NUM_TRIALS / 10; trial++) {
+            int numLabels = 1 + random.nextInt(6);
+            ConfidenceCounts[] labelCounts = new ConfidenceCounts[numLabels];
+            ArrayList<Prediction> predictions = new ArrayList<Prediction>();
+            for (int j = 0; j < numLabels; j++) {
+                int mode = random.nextInt(4);
+                labelCounts[j] = new ConfidenceCounts();
+                for (int i = 0; i < 1 + random.nextInt(30); i++) {
+                    double confidence = confidence(random, mode);
+                    boolean actual = actual(random, trial + j);
+                    predictions.add(prediction(confidence, actual));
+                    labelCounts[j].add(confidence, actual);
+                }
+            }
+            assertSameAreas(predictions, ConfidenceCounts.union(labelCounts));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddAllRejectsOtherBins() {
+        new ConfidenceCounts().addAll(new ConfidenceCounts(10));
+    }
+}